@@ -0,0 +1,89 @@
+package net.coderodde.util.experimental.benchmark;
+
+import java.util.Random;
+
+/**
+ * This enumeration lists the positional access patterns exercised by the 
+ * benchmarks. Each pattern produces a precomputed sequence of indices so that
+ * index generation does not show up in the measurements.
+ * 
+ * @author Rodion "rodde" Efremov
+ */
+public enum AccessPattern {
+
+    /**
+     * Indices drawn uniformly at random from the whole list.
+     */
+    UNIFORM {
+        @Override
+        int nextIndex(Random random, int previousIndex, int size) {
+            return random.nextInt(size);
+        }
+    },
+
+    /**
+     * Consecutive indices wrapping around at the end of the list.
+     */
+    SEQUENTIAL {
+        @Override
+        int nextIndex(Random random, int previousIndex, int size) {
+            return (previousIndex + 1) % size;
+        }
+    },
+
+    /**
+     * Indices alternating between the head and the tail of the list.
+     */
+    HEAD_TAIL {
+        @Override
+        int nextIndex(Random random, int previousIndex, int size) {
+            return previousIndex == 0 ? size - 1 : 0;
+        }
+    },
+
+    /**
+     * A random walk with small steps around a cursor, jumping to a random 
+     * position once in a while.
+     */
+    CLUSTERED {
+        @Override
+        int nextIndex(Random random, int previousIndex, int size) {
+            if (random.nextInt(CLUSTER_JUMP_PERIOD) == 0) {
+                return random.nextInt(size);
+            }
+
+            int index = previousIndex 
+                      + random.nextInt(2 * CLUSTER_RADIUS + 1) 
+                      - CLUSTER_RADIUS;
+
+            return Math.max(0, Math.min(size - 1, index));
+        }
+    };
+
+    private static final int CLUSTER_RADIUS = 32;
+    private static final int CLUSTER_JUMP_PERIOD = 1024;
+
+    abstract int nextIndex(Random random, int previousIndex, int size);
+
+    /**
+     * Returns {@code length} indices within {@code [0, size)} following this
+     * pattern.
+     * 
+     * @param size   the size of the list.
+     * @param length the number of indices to produce.
+     * @param seed   the seed of the random number generator.
+     * @return the index sequence.
+     */
+    public int[] indices(int size, int length, long seed) {
+        Random random = new Random(seed);
+        int[] indices = new int[length];
+        int index = size / 2;
+
+        for (int i = 0; i < length; i++) {
+            index = nextIndex(random, index, size);
+            indices[i] = index;
+        }
+
+        return indices;
+    }
+}
@@ -0,0 +1,26 @@
+package net.coderodde.util.experimental.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the standard JMH command line options with 
+ * the GC profiler attached, so that the allocation rate is reported next to 
+ * the throughput.
+ * 
+ * @author Rodion "rodde" Efremov
+ */
+public final class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,67 @@
+package net.coderodde.util.experimental.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.experimental.LinkedBlockList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark inserts and removes at random positions around a steady 
+ * size, with and without the block pool. The list is set up once per trial, 
+ * so that the warmup brings the block fill to its steady state. Run it with 
+ * {@code -prof gc} (the default in {@link BenchmarkRunner}) to see the 
+ * allocation rate per operation.
+ * 
+ * @author Rodion "rodde" Efremov
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChurnBenchmark {
+
+    private static final Integer VALUE = -1;
+
+    @Param({"0", "16"})
+    private int blockPoolCapacity;
+
+    @Param({"16", "64"})
+    private int blockCapacity;
+
+    @Param({"100000"})
+    private int size;
+
+    private LinkedBlockList<Integer> list;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        list = new LinkedBlockList<>(blockCapacity);
+        list.setBlockPoolCapacity(blockPoolCapacity);
+        list.setBlockIndexEnabled(true);
+        random = new Random(13L);
+
+        for (int i = 0; i < size; i++) {
+            list.add(VALUE);
+        }
+    }
+
+    @Benchmark
+    public Integer insertAndRemove() {
+        list.add(random.nextInt(size + 1), VALUE);
+        return list.remove(random.nextInt(size + 1));
+    }
+}
@@ -0,0 +1,118 @@
+package net.coderodde.util.experimental.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.experimental.ConcurrentLinkedBlockList;
+import net.coderodde.util.experimental.LinkedBlockList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * This benchmark measures the throughput of concurrent updates of disjoint 
+ * regions of a shared list: every thread inserts, removes and reads at random
+ * positions within its own slice of the list. It compares 
+ * {@link ConcurrentLinkedBlockList} against a {@link LinkedBlockList} behind a
+ * single lock. Run it with {@code -t 1}, {@code -t 2}, {@code -t 4} and so on
+ * to see how the throughput scales with the number of threads.
+ * 
+ * @author Rodion "rodde" Efremov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentBenchmark {
+
+    private static final Integer VALUE = -1;
+
+    public enum Implementation {
+        CONCURRENT,
+        SYNCHRONIZED
+    }
+
+    @Param({"CONCURRENT", "SYNCHRONIZED"})
+    private Implementation implementation;
+
+    @Param({"64"})
+    private int blockCapacity;
+
+    @Param({"4096"})
+    private int size;
+
+    private ConcurrentLinkedBlockList<Integer> concurrentList;
+    private List<Integer> synchronizedList;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (implementation == Implementation.CONCURRENT) {
+            concurrentList = new ConcurrentLinkedBlockList<>(blockCapacity);
+
+            for (int i = 0; i < size; i++) {
+                concurrentList.add(VALUE);
+            }
+        } else {
+            LinkedBlockList<Integer> list = 
+                    new LinkedBlockList<>(blockCapacity);
+            list.setBlockIndexEnabled(true);
+
+            for (int i = 0; i < size; i++) {
+                list.add(VALUE);
+            }
+
+            synchronizedList = Collections.synchronizedList(list);
+        }
+    }
+
+    /**
+     * The slice of the list owned by a benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Region {
+
+        private int offset;
+        private int length;
+
+        @Setup(Level.Trial)
+        public void setup(ConcurrentBenchmark benchmark, 
+                          ThreadParams threadParams) {
+            length = benchmark.size / threadParams.getThreadCount();
+            offset = threadParams.getThreadIndex() * length;
+        }
+
+        int randomIndex() {
+            return offset + ThreadLocalRandom.current().nextInt(length);
+        }
+    }
+
+    @Benchmark
+    public Integer insertRemoveAndGet(Region region) {
+        int index = region.randomIndex();
+
+        if (implementation == Implementation.CONCURRENT) {
+            concurrentList.add(index, VALUE);
+            concurrentList.remove(region.randomIndex());
+            return concurrentList.get(region.randomIndex());
+        }
+
+        synchronizedList.add(index, VALUE);
+        synchronizedList.remove(region.randomIndex());
+        return synchronizedList.get(region.randomIndex());
+    }
+}
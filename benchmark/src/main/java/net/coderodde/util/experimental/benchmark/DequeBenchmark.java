@@ -0,0 +1,86 @@
+package net.coderodde.util.experimental.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.experimental.LinkedBlockList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures the throughput of the head and tail operations on a
+ * deque of steady size, used as a FIFO queue and as a LIFO stack.
+ * 
+ * @author Rodion "rodde" Efremov
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DequeBenchmark {
+
+    private static final Integer VALUE = -1;
+
+    public enum DequeType {
+        LINKED_BLOCK_LIST,
+        ARRAY_DEQUE,
+        LINKED_LIST
+    }
+
+    @Param({"LINKED_BLOCK_LIST", "ARRAY_DEQUE", "LINKED_LIST"})
+    private DequeType dequeType;
+
+    @Param({"16", "64", "256", "1024"})
+    private int blockCapacity;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private Deque<Integer> deque;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (dequeType) {
+            case LINKED_BLOCK_LIST:
+                deque = new LinkedBlockList<>(blockCapacity);
+                break;
+
+            case ARRAY_DEQUE:
+                deque = new ArrayDeque<>();
+                break;
+
+            default:
+                deque = new LinkedList<>();
+                break;
+        }
+
+        for (int i = 0; i < size; i++) {
+            deque.addLast(i);
+        }
+    }
+
+    @Benchmark
+    public Integer queue() {
+        deque.offerLast(VALUE);
+        return deque.pollFirst();
+    }
+
+    @Benchmark
+    public Integer stack() {
+        deque.push(VALUE);
+        return deque.pop();
+    }
+}
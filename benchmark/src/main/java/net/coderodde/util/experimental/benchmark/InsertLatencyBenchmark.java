@@ -0,0 +1,63 @@
+package net.coderodde.util.experimental.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.experimental.LinkedBlockList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark samples the latency of an insertion followed by a removal
+ * at random positions, which keeps the size steady, for block capacities up
+ * to 4096. On large blocks most of the cost is shifting the elements within
+ * a block, so the sampled distribution, and its 99th percentile in 
+ * particular, shows which block capacities remain affordable.
+ *
+ * @author Rodion "rodde" Efremov
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertLatencyBenchmark {
+
+    private static final Integer VALUE = -1;
+
+    @Param({"64", "256", "1024", "4096"})
+    private int blockCapacity;
+
+    @Param({"1000000"})
+    private int size;
+
+    private LinkedBlockList<Integer> list;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        list = new LinkedBlockList<>(blockCapacity);
+        list.setBlockIndexEnabled(true);
+        random = new Random(13L);
+
+        for (int i = 0; i < size; i++) {
+            list.add(VALUE);
+        }
+    }
+
+    @Benchmark
+    public Integer insertAndRemove() {
+        list.add(random.nextInt(size + 1), VALUE);
+        return list.remove(random.nextInt(size + 1));
+    }
+}
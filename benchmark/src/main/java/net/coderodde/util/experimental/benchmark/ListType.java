@@ -0,0 +1,62 @@
+package net.coderodde.util.experimental.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import net.coderodde.util.experimental.LinkedBlockList;
+import org.apache.commons.collections4.list.TreeList;
+
+/**
+ * This enumeration lists the list implementations compared by the positional
+ * benchmarks.
+ * 
+ * @author Rodion "rodde" Efremov
+ */
+public enum ListType {
+
+    LINKED_BLOCK_LIST {
+        @Override
+        List<Integer> create(int blockCapacity) {
+            return new LinkedBlockList<>(blockCapacity);
+        }
+    },
+
+    INDEXED_LINKED_BLOCK_LIST {
+        @Override
+        List<Integer> create(int blockCapacity) {
+            LinkedBlockList<Integer> list = new LinkedBlockList<>(blockCapacity);
+            list.setBlockIndexEnabled(true);
+            return list;
+        }
+    },
+
+    ARRAY_LIST {
+        @Override
+        List<Integer> create(int blockCapacity) {
+            return new ArrayList<>();
+        }
+    },
+
+    LINKED_LIST {
+        @Override
+        List<Integer> create(int blockCapacity) {
+            return new LinkedList<>();
+        }
+    },
+
+    TREE_LIST {
+        @Override
+        List<Integer> create(int blockCapacity) {
+            return new TreeList<>();
+        }
+    };
+
+    /**
+     * Creates an empty list of this type. The block capacity is ignored by the
+     * non-block lists.
+     * 
+     * @param blockCapacity the requested block capacity.
+     * @return an empty list.
+     */
+    abstract List<Integer> create(int blockCapacity);
+}
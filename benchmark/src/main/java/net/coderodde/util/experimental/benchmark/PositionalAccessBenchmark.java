@@ -0,0 +1,81 @@
+package net.coderodde.util.experimental.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures the throughput of positional {@code get}, and of
+ * {@code add} followed by {@code remove} at the same position, which keeps the
+ * list size steady.
+ * 
+ * @author Rodion "rodde" Efremov
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionalAccessBenchmark {
+
+    private static final int NUMBER_OF_INDICES = 1 << 16;
+    private static final int INDEX_MASK = NUMBER_OF_INDICES - 1;
+    private static final long SEED = 13L;
+    private static final Integer VALUE = -1;
+
+    @Param({"LINKED_BLOCK_LIST", 
+            "INDEXED_LINKED_BLOCK_LIST", 
+            "ARRAY_LIST", 
+            "LINKED_LIST", 
+            "TREE_LIST"})
+    private ListType listType;
+
+    @Param({"16", "64", "256", "1024"})
+    private int blockCapacity;
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    @Param({"UNIFORM", "SEQUENTIAL", "HEAD_TAIL", "CLUSTERED"})
+    private AccessPattern pattern;
+
+    private List<Integer> list;
+    private int[] indices;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        list = listType.create(blockCapacity);
+
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+
+        indices = pattern.indices(size, NUMBER_OF_INDICES, SEED);
+        cursor = 0;
+    }
+
+    @Benchmark
+    public Integer get() {
+        return list.get(indices[cursor++ & INDEX_MASK]);
+    }
+
+    @Benchmark
+    public Integer addRemove() {
+        int index = indices[cursor++ & INDEX_MASK];
+        list.add(index, VALUE);
+        return list.remove(index);
+    }
+}
@@ -0,0 +1,85 @@
+package net.coderodde.util.experimental.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.experimental.IntLinkedBlockList;
+import net.coderodde.util.experimental.LinkedBlockList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark compares the boxed {@link LinkedBlockList} against 
+ * {@link IntLinkedBlockList} on random insertion and on full scans.
+ * 
+ * @author Rodion "rodde" Efremov
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveBenchmark {
+
+    @Param({"64", "256"})
+    private int blockCapacity;
+
+    @Param({"100000"})
+    private int size;
+
+    private LinkedBlockList<Integer> boxedList;
+    private IntLinkedBlockList intList;
+    private Random random;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        boxedList = new LinkedBlockList<>(blockCapacity);
+        intList = new IntLinkedBlockList(blockCapacity);
+        random = new Random(13L);
+
+        for (int i = 0; i < size; i++) {
+            boxedList.add(i);
+            intList.add(i);
+        }
+    }
+
+    @Benchmark
+    public Integer boxedInsertAndRemove() {
+        int index = random.nextInt(size);
+        boxedList.add(index, index);
+        return boxedList.remove(index);
+    }
+
+    @Benchmark
+    public int intInsertAndRemove() {
+        int index = random.nextInt(size);
+        intList.add(index, index);
+        return intList.remove(index);
+    }
+
+    @Benchmark
+    public long boxedSum() {
+        long sum = 0L;
+
+        for (Integer element : boxedList) {
+            sum += element;
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public long intSum() {
+        return intList.stream().asLongStream().sum();
+    }
+}
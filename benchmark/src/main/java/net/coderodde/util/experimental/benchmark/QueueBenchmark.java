@@ -0,0 +1,86 @@
+package net.coderodde.util.experimental.benchmark;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.experimental.ConcurrentLinkedBlockQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures the throughput of a queue shared by two producers
+ * and two consumers. It compares {@link ConcurrentLinkedBlockQueue} against
+ * {@link LinkedBlockingQueue} and {@link LinkedTransferQueue}, both of which
+ * allocate a node per element; run it through {@link BenchmarkRunner} to see
+ * the difference in the allocation rate.
+ *
+ * @author Rodion "rodde" Efremov
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBenchmark {
+
+    private static final Integer VALUE = -1;
+
+    public enum Implementation {
+        BLOCK,
+        LINKED_BLOCKING,
+        LINKED_TRANSFER
+    }
+
+    @Param({"BLOCK", "LINKED_BLOCKING", "LINKED_TRANSFER"})
+    private Implementation implementation;
+
+    @Param({"256"})
+    private int blockCapacity;
+
+    private BlockingQueue<Integer> queue;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (implementation) {
+            case BLOCK:
+                queue = new ConcurrentLinkedBlockQueue<>(blockCapacity);
+                break;
+
+            case LINKED_BLOCKING:
+                queue = new LinkedBlockingQueue<>();
+                break;
+
+            default:
+                queue = new LinkedTransferQueue<>();
+                break;
+        }
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(2)
+    public boolean offer() {
+        return queue.offer(VALUE);
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(2)
+    public Integer poll() {
+        return queue.poll();
+    }
+}
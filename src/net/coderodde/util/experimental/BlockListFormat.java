@@ -0,0 +1,167 @@
+package net.coderodde.util.experimental;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class defines the binary format shared by the primitive block lists.
+ * A stream consists of a header of {@value #HEADER_BYTES} bytes followed by
+ * all the elements of the list in order, little-endian. The header holds, in
+ * this order, the magic number, the format version, the element type, the
+ * block capacity as {@code int}s, and the size of the list as a
+ * {@code long}. Since the header length is a multiple of eight, the elements
+ * are aligned in a file and may be mapped in place. Only
+ * {@link OffHeapLongLinkedBlockList#map(java.nio.file.Path)} does so; the
+ * lists keeping their blocks on the heap always copy the elements.
+ *
+ * @author Rodion "rodde" Efremov
+ */
+final class BlockListFormat {
+
+    static final int HEADER_BYTES = 24;
+
+    static final int INT_ELEMENTS = 1;
+    static final int LONG_ELEMENTS = 2;
+    static final int DOUBLE_ELEMENTS = 3;
+
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * The size of the buffers used for copying the elements to and from a
+     * channel.
+     */
+    static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * The bytes "LBLS" read as a little-endian {@code int}.
+     */
+    private static final int MAGIC = 0x534c424c;
+
+    private static final int VERSION = 1;
+
+    /**
+     * This static inner class holds a parsed header.
+     */
+    static final class Header {
+
+        final int blockCapacity;
+        final int size;
+
+        private Header(int blockCapacity, int size) {
+            this.blockCapacity = blockCapacity;
+            this.size = size;
+        }
+    }
+
+    private BlockListFormat() {}
+
+    /**
+     * Returns a buffer of at least {@code minimumBytes} bytes in the byte
+     * order of the format.
+     *
+     * @param minimumBytes the minimum capacity of the buffer.
+     * @return a buffer.
+     */
+    static ByteBuffer newBuffer(int minimumBytes) {
+        return ByteBuffer.allocate(Math.max(minimumBytes, BUFFER_BYTES))
+                         .order(BYTE_ORDER);
+    }
+
+    static void writeHeader(WritableByteChannel channel,
+                            int elementType,
+                            int blockCapacity,
+                            int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(BYTE_ORDER);
+        buffer.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(elementType)
+              .putInt(blockCapacity)
+              .putLong(size)
+              .flip();
+        writeFully(channel, buffer);
+    }
+
+    /**
+     * Reads and validates a header.
+     *
+     * @param channel     the channel to read from.
+     * @param elementType the expected element type.
+     * @return the header.
+     * @throws IOException if the header is malformed or does not describe
+     *                     elements of type {@code elementType}.
+     */
+    static Header readHeader(ReadableByteChannel channel, int elementType)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(BYTE_ORDER);
+        readFully(channel, buffer);
+        buffer.flip();
+        return parseHeader(buffer, elementType);
+    }
+
+    static Header parseHeader(ByteBuffer buffer, int elementType)
+            throws IOException {
+        buffer.order(BYTE_ORDER);
+
+        if (buffer.getInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a block list stream.");
+        }
+
+        int version = buffer.getInt();
+
+        if (version != VERSION) {
+            throw new StreamCorruptedException(
+                    "Unsupported format version " + version + ".");
+        }
+
+        int actualElementType = buffer.getInt();
+
+        if (actualElementType != elementType) {
+            throw new StreamCorruptedException(
+                    "Element type " + actualElementType +
+                    " does not match " + elementType + ".");
+        }
+
+        int blockCapacity = buffer.getInt();
+        long size = buffer.getLong();
+
+        if (blockCapacity <= 0 || Integer.bitCount(blockCapacity) != 1) {
+            throw new StreamCorruptedException(
+                    "Invalid block capacity " + blockCapacity + ".");
+        }
+
+        if (size < 0L || size > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("Invalid size " + size + ".");
+        }
+
+        return new Header(blockCapacity, (int) size);
+    }
+
+    /**
+     * Writes the remaining bytes of {@code buffer} to {@code channel}.
+     */
+    static void writeFully(WritableByteChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Fills the remaining bytes of {@code buffer} from {@code channel}.
+     *
+     * @throws EOFException if the channel ends first.
+     */
+    static void readFully(ReadableByteChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The block list stream is truncated.");
+            }
+        }
+    }
+}
@@ -0,0 +1,1211 @@
+package net.coderodde.util.experimental;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * This class implements a thread-safe variant of {@link LinkedBlockList}.
+ * Each block is guarded by its own {@link StampedLock}, so that the threads
+ * updating different blocks do not wait for each other, and the reads
+ * validate optimistic stamps instead of locking. The operations relinking the
+ * chain of blocks, that is, splitting a full block or unlinking an emptied
+ * one, lock only the target block and its neighbours; they happen about once
+ * per half a block of insertions or removals. The locks of the blocks are
+ * always acquired in chain order, so acquisition cannot deadlock.
+ * <p>
+ * A positional update first walks the chain optimistically and locks only
+ * its window at the end of the walk. If a relinking is in progress, or the
+ * walk fails to validate a few times in a row, the update falls back to
+ * locking the blocks hand-over-hand from the head of the chain. Since every
+ * such update holds the lock of the first block for a while, the writers
+ * are effectively serialized while relinkings keep happening.
+ * <p>
+ * A positional operation resolves its index against the block sizes it sees
+ * while walking the chain. If other threads insert or remove elements before
+ * the position at the same time, the index may thus refer to the list as of
+ * any moment during the call. Likewise, {@link #size()} is only exact in the
+ * absence of concurrent updates. {@link #toArray()} and {@link #clear()} are
+ * atomic. Null elements are not permitted.
+ *
+ * @param <T> the element type.
+ * @author Rodion "rodde" Efremov
+ */
+public final class ConcurrentLinkedBlockList<T> {
+
+    private static final int DEFAULT_BLOCK_CAPACITY = 64;
+    private static final int MINIMUM_BLOCK_CAPACITY = 4;
+
+    /**
+     * The number of optimistic walks an operation locking a window of blocks
+     * attempts before it locks the blocks one after another from the head of
+     * the chain.
+     */
+    private static final int OPTIMISTIC_ATTEMPTS = 4;
+
+    /**
+     * Returned by the single attempts when the stamps failed to validate or
+     * the target block changed under the attempt.
+     */
+    private static final Object RETRY = new Object();
+
+    /**
+     * Returned by the single attempts when the operation has to relink the
+     * chain of blocks.
+     */
+    private static final Object RELINK = new Object();
+
+    /**
+     * Returned by the single attempts when the element was inserted.
+     */
+    private static final Object DONE = new Object();
+
+    /**
+     * Returned by the polling attempts when the list is empty.
+     */
+    private static final Object EMPTY = new Object();
+
+    /**
+     * This static inner class implements the blocks storing the elements.
+     *
+     * @param <T> the element type.
+     */
+    private static final class Block<T> {
+
+        /**
+         * Guards the elements, {@code headIndex} and {@code size}, and
+         * together with the lock of the adjacent block the links between the
+         * two.
+         */
+        final StampedLock lock = new StampedLock();
+
+        /**
+         * The length of {@code array}.
+         */
+        final int capacity;
+
+        /**
+         * The mask used for modulo computation.
+         */
+        final int indexMask;
+
+        /**
+         * The array holding all the elements belonging to this block.
+         */
+        final Object[] array;
+
+        /**
+         * The number of elements in this block. Written under the write lock
+         * of this block, read without locking by the walks.
+         */
+        volatile int size;
+
+        /**
+         * The index of the very first element in this block.
+         */
+        int headIndex;
+
+        /**
+         * The previous block. Written under the write locks of this block and
+         * the previous one.
+         */
+        volatile Block<T> previousBlock;
+
+        /**
+         * The next block. Written under the write locks of this block and the
+         * next one. A walk following these links always moves forward in the
+         * order of the blocks, even across a concurrent relinking, so it
+         * terminates and then detects the relinking by validating its walk
+         * stamp.
+         */
+        volatile Block<T> nextBlock;
+
+        Block(int capacity) {
+            this.capacity = capacity;
+            this.indexMask = capacity - 1;
+            this.array = new Object[capacity];
+        }
+
+        Object get(int logicalIndex) {
+            return array[(headIndex + logicalIndex) & indexMask];
+        }
+
+        void set(int logicalIndex, Object element) {
+            array[(headIndex + logicalIndex) & indexMask] = element;
+        }
+    }
+
+    /**
+     * This static inner class holds a block and its predecessor, both
+     * write-locked, together with the index of the first element of the
+     * block.
+     *
+     * @param <T> the element type.
+     */
+    private static final class Window<T> {
+
+        final Block<T> previousBlock;
+        final Block<T> block;
+        final int startIndex;
+        final long previousStamp;
+        final long blockStamp;
+
+        /**
+         * Locks {@code previousBlock} and then {@code block}.
+         */
+        Window(Block<T> previousBlock, Block<T> block, int startIndex) {
+            this.previousBlock = previousBlock;
+            this.block = block;
+            this.startIndex = startIndex;
+            this.previousStamp = previousBlock.lock.writeLock();
+            this.blockStamp = block.lock.writeLock();
+        }
+
+        /**
+         * Takes over the locks already held on {@code previousBlock} and
+         * {@code block}.
+         */
+        Window(Block<T> previousBlock,
+               Block<T> block,
+               int startIndex,
+               long previousStamp,
+               long blockStamp) {
+            this.previousBlock = previousBlock;
+            this.block = block;
+            this.startIndex = startIndex;
+            this.previousStamp = previousStamp;
+            this.blockStamp = blockStamp;
+        }
+
+        void unlock() {
+            block.lock.unlockWrite(blockStamp);
+            previousBlock.lock.unlockWrite(previousStamp);
+        }
+    }
+
+    /**
+     * The number of relinkings of the chain begun so far. Together with
+     * {@code relinkEndCount} it works as a sequence lock with many writers:
+     * a walk is valid if no relinking was in progress when it started and
+     * none began before it finished. Both counters start at one, so that no
+     * walk stamp is zero.
+     */
+    private final AtomicLong relinkBeginCount = new AtomicLong(1L);
+
+    /**
+     * The number of relinkings of the chain finished so far.
+     */
+    private final AtomicLong relinkEndCount = new AtomicLong(1L);
+
+    /**
+     * The sentinel preceding the first block.
+     */
+    private final Block<T> headSentinel = new Block<>(0);
+
+    /**
+     * The sentinel following the last block.
+     */
+    private final Block<T> tailSentinel = new Block<>(0);
+
+    /**
+     * The number of elements in this list. Updated while holding the lock of
+     * the modified block, so that {@link #clear()} can subtract exactly what
+     * it removes.
+     */
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * The block capacity.
+     */
+    private final int blockCapacity;
+
+    public ConcurrentLinkedBlockList(int blockCapacity) {
+        blockCapacity = Math.max(blockCapacity, MINIMUM_BLOCK_CAPACITY);
+        blockCapacity = ceilToPowerOfTwo(blockCapacity);
+        this.blockCapacity = blockCapacity;
+        headSentinel.nextBlock = tailSentinel;
+        tailSentinel.previousBlock = headSentinel;
+    }
+
+    public ConcurrentLinkedBlockList() {
+        this(DEFAULT_BLOCK_CAPACITY);
+    }
+
+    /**
+     * Appends {@code element} to the end of this list.
+     *
+     * @param element the element to append.
+     */
+    public void add(T element) {
+        addLast(element);
+    }
+
+    /**
+     * Inserts {@code element} at the beginning of this list.
+     *
+     * @param element the element to insert.
+     */
+    public void addFirst(T element) {
+        add(0, element);
+    }
+
+    /**
+     * Appends {@code element} to the end of this list.
+     *
+     * @param element the element to append.
+     */
+    public void addLast(T element) {
+        checkElement(element);
+        long stamp = tryOptimisticWalk();
+
+        if (stamp == 0L || tryAddLast(element, stamp) != DONE) {
+            lockedAddLast(element);
+        }
+    }
+
+    public void add(int index, T element) {
+        checkElement(element);
+        checkNonNegativeIndex(index);
+        long stamp = tryOptimisticWalk();
+
+        if (stamp == 0L || tryAdd(index, element, stamp) != DONE) {
+            lockedAdd(index, element);
+        }
+    }
+
+    public T get(int index) {
+        checkNonNegativeIndex(index);
+        long stamp = tryOptimisticWalk();
+
+        if (stamp != 0L) {
+            Object element = tryGet(index, stamp);
+
+            if (element != RETRY) {
+                return asElement(element);
+            }
+        }
+
+        Window<T> window = lockWindow(index, false);
+
+        try {
+            checkWindowIndex(window, index);
+            return asElement(window.block.get(index - window.startIndex));
+        } finally {
+            window.unlock();
+        }
+    }
+
+    public T set(int index, T element) {
+        checkElement(element);
+        checkNonNegativeIndex(index);
+        long stamp = tryOptimisticWalk();
+
+        if (stamp != 0L) {
+            Object oldElement = trySet(index, element, stamp);
+
+            if (oldElement != RETRY) {
+                return asElement(oldElement);
+            }
+        }
+
+        Window<T> window = lockWindow(index, false);
+
+        try {
+            checkWindowIndex(window, index);
+            int offset = index - window.startIndex;
+            Object oldElement = window.block.get(offset);
+            window.block.set(offset, element);
+            return asElement(oldElement);
+        } finally {
+            window.unlock();
+        }
+    }
+
+    /**
+     * Removes the element at position {@code index}.
+     *
+     * @param index the index of the element to remove.
+     * @return the removed element.
+     */
+    public T remove(int index) {
+        checkNonNegativeIndex(index);
+        return asElement(remove(index, false));
+    }
+
+    /**
+     * Removes and returns the first element of this list, or returns
+     * {@code null} if this list is empty.
+     *
+     * @return the removed element or {@code null}.
+     */
+    public T pollFirst() {
+        Object element = remove(0, true);
+        return element == EMPTY ? null : asElement(element);
+    }
+
+    /**
+     * Removes and returns the last element of this list, or returns
+     * {@code null} if this list is empty.
+     *
+     * @return the removed element or {@code null}.
+     */
+    public T pollLast() {
+        long stamp = tryOptimisticWalk();
+        Object element = RETRY;
+
+        if (stamp != 0L) {
+            element = tryPollLast(stamp);
+        }
+
+        if (element == RETRY || element == RELINK) {
+            element = lockedPollLast();
+        }
+
+        return element == EMPTY ? null : asElement(element);
+    }
+
+    /**
+     * Returns the number of elements in this list. The result is exact only
+     * in the absence of concurrent updates.
+     *
+     * @return the number of elements.
+     */
+    public int size() {
+        return (int) size.sum();
+    }
+
+    public boolean isEmpty() {
+        return size.sum() == 0L;
+    }
+
+    /**
+     * Atomically removes all the elements of this list.
+     */
+    public void clear() {
+        long[] blockStamps = lockAllBlocks();
+        Block<T> firstBlock = headSentinel.nextBlock;
+        long removed = 0L;
+
+        for (Block<T> block = firstBlock;
+                block != tailSentinel;
+                block = block.nextBlock) {
+            removed += block.size;
+        }
+
+        beginRelink();
+        headSentinel.nextBlock = tailSentinel;
+        tailSentinel.previousBlock = headSentinel;
+        size.add(-removed);
+        endRelink();
+
+        // The removed blocks keep their own links:
+        Block<T> block = firstBlock;
+        headSentinel.lock.unlockWrite(blockStamps[0]);
+
+        for (int i = 1; i < blockStamps.length; i++) {
+            Block<T> nextBlock = block.nextBlock;
+            block.lock.unlockWrite(blockStamps[i]);
+            block = nextBlock;
+        }
+    }
+
+    /**
+     * Returns an array holding a snapshot of the elements of this list taken
+     * atomically.
+     *
+     * @return the array of elements.
+     */
+    public Object[] toArray() {
+        long[] blockStamps = lockAllBlocks();
+        int totalSize = 0;
+
+        for (Block<T> block = headSentinel.nextBlock;
+                block != tailSentinel;
+                block = block.nextBlock) {
+            totalSize += block.size;
+        }
+
+        Object[] array = new Object[totalSize];
+        int targetIndex = 0;
+        Block<T> block = headSentinel;
+
+        for (int i = 0; i < blockStamps.length; i++) {
+            for (int j = 0; j < block.size; j++) {
+                array[targetIndex++] = block.get(j);
+            }
+
+            Block<T> nextBlock = block.nextBlock;
+            block.lock.unlockWrite(blockStamps[i]);
+            block = nextBlock;
+        }
+
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        Object[] array = toArray();
+
+        for (int i = 0; i < array.length; i++) {
+            sb.append(array[i]);
+
+            if (i < array.length - 1) {
+                sb.append(", ");
+            }
+        }
+
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Attempts to insert {@code element} at {@code index} without relinking
+     * the chain.
+     *
+     * @return {@code DONE}, {@code RETRY} or {@code RELINK}.
+     */
+    private Object tryAdd(int index, T element, long walkStamp) {
+        // Stop at the first block that can take the index:
+        Block<T> block = headSentinel.nextBlock;
+        int startIndex = 0;
+
+        while (block != tailSentinel) {
+            int blockSize = block.size;
+
+            if (index <= startIndex + blockSize) {
+                break;
+            }
+
+            startIndex += blockSize;
+            block = block.nextBlock;
+        }
+
+        if (!validate(walkStamp)) {
+            return RETRY;
+        }
+
+        if (block == tailSentinel) {
+            if (index == startIndex) {
+                // The list is empty:
+                return RELINK;
+            }
+
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") > (" + startIndex + ")");
+        }
+
+        long blockStamp = block.lock.writeLock();
+
+        try {
+            if (!validate(walkStamp)) {
+                return RETRY;
+            }
+
+            int offset = index - startIndex;
+
+            if (offset > block.size) {
+                return RETRY;
+            }
+
+            if (block.size == block.capacity) {
+                return RELINK;
+            }
+
+            insertIntoBlock(block, offset, element);
+            size.increment();
+            return DONE;
+        } finally {
+            block.lock.unlockWrite(blockStamp);
+        }
+    }
+
+    /**
+     * Attempts to append {@code element} to the last block.
+     *
+     * @return {@code DONE}, {@code RETRY} or {@code RELINK}.
+     */
+    private Object tryAddLast(T element, long walkStamp) {
+        Block<T> block = tailSentinel.previousBlock;
+
+        if (!validate(walkStamp)) {
+            return RETRY;
+        }
+
+        if (block == headSentinel) {
+            return RELINK;
+        }
+
+        long blockStamp = block.lock.writeLock();
+
+        try {
+            if (!validate(walkStamp)) {
+                return RETRY;
+            }
+
+            if (block.size == block.capacity) {
+                return RELINK;
+            }
+
+            block.set(block.size, element);
+            block.size++;
+            size.increment();
+            return DONE;
+        } finally {
+            block.lock.unlockWrite(blockStamp);
+        }
+    }
+
+    private Object tryGet(int index, long walkStamp) {
+        Block<T> block = headSentinel.nextBlock;
+        int startIndex = 0;
+
+        while (block != tailSentinel) {
+            int blockSize = block.size;
+
+            if (index < startIndex + blockSize) {
+                break;
+            }
+
+            startIndex += blockSize;
+            block = block.nextBlock;
+        }
+
+        if (!validate(walkStamp)) {
+            return RETRY;
+        }
+
+        if (block == tailSentinel) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") >= (" + startIndex + ")");
+        }
+
+        int offset = index - startIndex;
+        long blockStamp = block.lock.tryOptimisticRead();
+
+        if (blockStamp != 0L && offset < block.size) {
+            Object element = block.get(offset);
+
+            if (block.lock.validate(blockStamp) && validate(walkStamp)) {
+                return element;
+            }
+        }
+
+        blockStamp = block.lock.readLock();
+
+        try {
+            if (!validate(walkStamp) || offset >= block.size) {
+                return RETRY;
+            }
+
+            return block.get(offset);
+        } finally {
+            block.lock.unlockRead(blockStamp);
+        }
+    }
+
+    private Object trySet(int index, T element, long walkStamp) {
+        Block<T> block = headSentinel.nextBlock;
+        int startIndex = 0;
+
+        while (block != tailSentinel) {
+            int blockSize = block.size;
+
+            if (index < startIndex + blockSize) {
+                break;
+            }
+
+            startIndex += blockSize;
+            block = block.nextBlock;
+        }
+
+        if (!validate(walkStamp)) {
+            return RETRY;
+        }
+
+        if (block == tailSentinel) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") >= (" + startIndex + ")");
+        }
+
+        long blockStamp = block.lock.writeLock();
+
+        try {
+            int offset = index - startIndex;
+
+            if (!validate(walkStamp) || offset >= block.size) {
+                return RETRY;
+            }
+
+            Object oldElement = block.get(offset);
+            block.set(offset, element);
+            return oldElement;
+        } finally {
+            block.lock.unlockWrite(blockStamp);
+        }
+    }
+
+    private Object remove(int index, boolean poll) {
+        long stamp = tryOptimisticWalk();
+        Object element = RETRY;
+
+        if (stamp != 0L) {
+            element = tryRemove(index, stamp, poll);
+        }
+
+        if (element == RETRY || element == RELINK) {
+            element = lockedRemove(index, poll);
+        }
+
+        return element;
+    }
+
+    /**
+     * Attempts to remove the element at {@code index} without relinking the
+     * chain, which is needed when the element is the last one in its block.
+     *
+     * @return the removed element, {@code EMPTY}, {@code RETRY} or
+     *         {@code RELINK}.
+     */
+    private Object tryRemove(int index, long walkStamp, boolean poll) {
+        Block<T> block = headSentinel.nextBlock;
+        int startIndex = 0;
+
+        while (block != tailSentinel) {
+            int blockSize = block.size;
+
+            if (index < startIndex + blockSize) {
+                break;
+            }
+
+            startIndex += blockSize;
+            block = block.nextBlock;
+        }
+
+        if (!validate(walkStamp)) {
+            return RETRY;
+        }
+
+        if (block == tailSentinel) {
+            if (poll) {
+                return EMPTY;
+            }
+
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") >= (" + startIndex + ")");
+        }
+
+        long blockStamp = block.lock.writeLock();
+
+        try {
+            int offset = index - startIndex;
+
+            if (!validate(walkStamp) || offset >= block.size) {
+                return RETRY;
+            }
+
+            if (block.size == 1) {
+                return RELINK;
+            }
+
+            Object element = removeFromBlock(block, offset);
+            size.decrement();
+            return element;
+        } finally {
+            block.lock.unlockWrite(blockStamp);
+        }
+    }
+
+    private Object tryPollLast(long walkStamp) {
+        Block<T> block = tailSentinel.previousBlock;
+
+        if (!validate(walkStamp)) {
+            return RETRY;
+        }
+
+        if (block == headSentinel) {
+            return EMPTY;
+        }
+
+        long blockStamp = block.lock.writeLock();
+
+        try {
+            if (!validate(walkStamp) || block.size == 0) {
+                return RETRY;
+            }
+
+            if (block.size == 1) {
+                return RELINK;
+            }
+
+            Object element = removeFromBlock(block, block.size - 1);
+            size.decrement();
+            return element;
+        } finally {
+            block.lock.unlockWrite(blockStamp);
+        }
+    }
+
+    /**
+     * Inserts {@code element} at {@code index} while holding the window of
+     * the target block, splitting the block if it is full.
+     */
+    private void lockedAdd(int index, T element) {
+        Window<T> window = lockWindow(index, true);
+
+        try {
+            Block<T> block = window.block;
+
+            if (block == tailSentinel) {
+                if (index != window.startIndex) {
+                    throw new IndexOutOfBoundsException(
+                            "index(" + index + ") > (" +
+                            window.startIndex + ")");
+                }
+
+                linkNewBlock(window.previousBlock, block, element);
+            } else if (block.size < block.capacity) {
+                insertIntoBlock(block, index - window.startIndex, element);
+            } else {
+                splitBlock(window, index - window.startIndex, element);
+            }
+
+            size.increment();
+        } finally {
+            window.unlock();
+        }
+    }
+
+    /**
+     * Appends {@code element} while holding the last block and the tail
+     * sentinel, linking a new block if the last one is full.
+     */
+    private void lockedAddLast(T element) {
+        while (true) {
+            Block<T> block = tailSentinel.previousBlock;
+            Window<T> window = new Window<>(block, tailSentinel, 0);
+
+            try {
+                if (tailSentinel.previousBlock != block) {
+                    // A block was linked or unlinked at the end; try again:
+                    continue;
+                }
+
+                if (block != headSentinel && block.size < block.capacity) {
+                    block.set(block.size, element);
+                    block.size++;
+                } else {
+                    linkNewBlock(block, tailSentinel, element);
+                }
+
+                size.increment();
+                return;
+            } finally {
+                window.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes the element at {@code index} while holding the window of the
+     * target block, unlinking the block if it becomes empty.
+     */
+    private Object lockedRemove(int index, boolean poll) {
+        Window<T> window = lockWindow(index, false);
+
+        try {
+            Block<T> block = window.block;
+
+            if (block == tailSentinel) {
+                if (poll) {
+                    return EMPTY;
+                }
+
+                checkWindowIndex(window, index);
+            }
+
+            Object element;
+
+            if (block.size > 1) {
+                element = removeFromBlock(block, index - window.startIndex);
+            } else {
+                element = block.get(0);
+                unlinkBlock(block);
+            }
+
+            size.decrement();
+            return element;
+        } finally {
+            window.unlock();
+        }
+    }
+
+    /**
+     * Removes the last element while holding the last block and its
+     * predecessor, unlinking the last block if it becomes empty.
+     */
+    private Object lockedPollLast() {
+        while (true) {
+            Block<T> block = tailSentinel.previousBlock;
+
+            if (block == headSentinel) {
+                return EMPTY;
+            }
+
+            Window<T> window = new Window<>(block.previousBlock, block, 0);
+
+            try {
+                // Holding the block keeps its links to both neighbours:
+                if (tailSentinel.previousBlock != block
+                        || block.previousBlock != window.previousBlock) {
+                    continue;
+                }
+
+                Object element;
+
+                if (block.size > 1) {
+                    element = removeFromBlock(block, block.size - 1);
+                } else {
+                    element = block.get(0);
+                    unlinkBlock(block);
+                }
+
+                size.decrement();
+                return element;
+            } finally {
+                window.unlock();
+            }
+        }
+    }
+
+    /**
+     * Locks the window of the first block containing {@code index}, or, if
+     * {@code inclusive}, of the first block that can take an insertion at
+     * {@code index}. The block is the tail sentinel if there is no such
+     * block. First attempts a few optimistic walks, locking the window only
+     * at their end, and then falls back to locking the blocks one after
+     * another from the head of the chain.
+     */
+    private Window<T> lockWindow(int index, boolean inclusive) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long walkStamp = tryOptimisticWalk();
+
+            if (walkStamp == 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            Block<T> block = headSentinel.nextBlock;
+            int startIndex = 0;
+
+            while (block != tailSentinel
+                    && !windowReached(block.size, index - startIndex,
+                                      inclusive)) {
+                startIndex += block.size;
+                block = block.nextBlock;
+            }
+
+            Window<T> window =
+                    new Window<>(block.previousBlock, block, startIndex);
+
+            // A valid stamp means that the two blocks are still adjacent:
+            if (validate(walkStamp)
+                    && (block == tailSentinel
+                        || windowReached(block.size,
+                                         index - startIndex,
+                                         inclusive))) {
+                return window;
+            }
+
+            window.unlock();
+        }
+
+        Block<T> previousBlock = headSentinel;
+        long previousStamp = previousBlock.lock.writeLock();
+        Block<T> block = previousBlock.nextBlock;
+        long blockStamp = block.lock.writeLock();
+        int startIndex = 0;
+
+        while (block != tailSentinel
+                && !windowReached(block.size, index - startIndex, inclusive)) {
+            startIndex += block.size;
+            previousBlock.lock.unlockWrite(previousStamp);
+            previousBlock = block;
+            previousStamp = blockStamp;
+            block = block.nextBlock;
+            blockStamp = block.lock.writeLock();
+        }
+
+        return new Window<>(previousBlock,
+                            block,
+                            startIndex,
+                            previousStamp,
+                            blockStamp);
+    }
+
+    private static boolean windowReached(int blockSize,
+                                         int offset,
+                                         boolean inclusive) {
+        return inclusive ? offset <= blockSize : offset < blockSize;
+    }
+
+    /**
+     * Splits the full {@code block} of {@code window}, moving the shorter of
+     * its prefix and suffix to a new block together with {@code element}. A
+     * suffix is moved to a new block after {@code block}, so then the next
+     * block is locked as well.
+     */
+    private void splitBlock(Window<T> window, int offset, T element) {
+        Block<T> block = window.block;
+        int elementsOnLeft = offset;
+        int elementsOnRight = block.size - offset;
+        Block<T> newBlock = new Block<>(blockCapacity);
+
+        if (elementsOnLeft < elementsOnRight) {
+            for (int i = 0; i < elementsOnLeft; i++) {
+                newBlock.array[i] = block.get(i);
+            }
+
+            newBlock.array[elementsOnLeft] = element;
+            newBlock.size = elementsOnLeft + 1;
+            beginRelink();
+
+            for (int i = 0; i < elementsOnLeft; i++) {
+                block.set(i, null);
+            }
+
+            block.headIndex =
+                    (block.headIndex + elementsOnLeft) & block.indexMask;
+            block.size -= elementsOnLeft;
+            linkBlockBefore(block, newBlock);
+            endRelink();
+            return;
+        }
+
+        newBlock.array[0] = element;
+
+        for (int i = 0; i < elementsOnRight; i++) {
+            newBlock.array[i + 1] = block.get(offset + i);
+        }
+
+        newBlock.size = elementsOnRight + 1;
+        Block<T> nextBlock = block.nextBlock;
+        long nextStamp = nextBlock.lock.writeLock();
+
+        try {
+            beginRelink();
+
+            for (int i = 0; i < elementsOnRight; i++) {
+                block.set(offset + i, null);
+            }
+
+            block.size -= elementsOnRight;
+            linkBlockBefore(nextBlock, newBlock);
+            endRelink();
+        } finally {
+            nextBlock.lock.unlockWrite(nextStamp);
+        }
+    }
+
+    /**
+     * Links a new block holding only {@code element} between the adjacent
+     * {@code previousBlock} and {@code nextBlock}. The caller holds the
+     * write locks of both.
+     */
+    private void linkNewBlock(Block<T> previousBlock,
+                              Block<T> nextBlock,
+                              T element) {
+        Block<T> newBlock = new Block<>(blockCapacity);
+        newBlock.array[0] = element;
+        newBlock.size = 1;
+        beginRelink();
+        linkBlockBefore(nextBlock, newBlock);
+        endRelink();
+    }
+
+    /**
+     * Inserts {@code element} at the logical index {@code offset} of the
+     * non-full {@code block}, shifting the shorter side.
+     */
+    private static void insertIntoBlock(Block<?> block,
+                                        int offset,
+                                        Object element) {
+        int blockSize = block.size;
+
+        if (offset < blockSize - offset) {
+            // Shift the prefix one position to the left:
+            for (int i = 0; i < offset; i++) {
+                block.set(i - 1, block.get(i));
+            }
+
+            block.headIndex = (block.headIndex - 1) & block.indexMask;
+        } else {
+            // Shift the suffix one position to the right:
+            for (int i = blockSize - 1; i >= offset; i--) {
+                block.set(i + 1, block.get(i));
+            }
+        }
+
+        block.set(offset, element);
+        block.size = blockSize + 1;
+    }
+
+    /**
+     * Removes the element at the logical index {@code offset} of
+     * {@code block}, shifting the shorter side.
+     */
+    private static Object removeFromBlock(Block<?> block, int offset) {
+        int blockSize = block.size;
+        Object element = block.get(offset);
+
+        if (offset < blockSize - offset - 1) {
+            // Shift the prefix one position to the right:
+            for (int i = offset - 1; i >= 0; i--) {
+                block.set(i + 1, block.get(i));
+            }
+
+            block.set(0, null);
+            block.headIndex = (block.headIndex + 1) & block.indexMask;
+        } else {
+            // Shift the suffix one position to the left:
+            for (int i = offset + 1; i < blockSize; i++) {
+                block.set(i - 1, block.get(i));
+            }
+
+            block.set(blockSize - 1, null);
+        }
+
+        block.size = blockSize - 1;
+        return element;
+    }
+
+    /**
+     * Links {@code newBlock} right before {@code block}, publishing it only
+     * after its own links are set. The caller holds the write locks of
+     * {@code block} and its predecessor, and has begun a relinking.
+     */
+    private void linkBlockBefore(Block<T> block, Block<T> newBlock) {
+        newBlock.previousBlock = block.previousBlock;
+        newBlock.nextBlock = block;
+        block.previousBlock.nextBlock = newBlock;
+        block.previousBlock = newBlock;
+    }
+
+    /**
+     * Removes the only element of {@code block} and unlinks the block. Its
+     * own links are kept, so that a walk standing at it can still proceed to
+     * a stamp validation. The caller holds the write locks of {@code block}
+     * and its predecessor; the successor is locked here.
+     */
+    private void unlinkBlock(Block<T> block) {
+        Block<T> nextBlock = block.nextBlock;
+        long nextStamp = nextBlock.lock.writeLock();
+
+        try {
+            beginRelink();
+            block.set(0, null);
+            block.size = 0;
+            block.previousBlock.nextBlock = nextBlock;
+            nextBlock.previousBlock = block.previousBlock;
+            endRelink();
+        } finally {
+            nextBlock.lock.unlockWrite(nextStamp);
+        }
+    }
+
+    /**
+     * Write-locks all the blocks, the sentinels included, in chain order,
+     * waiting for the updates in progress. Since a link changes only under
+     * the locks of both its blocks, the locked prefix of the chain stays
+     * intact.
+     *
+     * @return the stamps in chain order.
+     */
+    private long[] lockAllBlocks() {
+        long[] blockStamps = new long[16];
+        int blocks = 0;
+        Block<T> block = headSentinel;
+
+        while (true) {
+            if (blocks == blockStamps.length) {
+                blockStamps = Arrays.copyOf(blockStamps, 2 * blocks);
+            }
+
+            blockStamps[blocks++] = block.lock.writeLock();
+
+            if (block == tailSentinel) {
+                return Arrays.copyOf(blockStamps, blocks);
+            }
+
+            block = block.nextBlock;
+        }
+    }
+
+    /**
+     * Returns a stamp for an optimistic walk, or zero if a relinking is in
+     * progress.
+     */
+    private long tryOptimisticWalk() {
+        long endCount = relinkEndCount.get();
+        long beginCount = relinkBeginCount.get();
+        return beginCount == endCount ? beginCount : 0L;
+    }
+
+    /**
+     * Validates a walk stamp. A zero stamp stands for the locks held by the
+     * caller, and is always valid.
+     */
+    private boolean validate(long walkStamp) {
+        return walkStamp == 0L || relinkBeginCount.get() == walkStamp;
+    }
+
+    /**
+     * Marks the beginning of a relinking. The caller holds the write locks
+     * of all the blocks whose links or sizes it is about to change.
+     */
+    private void beginRelink() {
+        relinkBeginCount.incrementAndGet();
+    }
+
+    private void endRelink() {
+        relinkEndCount.incrementAndGet();
+    }
+
+    private void checkWindowIndex(Window<T> window, int index) {
+        if (window.block == tailSentinel) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") >= (" + window.startIndex + ")");
+        }
+    }
+
+    /**
+     * Casts an element returned by the attempts to the element type. All the
+     * stored elements are of type {@code T}, and the markers are filtered
+     * out by the callers.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T asElement(Object element) {
+        return (T) element;
+    }
+
+    private static void checkElement(Object element) {
+        Objects.requireNonNull(element, "The input element is null.");
+    }
+
+    private static void checkNonNegativeIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index(" + index + ") < 0");
+        }
+    }
+
+    private static int ceilToPowerOfTwo(int number) {
+        int ret = 1;
+
+        while (ret < number) {
+            ret <<= 1;
+        }
+
+        return ret;
+    }
+}
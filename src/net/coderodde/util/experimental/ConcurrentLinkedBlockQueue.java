@@ -0,0 +1,875 @@
+package net.coderodde.util.experimental;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TransferQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class implements an unbounded lock-free queue on a chain of array
+ * blocks. Producers claim the slots of the tail block by fetch-and-add on its
+ * enqueue index and fill them by compare-and-set; consumers claim the slots
+ * of the head block by fetch-and-add on its dequeue index and empty them by
+ * swapping in a tombstone. A full tail block is followed by a new block
+ * linked through {@code nextBlock}, and a drained head block is skipped.
+ * Thus the queue allocates one block per {@code blockCapacity} elements
+ * instead of one node per element. Once all the operations on the slots of a
+ * drained block are finished, the slots go to a small recycle list and serve
+ * a block linked later; an epoch counting the reuses lets the readers still
+ * standing at the drained block tell that its slots are gone.
+ * <p>
+ * The blocking operations park only when the queue is empty: a waiting
+ * consumer registers itself under a lock before its final emptiness check,
+ * and a producer takes the lock only if it sees a registered consumer. The
+ * iterators are weakly consistent. Null elements are not permitted.
+ * <p>
+ * This class is a queue only. A lock-free deque would need the consumers at
+ * both ends to agree on the slots between them, which the fetch-and-add
+ * indices cannot do; {@link ConcurrentLinkedBlockList} serves as a
+ * concurrent deque instead.
+ *
+ * @param <E> the element type.
+ * @author Rodion "rodde" Efremov
+ */
+public final class ConcurrentLinkedBlockQueue<E> extends AbstractQueue<E>
+                                                implements TransferQueue<E> {
+
+    private static final int DEFAULT_BLOCK_CAPACITY = 256;
+    private static final int MINIMUM_BLOCK_CAPACITY = 4;
+
+    /**
+     * The maximum number of recycled slot arrays kept for reuse.
+     */
+    private static final int MAXIMUM_RECYCLED_SLOTS = 8;
+
+    /**
+     * Marks a slot whose element was taken, retracted or removed.
+     */
+    private static final Object TAKEN = new Object();
+
+    /**
+     * This static inner class implements the slots of a block. Reused by a
+     * later block once all the operations on them are finished.
+     */
+    private static final class Slots extends AtomicReferenceArray<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The number of times these slots were released for reuse.
+         */
+        volatile int epoch;
+
+        Slots(int capacity) {
+            super(capacity);
+        }
+    }
+
+    /**
+     * This static inner class implements the blocks of the queue.
+     */
+    private static final class Block {
+
+        /**
+         * The slots of this block.
+         */
+        final Slots slots;
+
+        /**
+         * The epoch of {@code slots} when this block got them. The slots
+         * belong to a later block once their epoch differs.
+         */
+        final int epoch;
+
+        /**
+         * The number of finished slot operations. Each slot is filled or
+         * given up on by one producer and emptied by one consumer, so the
+         * slots are free once this reaches twice the capacity.
+         */
+        final AtomicInteger finishedSlotOperations;
+
+        /**
+         * Set by an iterator before it retracts an element, so that the
+         * slots are not reused under it.
+         */
+        volatile boolean pinned;
+
+        /**
+         * The index of the next slot to claim for an element. Grows past the
+         * capacity once this block is full.
+         */
+        final AtomicInteger enqueueIndex;
+
+        /**
+         * The index of the next slot to claim for removal. Grows past the
+         * capacity once this block is drained.
+         */
+        final AtomicInteger dequeueIndex = new AtomicInteger();
+
+        /**
+         * The next block.
+         */
+        final AtomicReference<Block> nextBlock = new AtomicReference<>();
+
+        /**
+         * Constructs a block holding {@code firstElement} in its first slot.
+         * All the slots of {@code slots} are {@code null}.
+         */
+        Block(Slots slots, Object firstElement) {
+            this.slots = slots;
+            this.epoch = slots.epoch;
+            slots.lazySet(0, firstElement);
+            int claimed = firstElement == null ? 0 : 1;
+            enqueueIndex = new AtomicInteger(claimed);
+            finishedSlotOperations = new AtomicInteger(claimed);
+        }
+
+        /**
+         * Indicates whether the slots of this block belong to a later block.
+         * A reader validates its reads of the slots with this.
+         */
+        boolean isRecycled() {
+            return slots.epoch != epoch;
+        }
+    }
+
+    /**
+     * Wraps an element offered by {@link #transfer(Object)}, so that the
+     * consumer taking it can wake up the producer.
+     */
+    private static final class TransferNode {
+
+        final Object element;
+        final Thread producer;
+        volatile boolean taken;
+
+        TransferNode(Object element, Thread producer) {
+            this.element = element;
+            this.producer = producer;
+        }
+    }
+
+    /**
+     * A consumer blocked on an empty queue.
+     */
+    private static final class Waiter {
+
+        final Thread consumer;
+
+        /**
+         * The element handed over directly by
+         * {@link #tryTransfer(Object)}, or {@code null}.
+         */
+        volatile Object element;
+
+        /**
+         * Set when a producer has woken this waiter up.
+         */
+        volatile boolean signalled;
+
+        Waiter(Thread consumer) {
+            this.consumer = consumer;
+        }
+    }
+
+    /**
+     * The capacity of each block.
+     */
+    private final int blockCapacity;
+
+    /**
+     * The block consumers take from.
+     */
+    private final AtomicReference<Block> headBlock;
+
+    /**
+     * The block producers add to.
+     */
+    private final AtomicReference<Block> tailBlock;
+
+    /**
+     * Guards {@code waiters}.
+     */
+    private final ReentrantLock waiterLock = new ReentrantLock();
+
+    /**
+     * The blocked consumers in the order of their arrival.
+     */
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    /**
+     * The number of blocked consumers, read by producers without locking.
+     */
+    private final AtomicInteger waiterCount = new AtomicInteger();
+
+    /**
+     * The slots of the drained blocks kept for reuse. An empty cell is
+     * {@code null}.
+     */
+    private final AtomicReferenceArray<Slots> recycledSlots =
+            new AtomicReferenceArray<>(MAXIMUM_RECYCLED_SLOTS);
+
+    public ConcurrentLinkedBlockQueue(int blockCapacity) {
+        this.blockCapacity = Math.max(blockCapacity, MINIMUM_BLOCK_CAPACITY);
+        Block block = new Block(new Slots(this.blockCapacity), null);
+        this.headBlock = new AtomicReference<>(block);
+        this.tailBlock = new AtomicReference<>(block);
+    }
+
+    public ConcurrentLinkedBlockQueue() {
+        this(DEFAULT_BLOCK_CAPACITY);
+    }
+
+    /**
+     * Inserts {@code element} at the tail of this queue. Never blocks.
+     *
+     * @param element the element to add.
+     * @return {@code true}.
+     */
+    @Override
+    public boolean offer(E element) {
+        checkElement(element);
+        enqueue(element, null);
+        signalWaiter();
+        return true;
+    }
+
+    @Override
+    public void put(E element) {
+        offer(element);
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) {
+        return offer(element);
+    }
+
+    @Override
+    public E poll() {
+        return asElement(dequeue());
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        Object element = awaitElement(false, 0L);
+        return asElement(element);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        return asElement(awaitElement(true, nanos));
+    }
+
+    /**
+     * Returns the first element of this queue without removing it, or
+     * {@code null} if this queue is empty.
+     *
+     * @return the first element or {@code null}.
+     */
+    @Override
+    public E peek() {
+        for (Block block = headBlock.get();
+                block != null;
+                block = block.nextBlock.get()) {
+            int end = Math.min(block.enqueueIndex.get(), blockCapacity);
+
+            for (int i = 0; i < end; i++) {
+                Object element = block.slots.get(i);
+
+                if (element != null && element != TAKEN) {
+                    if (block.isRecycled()) {
+                        break;
+                    }
+
+                    return asElement(unwrap(element));
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the number of elements in this queue. Traverses the queue.
+     *
+     * @return the number of elements.
+     */
+    @Override
+    public int size() {
+        int size = 0;
+
+        for (Block block = headBlock.get();
+                block != null;
+                block = block.nextBlock.get()) {
+            int end = Math.min(block.enqueueIndex.get(), blockCapacity);
+
+            for (int i = 0; i < end; i++) {
+                Object element = block.slots.get(i);
+
+                if (element != null && element != TAKEN) {
+                    if (block.isRecycled()) {
+                        break;
+                    }
+
+                    size++;
+                }
+            }
+        }
+
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        Objects.requireNonNull(collection, "The input collection is null.");
+
+        if (collection == this) {
+            throw new IllegalArgumentException(
+                    "Cannot drain a queue to itself.");
+        }
+
+        int drained = 0;
+        E element;
+
+        while (drained < maxElements && (element = poll()) != null) {
+            collection.add(element);
+            drained++;
+        }
+
+        return drained;
+    }
+
+    /**
+     * Hands {@code element} to a consumer blocked on this queue while it is
+     * empty. Returns {@code false} without enqueuing the element if there is
+     * no such consumer.
+     *
+     * @param element the element to transfer.
+     * @return {@code true} if the element was handed over.
+     */
+    @Override
+    public boolean tryTransfer(E element) {
+        checkElement(element);
+
+        if (waiterCount.get() == 0) {
+            return false;
+        }
+
+        waiterLock.lock();
+
+        try {
+            // Handing the element over is only FIFO-safe on an empty queue:
+            if (waiters.isEmpty() || peek() != null) {
+                return false;
+            }
+
+            Waiter waiter = waiters.pollFirst();
+            waiterCount.decrementAndGet();
+            waiter.element = element;
+            waiter.signalled = true;
+            LockSupport.unpark(waiter.consumer);
+            return true;
+        } finally {
+            waiterLock.unlock();
+        }
+    }
+
+    /**
+     * Enqueues {@code element} and waits until a consumer takes it.
+     *
+     * @param element the element to transfer.
+     * @throws InterruptedException if interrupted while waiting, in which
+     *                              case the element is withdrawn.
+     */
+    @Override
+    public void transfer(E element) throws InterruptedException {
+        if (!tryTransfer(element) && !awaitTransfer(element, false, 0L)) {
+            Thread.interrupted();
+            throw new InterruptedException();
+        }
+    }
+
+    @Override
+    public boolean tryTransfer(E element, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (tryTransfer(element)) {
+            return true;
+        }
+
+        long nanos = unit.toNanos(timeout);
+
+        if (awaitTransfer(element, true, nanos)) {
+            return true;
+        }
+
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean hasWaitingConsumer() {
+        return waiterCount.get() > 0;
+    }
+
+    @Override
+    public int getWaitingConsumerCount() {
+        return waiterCount.get();
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements of this queue.
+     *
+     * @return an iterator.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new BlockIterator();
+    }
+
+    /**
+     * Appends {@code element}, which may be a {@code TransferNode}, and
+     * returns the block holding it. Stores the index of its slot in
+     * {@code slotHolder[0]} unless {@code slotHolder} is {@code null}.
+     */
+    private Block enqueue(Object element, int[] slotHolder) {
+        while (true) {
+            Block block = tailBlock.get();
+            int index = block.enqueueIndex.getAndIncrement();
+
+            if (index >= blockCapacity) {
+                // The tail block is full: link a new one or help another
+                // producer finish linking its block.
+                if (block != tailBlock.get()) {
+                    continue;
+                }
+
+                Block nextBlock = block.nextBlock.get();
+
+                if (nextBlock == null) {
+                    Block newBlock = new Block(allocateSlots(), element);
+
+                    if (block.nextBlock.compareAndSet(null, newBlock)) {
+                        tailBlock.compareAndSet(block, newBlock);
+
+                        if (slotHolder != null) {
+                            slotHolder[0] = 0;
+                        }
+
+                        return newBlock;
+                    }
+
+                    // The block was never published; reuse its slots:
+                    newBlock.slots.lazySet(0, null);
+                    recycleSlots(newBlock.slots);
+                } else {
+                    tailBlock.compareAndSet(block, nextBlock);
+                }
+
+                continue;
+            }
+
+            // The slot is lost if a consumer gave up on it first:
+            boolean filled = block.slots.compareAndSet(index, null, element);
+            finishSlotOperation(block);
+
+            if (filled) {
+                if (slotHolder != null) {
+                    slotHolder[0] = index;
+                }
+
+                return block;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the first element, or returns {@code null} if the
+     * queue is empty. Unwraps transferred elements and wakes up their
+     * producers.
+     */
+    private Object dequeue() {
+        while (true) {
+            Block block = headBlock.get();
+
+            if (block.dequeueIndex.get() >= block.enqueueIndex.get()
+                    && block.nextBlock.get() == null) {
+                return null;
+            }
+
+            int index = block.dequeueIndex.getAndIncrement();
+
+            if (index >= blockCapacity) {
+                // The head block is drained; move on. A slow thread may
+                // still be claiming slots in it, so only its slots are
+                // recycled, once their last operation is finished.
+                Block nextBlock = block.nextBlock.get();
+
+                if (nextBlock == null) {
+                    return null;
+                }
+
+                headBlock.compareAndSet(block, nextBlock);
+                continue;
+            }
+
+            // If the producer of the slot has not arrived yet, the swap
+            // makes it retry with another slot:
+            Object element = block.slots.getAndSet(index, TAKEN);
+            finishSlotOperation(block);
+
+            if (element != null && element != TAKEN) {
+                return take(element);
+            }
+        }
+    }
+
+    /**
+     * Counts a finished operation on a slot of {@code block}. The last one
+     * releases the slots: the epoch is advanced before the pin is checked,
+     * and an iterator pins before it checks the epoch, so at least one of
+     * the two sees the other.
+     */
+    private void finishSlotOperation(Block block) {
+        if (block.finishedSlotOperations.incrementAndGet()
+                == 2 * blockCapacity) {
+            Slots slots = block.slots;
+            slots.epoch = block.epoch + 1;
+
+            if (!block.pinned) {
+                recycleSlots(slots);
+            }
+        }
+    }
+
+    /**
+     * Returns recycled slots, all {@code null}, or new ones if there are
+     * none.
+     */
+    private Slots allocateSlots() {
+        for (int i = 0; i < MAXIMUM_RECYCLED_SLOTS; i++) {
+            Slots slots = recycledSlots.get(i);
+
+            if (slots != null && recycledSlots.compareAndSet(i, slots, null)) {
+                for (int j = 0; j < blockCapacity; j++) {
+                    slots.lazySet(j, null);
+                }
+
+                return slots;
+            }
+        }
+
+        return new Slots(blockCapacity);
+    }
+
+    /**
+     * Keeps {@code slots} for reuse unless the recycle list is full.
+     */
+    private void recycleSlots(Slots slots) {
+        for (int i = 0; i < MAXIMUM_RECYCLED_SLOTS; i++) {
+            if (recycledSlots.get(i) == null
+                    && recycledSlots.compareAndSet(i, null, slots)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the element wrapped by {@code element}, if any, notifying a
+     * waiting transfer.
+     */
+    private static Object take(Object element) {
+        if (element instanceof TransferNode) {
+            TransferNode node = (TransferNode) element;
+            node.taken = true;
+            LockSupport.unpark(node.producer);
+            return node.element;
+        }
+
+        return element;
+    }
+
+    private static Object unwrap(Object element) {
+        return element instanceof TransferNode ?
+               ((TransferNode) element).element :
+               element;
+    }
+
+    /**
+     * Wakes up the longest waiting consumer, if any.
+     */
+    private void signalWaiter() {
+        if (waiterCount.get() == 0) {
+            return;
+        }
+
+        waiterLock.lock();
+
+        try {
+            Waiter waiter = waiters.pollFirst();
+
+            if (waiter != null) {
+                waiterCount.decrementAndGet();
+                waiter.signalled = true;
+                LockSupport.unpark(waiter.consumer);
+            }
+        } finally {
+            waiterLock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up another consumer if this one is leaving while the queue is
+     * not empty, so that a signal consumed by a leaving consumer is not lost.
+     */
+    private void passSignal() {
+        if (waiterCount.get() > 0 && peek() != null) {
+            signalWaiter();
+        }
+    }
+
+    /**
+     * Waits for an element, at most {@code nanos} nanoseconds if
+     * {@code timed}.
+     *
+     * @return the element, or {@code null} on timeout.
+     */
+    private Object awaitElement(boolean timed, long nanos)
+            throws InterruptedException {
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+
+        while (true) {
+            Object element = dequeue();
+
+            if (element != null) {
+                return element;
+            }
+
+            if (Thread.interrupted()) {
+                passSignal();
+                throw new InterruptedException();
+            }
+
+            if (timed && nanos <= 0L) {
+                passSignal();
+                return null;
+            }
+
+            Waiter waiter = new Waiter(Thread.currentThread());
+            waiterLock.lock();
+
+            try {
+                // Register first, then check again: a producer either sees
+                // the registration or its element is seen here.
+                waiters.addLast(waiter);
+                waiterCount.incrementAndGet();
+                element = dequeue();
+
+                if (element != null) {
+                    waiters.remove(waiter);
+                    waiterCount.decrementAndGet();
+                    return element;
+                }
+            } finally {
+                waiterLock.unlock();
+            }
+
+            Thread thread = Thread.currentThread();
+
+            while (!waiter.signalled && !thread.isInterrupted()) {
+                if (timed) {
+                    nanos = deadline - System.nanoTime();
+
+                    if (nanos <= 0L) {
+                        break;
+                    }
+
+                    LockSupport.parkNanos(this, nanos);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+
+            if (!waiter.signalled) {
+                waiterLock.lock();
+
+                try {
+                    if (!waiter.signalled) {
+                        waiters.remove(waiter);
+                        waiterCount.decrementAndGet();
+                    }
+                } finally {
+                    waiterLock.unlock();
+                }
+            }
+
+            if (waiter.element != null) {
+                return waiter.element;
+            }
+
+            if (timed) {
+                nanos = deadline - System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Enqueues {@code element} wrapped in a transfer node and waits until a
+     * consumer takes it, at most {@code nanos} nanoseconds if {@code timed}.
+     * On timeout or interruption the element is withdrawn, unless a consumer
+     * has taken it in the meantime; the interrupt status is kept.
+     *
+     * @return {@code true} if a consumer took the element.
+     */
+    private boolean awaitTransfer(E element, boolean timed, long nanos) {
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        TransferNode node = new TransferNode(element, Thread.currentThread());
+        int[] slotHolder = new int[1];
+        Block block = enqueue(node, slotHolder);
+        signalWaiter();
+
+        while (!node.taken && !Thread.currentThread().isInterrupted()) {
+            if (timed) {
+                nanos = deadline - System.nanoTime();
+
+                if (nanos <= 0L) {
+                    break;
+                }
+
+                LockSupport.parkNanos(this, nanos);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+
+        if (node.taken) {
+            return true;
+        }
+
+        // Withdraw the element; failing that, a consumer has swapped it out:
+        return !block.slots.compareAndSet(slotHolder[0], node, TAKEN);
+    }
+
+    private static void checkElement(Object element) {
+        Objects.requireNonNull(element, "The input element is null.");
+    }
+
+    /**
+     * Casts an element taken from the slots to the element type. All the
+     * stored elements are of type {@code E} once unwrapped.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> E asElement(Object element) {
+        return (E) element;
+    }
+
+    /**
+     * This inner class implements a weakly consistent iterator. Its
+     * {@code remove()} retracts the last returned element unless a consumer
+     * has taken it already.
+     */
+    private final class BlockIterator implements Iterator<E> {
+
+        private Block block = headBlock.get();
+        private int index = -1;
+        private Object nextElement;
+        private Block lastReturnedBlock;
+        private int lastReturnedIndex;
+        private Object lastReturnedElement;
+
+        BlockIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextElement != null;
+        }
+
+        @Override
+        public E next() {
+            if (nextElement == null) {
+                throw new NoSuchElementException();
+            }
+
+            lastReturnedBlock = block;
+            lastReturnedIndex = index;
+            lastReturnedElement = nextElement;
+            advance();
+            return asElement(unwrap(lastReturnedElement));
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturnedElement == null) {
+                throw new IllegalStateException();
+            }
+
+            // Pin the slots first; once recycled, they may hold the same
+            // element again at the same index:
+            lastReturnedBlock.pinned = true;
+
+            if (!lastReturnedBlock.isRecycled()
+                    && lastReturnedBlock.slots.compareAndSet(
+                            lastReturnedIndex,
+                            lastReturnedElement,
+                            TAKEN)) {
+                // Releases the producer of a transferred element.
+                take(lastReturnedElement);
+            }
+
+            lastReturnedElement = null;
+        }
+
+        private void advance() {
+            nextElement = null;
+
+            while (block != null) {
+                int end = Math.min(block.enqueueIndex.get(), blockCapacity);
+
+                while (++index < end) {
+                    Object element = block.slots.get(index);
+
+                    if (element != null && element != TAKEN) {
+                        if (block.isRecycled()) {
+                            break;
+                        }
+
+                        nextElement = element;
+                        return;
+                    }
+                }
+
+                block = block.nextBlock.get();
+                index = -1;
+            }
+        }
+    }
+}
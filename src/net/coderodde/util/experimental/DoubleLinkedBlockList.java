@@ -0,0 +1,1027 @@
+package net.coderodde.util.experimental;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class implements a {@code double} specialization of 
+ * {@link LinkedBlockList}. The elements are stored unboxed in the same chain
+ * of ring buffer blocks, so that reading and writing them allocates nothing.
+ * 
+ * @author Rodion "rodde" Efremov
+ */
+public final class DoubleLinkedBlockList {
+
+    private static final int DEFAULT_BLOCK_CAPACITY = 64;
+    private static final int MINIMUM_BLOCK_CAPACITY = 4;
+
+    /**
+     * This static inner class implements the actual blocks storing the 
+     * elements.
+     */
+    private static final class Block {
+
+        /**
+         * The length of {@code array}.
+         */
+        final int capacity;
+
+        /**
+         * The mask used for modulo computation.
+         */
+        final int indexMask;
+
+        /**
+         * The number of elements in this block.
+         */
+        int size;
+
+        /**
+         * The index of the very first element in this block.
+         */
+        int headIndex;
+
+        /**
+         * The array holding all the elements belonging to this block.
+         */
+        final double[] array;
+
+        /**
+         * The previous block.
+         */
+        Block previousBlock;
+
+        /**
+         * The next block.
+         */
+        Block nextBlock;
+
+        Block(int capacity) {
+            this.capacity = capacity;
+            this.indexMask = capacity - 1;
+            this.array = new double[capacity];
+        }
+
+        double get(int logicalIndex) {
+            return array[(headIndex + logicalIndex) & indexMask];
+        }
+
+        void set(int logicalIndex, double element) {
+            array[(headIndex + logicalIndex) & indexMask] = element;
+        }
+
+        /**
+         * Moves {@code count} elements starting at the logical index 
+         * {@code sourceIndex} so that they start at the logical index 
+         * {@code targetIndex}, which may be negative, with at most three
+         * {@code System.arraycopy} calls.
+         * 
+         * @param sourceIndex the logical index of the first element to move.
+         * @param targetIndex the new logical index of that element.
+         * @param count       the number of elements to move.
+         */
+        void shift(int sourceIndex, int targetIndex, int count) {
+            if (targetIndex < sourceIndex) {
+                // Move the runs front to back:
+                while (count > 0) {
+                    int source = (headIndex + sourceIndex) & indexMask;
+                    int target = (headIndex + targetIndex) & indexMask;
+                    int run = Math.min(count, 
+                                       capacity - Math.max(source, target));
+                    System.arraycopy(array, source, array, target, run);
+                    sourceIndex += run;
+                    targetIndex += run;
+                    count -= run;
+                }
+            } else {
+                // Move the runs back to front:
+                while (count > 0) {
+                    int source = 
+                            (headIndex + sourceIndex + count - 1) & indexMask;
+                    int target = 
+                            (headIndex + targetIndex + count - 1) & indexMask;
+                    int run = Math.min(count, Math.min(source, target) + 1);
+                    System.arraycopy(array, 
+                                     source - run + 1, 
+                                     array, 
+                                     target - run + 1, 
+                                     run);
+                    count -= run;
+                }
+            }
+        }
+
+        /**
+         * Copies {@code count} elements starting at the logical index 
+         * {@code sourceIndex} to {@code target} with at most two 
+         * {@code System.arraycopy} calls.
+         * 
+         * @param sourceIndex the logical index of the first element to copy.
+         * @param target      the array to copy to.
+         * @param targetIndex the index of the first copy in {@code target}.
+         * @param count       the number of elements to copy.
+         */
+        void copyTo(int sourceIndex, 
+                    double[] target, 
+                    int targetIndex, 
+                    int count) {
+            int source = (headIndex + sourceIndex) & indexMask;
+            int firstRunLength = Math.min(count, capacity - source);
+            System.arraycopy(array, 
+                             source, 
+                             target, 
+                             targetIndex, 
+                             firstRunLength);
+            System.arraycopy(array, 
+                             0, 
+                             target, 
+                             targetIndex + firstRunLength, 
+                             count - firstRunLength);
+        }
+    }
+
+    /**
+     * The number of elements in this list.
+     */
+    private int size;
+
+    /**
+     * The number of blocks contained by this list.
+     */
+    private int blocks;
+
+    /**
+     * The first block in the chain.
+     */
+    private Block headBlock;
+
+    /**
+     * The last block in the chain.
+     */
+    private Block tailBlock;
+
+    /**
+     * The block capacity.
+     */
+    private final int blockCapacity;
+
+    /**
+     * The mask used for index computation.
+     */
+    private final int indexMask;
+
+    /**
+     * The most recently accessed block.
+     */
+    private Block fingerBlock;
+
+    /**
+     * The global index of the first element in {@code fingerBlock}.
+     */
+    private int fingerStartIndex;
+
+    /**
+     * The number of structural modifications, used by the iterators to detect
+     * concurrent modification.
+     */
+    private int modCount;
+
+    public DoubleLinkedBlockList(int blockCapacity) {
+        blockCapacity = Math.max(blockCapacity, MINIMUM_BLOCK_CAPACITY);
+        blockCapacity = ceilToPowerOfTwo(blockCapacity);
+        this.blockCapacity = blockCapacity;
+        this.indexMask = blockCapacity - 1;
+    }
+
+    public DoubleLinkedBlockList() {
+        this(DEFAULT_BLOCK_CAPACITY);
+    }
+
+    /**
+     * Appends {@code element} to the end of this list.
+     * 
+     * @param element the element to append.
+     */
+    public void add(double element) {
+        addLast(element);
+    }
+
+    public void add(int index, double element) {
+        checkAddIndex(index);
+
+        if (index == 0) {
+            addFirst(element);
+            return;
+        }
+
+        if (index == size) {
+            addLast(element);
+            return;
+        }
+
+        Block block = locateBlock(index);
+        index -= fingerStartIndex;
+
+        if (block.size == block.capacity) {
+            // Create a new block and move to it as little elements as possible:
+            int elementsOnLeft = index;
+            int elementsOnRight = block.size - index;
+            Block newBlock = new Block(blockCapacity);
+
+            if (elementsOnLeft < elementsOnRight) {
+                // Add newBlock before block and move to it the prefix of the
+                // current block and append the new element:
+                block.copyTo(0, newBlock.array, 0, elementsOnLeft);
+
+                newBlock.array[elementsOnLeft] = element;
+                newBlock.size = elementsOnLeft + 1;
+                block.size -= elementsOnLeft;
+                block.headIndex = 
+                        (block.headIndex + elementsOnLeft) & indexMask;
+                linkBlockBefore(block, newBlock);
+                fingerBlock = newBlock;
+            } else {
+                // Add newBlock after block and move to it the new element
+                // followed by the suffix of the current block:
+                newBlock.array[0] = element;
+                block.copyTo(index, newBlock.array, 1, elementsOnRight);
+
+                block.size -= elementsOnRight;
+                newBlock.size = elementsOnRight + 1;
+                linkBlockAfter(block, newBlock);
+            }
+        } else {
+            // The current block is not full so insert into it:
+            int elementsOnLeft = index;
+            int elementsOnRight = block.size - index;
+
+            if (elementsOnLeft < elementsOnRight) {
+                // Shift the leftmost elements one position to the left:
+                block.shift(0, -1, elementsOnLeft);
+
+                block.headIndex = (block.headIndex - 1) & indexMask;
+            } else {
+                // Shift the rightmost elements one position to the right:
+                block.shift(index, index + 1, elementsOnRight);
+            }
+
+            block.set(index, element);
+            block.size++;
+        }
+
+        size++;
+        modCount++;
+    }
+
+    public double get(int index) {
+        checkAccessIndex(index);
+        Block block = locateBlock(index);
+        return block.get(index - fingerStartIndex);
+    }
+
+    public double set(int index, double element) {
+        checkAccessIndex(index);
+        Block block = locateBlock(index);
+        double oldElement = block.get(index - fingerStartIndex);
+        block.set(index - fingerStartIndex, element);
+        return oldElement;
+    }
+
+    /**
+     * Removes the element at position {@code index}.
+     * 
+     * @param index the index of the element to remove.
+     * @return the removed element.
+     */
+    public double remove(int index) {
+        checkAccessIndex(index);
+        Block block = locateBlock(index);
+        index -= fingerStartIndex;
+        double element = block.get(index);
+
+        if (block.size == 1) {
+            unlinkBlock(block);
+        } else {
+            int elementsOnLeft = index;
+            int elementsOnRight = block.size - index - 1;
+
+            if (elementsOnLeft < elementsOnRight) {
+                // Shift the leftmost elements one position to the right:
+                block.shift(0, 1, elementsOnLeft);
+
+                block.headIndex = (block.headIndex + 1) & indexMask;
+            } else {
+                // Shift the rightmost elements one position to the left:
+                block.shift(index + 1, index, elementsOnRight);
+            }
+
+            block.size--;
+        }
+
+        size--;
+        modCount++;
+        return element;
+    }
+
+    /**
+     * Inserts {@code element} at the beginning of this list in constant time.
+     * 
+     * @param element the element to insert.
+     */
+    public void addFirst(double element) {
+        if (size == 0 || headBlock.size == headBlock.capacity) {
+            // Fill the new block from its end so that the subsequent 
+            // prepends need no shifting:
+            Block newBlock = new Block(blockCapacity);
+            newBlock.headIndex = indexMask;
+            newBlock.array[indexMask] = element;
+            newBlock.size = 1;
+
+            if (size == 0) {
+                linkOnlyBlock(newBlock);
+            } else {
+                linkBlockBefore(headBlock, newBlock);
+            }
+        } else {
+            headBlock.headIndex = (headBlock.headIndex - 1) & indexMask;
+            headBlock.array[headBlock.headIndex] = element;
+            headBlock.size++;
+        }
+
+        size++;
+        modCount++;
+        fingerBlock = headBlock;
+        fingerStartIndex = 0;
+    }
+
+    /**
+     * Appends {@code element} to the end of this list in constant time.
+     * 
+     * @param element the element to append.
+     */
+    public void addLast(double element) {
+        if (size == 0 || tailBlock.size == tailBlock.capacity) {
+            Block newBlock = new Block(blockCapacity);
+            newBlock.array[0] = element;
+            newBlock.size = 1;
+
+            if (size == 0) {
+                linkOnlyBlock(newBlock);
+            } else {
+                linkBlockAfter(tailBlock, newBlock);
+            }
+        } else {
+            tailBlock.set(tailBlock.size, element);
+            tailBlock.size++;
+        }
+
+        size++;
+        modCount++;
+        fingerBlock = tailBlock;
+        fingerStartIndex = size - tailBlock.size;
+    }
+
+    /**
+     * Removes and returns the first element of this list in constant time.
+     * 
+     * @return the removed element.
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public double removeFirst() {
+        checkNotEmpty();
+        Block block = headBlock;
+        double element = block.get(0);
+
+        if (block.size == 1) {
+            unlinkBlock(block);
+        } else {
+            block.headIndex = (block.headIndex + 1) & indexMask;
+            block.size--;
+        }
+
+        size--;
+        modCount++;
+        fingerBlock = headBlock;
+        fingerStartIndex = 0;
+        return element;
+    }
+
+    /**
+     * Removes and returns the last element of this list in constant time.
+     * 
+     * @return the removed element.
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public double removeLast() {
+        checkNotEmpty();
+        Block block = tailBlock;
+        double element = block.get(block.size - 1);
+
+        if (block.size == 1) {
+            unlinkBlock(block);
+        } else {
+            block.size--;
+        }
+
+        size--;
+        modCount++;
+        fingerBlock = tailBlock;
+        fingerStartIndex = size == 0 ? 0 : size - tailBlock.size;
+        return element;
+    }
+
+    public double getFirst() {
+        checkNotEmpty();
+        return headBlock.get(0);
+    }
+
+    public double getLast() {
+        checkNotEmpty();
+        return tailBlock.get(tailBlock.size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        headBlock = null;
+        tailBlock = null;
+        fingerBlock = null;
+        size = 0;
+        blocks = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns the number of blocks in this list.
+     * 
+     * @return the number of blocks.
+     */
+    public int getNumberOfBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code element}, or 
+     * {@code -1} if there is none. The block arrays are scanned directly.
+     * The elements are compared as by {@link Double#equals(Object)}, so that
+     * {@code NaN} is found and {@code -0.0} does not match {@code 0.0}.
+     * 
+     * @param element the element to search for.
+     * @return the index of {@code element} or {@code -1}.
+     */
+    public int indexOf(double element) {
+        int startIndex = 0;
+
+        for (Block block = headBlock; block != null; block = block.nextBlock) {
+            for (int i = 0; i < block.size; i++) {
+                if (same(block.get(i), element)) {
+                    return startIndex + i;
+                }
+            }
+
+            startIndex += block.size;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of {@code element}, or 
+     * {@code -1} if there is none.
+     * The elements are compared as by {@link Double#equals(Object)}, so that
+     * {@code NaN} is found and {@code -0.0} does not match {@code 0.0}.
+     * 
+     * @param element the element to search for.
+     * @return the index of {@code element} or {@code -1}.
+     */
+    public int lastIndexOf(double element) {
+        int endIndex = size;
+
+        for (Block block = tailBlock; 
+                block != null; 
+                block = block.previousBlock) {
+            endIndex -= block.size;
+
+            for (int i = block.size - 1; i >= 0; i--) {
+                if (same(block.get(i), element)) {
+                    return endIndex + i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    public boolean contains(double element) {
+        return indexOf(element) >= 0;
+    }
+
+    public double[] toArray() {
+        double[] array = new double[size];
+        int targetIndex = 0;
+
+        for (Block block = headBlock; block != null; block = block.nextBlock) {
+            block.copyTo(0, array, targetIndex, block.size);
+            targetIndex += block.size;
+        }
+
+        return array;
+    }
+
+    /**
+     * Writes this list to {@code channel} in the format of 
+     * {@link BlockListFormat}. The elements are copied out of the blocks in 
+     * bulk, at most two copies per block, through a fixed-size buffer.
+     * 
+     * @param channel the channel to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        BlockListFormat.writeHeader(channel, 
+                                    BlockListFormat.DOUBLE_ELEMENTS, 
+                                    blockCapacity, 
+                                    size);
+        ByteBuffer buffer = 
+                BlockListFormat.newBuffer(blockCapacity * Double.BYTES);
+        DoubleBuffer view = buffer.asDoubleBuffer();
+
+        for (Block block = headBlock; block != null; block = block.nextBlock) {
+            int firstChunkLength = Math.min(block.size, 
+                                            block.capacity - block.headIndex);
+
+            if (view.remaining() < block.size) {
+                flush(channel, buffer, view);
+            }
+
+            view.put(block.array, block.headIndex, firstChunkLength);
+            view.put(block.array, 0, block.size - firstChunkLength);
+        }
+
+        flush(channel, buffer, view);
+    }
+
+    /**
+     * Reads a list written by {@link #writeTo(WritableByteChannel)}. All the
+     * blocks of the returned list except the last one are full.
+     * 
+     * @param channel the channel to read from.
+     * @return the list read.
+     * @throws IOException if reading fails or the stream is malformed.
+     */
+    public static DoubleLinkedBlockList readFrom(ReadableByteChannel channel) 
+            throws IOException {
+        BlockListFormat.Header header = 
+                BlockListFormat.readHeader(channel, 
+                                           BlockListFormat.DOUBLE_ELEMENTS);
+        DoubleLinkedBlockList list = 
+                new DoubleLinkedBlockList(header.blockCapacity);
+        ByteBuffer buffer = 
+                BlockListFormat.newBuffer(list.blockCapacity * Double.BYTES);
+        long remainingBytes = (long) header.size * Double.BYTES;
+
+        while (remainingBytes > 0L) {
+            buffer.clear();
+
+            if (buffer.capacity() > remainingBytes) {
+                buffer.limit((int) remainingBytes);
+            }
+
+            BlockListFormat.readFully(channel, buffer);
+            remainingBytes -= buffer.limit();
+            buffer.flip();
+            DoubleBuffer view = buffer.asDoubleBuffer();
+
+            while (view.hasRemaining()) {
+                Block block = list.tailBlock;
+
+                if (block == null || block.size == block.capacity) {
+                    Block newBlock = new Block(list.blockCapacity);
+
+                    if (block == null) {
+                        list.linkOnlyBlock(newBlock);
+                    } else {
+                        list.linkBlockAfter(block, newBlock);
+                    }
+
+                    block = newBlock;
+                }
+
+                int count = Math.min(view.remaining(), 
+                                     block.capacity - block.size);
+                view.get(block.array, block.size, count);
+                block.size += count;
+            }
+        }
+
+        list.size = header.size;
+        return list;
+    }
+
+    /**
+     * Returns a fail-fast iterator over the unboxed elements of this list.
+     * 
+     * @return an iterator.
+     */
+    public PrimitiveIterator.OfDouble iterator() {
+        return new BlockIterator();
+    }
+
+    /**
+     * Returns a spliterator over the elements of this list, splitting on 
+     * block boundaries.
+     * 
+     * @return a spliterator.
+     */
+    public Spliterator.OfDouble spliterator() {
+        return new BlockSpliterator(headBlock, 0, size, blocks);
+    }
+
+    public DoubleStream stream() {
+        return StreamSupport.doubleStream(spliterator(), false);
+    }
+
+    public DoubleStream parallelStream() {
+        return StreamSupport.doubleStream(spliterator(), true);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        PrimitiveIterator.OfDouble iterator = iterator();
+
+        while (iterator.hasNext()) {
+            sb.append(iterator.nextDouble());
+
+            if (iterator.hasNext()) {
+                sb.append(", ");
+            }
+        }
+
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Returns the block containing the element with the global index 
+     * {@code index} and makes it the finger.
+     * 
+     * @param index the global index of the element. Must be within range.
+     * @return the block containing the element.
+     */
+    private Block locateBlock(int index) {
+        Block block = fingerBlock;
+        int startIndex = fingerStartIndex;
+
+        if (block != null 
+                && index >= startIndex 
+                && index < startIndex + block.size) {
+            return block;
+        }
+
+        // Start from whichever of the head block, the tail block and the 
+        // finger is closest to the target element:
+        int distanceFromFinger = block == null ? 
+                                 Integer.MAX_VALUE : 
+                                 Math.abs(index - startIndex);
+
+        if (index < size / 2) {
+            if (index < distanceFromFinger) {
+                block = headBlock;
+                startIndex = 0;
+            }
+        } else if (size - index < distanceFromFinger) {
+            block = tailBlock;
+            startIndex = size - block.size;
+        }
+
+        if (index >= startIndex) {
+            while (index >= startIndex + block.size) {
+                startIndex += block.size;
+                block = block.nextBlock;
+            }
+        } else {
+            while (index < startIndex) {
+                block = block.previousBlock;
+                startIndex -= block.size;
+            }
+        }
+
+        fingerBlock = block;
+        fingerStartIndex = startIndex;
+        return block;
+    }
+
+    private void linkBlockBefore(Block block, Block newBlock) {
+        newBlock.nextBlock = block;
+        newBlock.previousBlock = block.previousBlock;
+        block.previousBlock = newBlock;
+
+        if (newBlock.previousBlock == null) {
+            headBlock = newBlock;
+        } else {
+            newBlock.previousBlock.nextBlock = newBlock;
+        }
+
+        blocks++;
+    }
+
+    private void linkBlockAfter(Block block, Block newBlock) {
+        newBlock.previousBlock = block;
+        newBlock.nextBlock = block.nextBlock;
+        block.nextBlock = newBlock;
+
+        if (newBlock.nextBlock == null) {
+            tailBlock = newBlock;
+        } else {
+            newBlock.nextBlock.previousBlock = newBlock;
+        }
+
+        blocks++;
+    }
+
+    private void linkOnlyBlock(Block block) {
+        headBlock = block;
+        tailBlock = block;
+        blocks = 1;
+    }
+
+    private void unlinkBlock(Block block) {
+        if (fingerBlock == block) {
+            // The next block will start where the unlinked one did:
+            fingerBlock = block.nextBlock;
+        }
+
+        if (block == headBlock) {
+            headBlock = headBlock.nextBlock;
+
+            if (headBlock != null) {
+                headBlock.previousBlock = null;                    
+            }
+        } else {
+            block.previousBlock.nextBlock = block.nextBlock;
+        }
+
+        if (block == tailBlock) {
+            tailBlock = tailBlock.previousBlock;
+
+            if (tailBlock != null) {
+                tailBlock.nextBlock = null;
+            }
+        } else {
+            block.nextBlock.previousBlock = block.previousBlock;
+        }
+
+        blocks--;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException("The list is empty.");
+        }
+    }
+
+    /**
+     * Compares {@code a} and {@code b} as {@link Double#equals(Object)} 
+     * does.
+     */
+    private static boolean same(double a, double b) {
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+
+    private void checkAccessIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index(" + index + ") < 0");
+        }
+
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") >= (" + size + ")");
+        }
+    }
+
+    private void checkAddIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index(" + index + ") < 0");
+        }
+
+        if (index > size) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") > (" + size + ")");
+        }
+    }
+
+    /**
+     * Writes the elements put into {@code view} so far and empties it.
+     */
+    private static void flush(WritableByteChannel channel, 
+                              ByteBuffer buffer, 
+                              DoubleBuffer view) throws IOException {
+        buffer.clear();
+        buffer.limit(view.position() * Double.BYTES);
+        BlockListFormat.writeFully(channel, buffer);
+        view.clear();
+    }
+
+    private static int ceilToPowerOfTwo(int number) {
+        int ret = 1;
+
+        while (ret < number) {
+            ret <<= 1;
+        }
+
+        return ret;
+    }
+
+    /**
+     * This inner class implements a fail-fast iterator walking the chain of 
+     * blocks.
+     */
+    private final class BlockIterator implements PrimitiveIterator.OfDouble {
+
+        private Block block = headBlock;
+        private int offset;
+        private int remaining = size;
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public double nextDouble() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+
+            if (offset == block.size) {
+                block = block.nextBlock;
+                offset = 0;
+            }
+
+            remaining--;
+            return block.get(offset++);
+        }
+    }
+
+    /**
+     * This inner class implements a fail-fast spliterator splitting on block
+     * boundaries. Each spliterator covers a range of elements ending at the 
+     * end of a block.
+     */
+    private final class BlockSpliterator implements Spliterator.OfDouble {
+
+        /**
+         * The block holding the next element.
+         */
+        private Block block;
+
+        /**
+         * The logical index of the next element within {@code block}.
+         */
+        private int offset;
+
+        /**
+         * The number of elements left to traverse.
+         */
+        private int remaining;
+
+        /**
+         * The number of blocks overlapping the remaining range.
+         */
+        private int blockCount;
+
+        private final int expectedModCount = modCount;
+
+        BlockSpliterator(Block block, 
+                         int offset, 
+                         int remaining, 
+                         int blockCount) {
+            this.block = block;
+            this.offset = offset;
+            this.remaining = remaining;
+            this.blockCount = blockCount;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            Objects.requireNonNull(action, "The input action is null.");
+
+            if (remaining == 0) {
+                return false;
+            }
+
+            skipExhaustedBlock();
+            double element = block.get(offset++);
+            remaining--;
+            action.accept(element);
+            checkForComodification();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            Objects.requireNonNull(action, "The input action is null.");
+
+            while (remaining > 0) {
+                skipExhaustedBlock();
+                int count = Math.min(remaining, block.size - offset);
+                double[] array = block.array;
+                int headIndex = block.headIndex + offset;
+                int mask = block.indexMask;
+
+                for (int i = 0; i < count; i++) {
+                    action.accept(array[(headIndex + i) & mask]);
+                }
+
+                offset += count;
+                remaining -= count;
+            }
+
+            checkForComodification();
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            checkForComodification();
+
+            if (remaining == 0) {
+                return null;
+            }
+
+            skipExhaustedBlock();
+
+            if (remaining <= block.size - offset) {
+                // The range is within a single block:
+                return null;
+            }
+
+            // Cut at the middle block:
+            int prefixBlockCount = blockCount / 2;
+            Block splitBlock = block;
+            int prefixSize = -offset;
+
+            for (int i = 0; i < prefixBlockCount; i++) {
+                prefixSize += splitBlock.size;
+                splitBlock = splitBlock.nextBlock;
+            }
+
+            Spliterator.OfDouble prefix = 
+                    new BlockSpliterator(block, 
+                                         offset, 
+                                         prefixSize, 
+                                         prefixBlockCount);
+            block = splitBlock;
+            offset = 0;
+            remaining -= prefixSize;
+            blockCount -= prefixBlockCount;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED 
+                 | Spliterator.SIZED 
+                 | Spliterator.SUBSIZED;
+        }
+
+        private void skipExhaustedBlock() {
+            if (offset == block.size) {
+                block = block.nextBlock;
+                offset = 0;
+                blockCount--;
+            }
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
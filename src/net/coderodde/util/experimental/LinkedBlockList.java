@@ -1,16 +1,125 @@
 package net.coderodde.util.experimental;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
 /**
  * This class implements an experimental linked list data structure that 
- * combines linked list with array-based list.
+ * combines linked list with array-based list. It implements both 
+ * {@link java.util.List} and {@link java.util.Deque}, and specializes the bulk
+ * and search operations for the block layout.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Aug 22, 2018)
  */
-public final class LinkedBlockList<T> {
+public final class LinkedBlockList<T> extends AbstractList<T> 
+                                     implements Deque<T>, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final int DEFAULT_BLOCK_CAPACITY = 64;
     private static final int MINIMUM_BLOCK_CAPACITY = 4;
+    private static final float DEFAULT_MINIMUM_FILL_FACTOR = 0.25f;
+    private static final float MAXIMUM_MINIMUM_FILL_FACTOR = 0.5f;
+
+    /**
+     * In adaptive mode, a new block gets a capacity of about the list size 
+     * shifted right by this many bits.
+     */
+    private static final int ADAPTIVE_GROWTH_SHIFT = 3;
+
+    /**
+     * The approximate number of bytes taken by a block object together with 
+     * the header of its array, assuming a 64-bit JVM with compressed 
+     * references.
+     */
+    private static final int BLOCK_OVERHEAD_BYTES = 96;
+
+    /**
+     * The approximate number of bytes taken by an array slot.
+     */
+    private static final int SLOT_BYTES = 4;
+
+    /**
+     * Setting this system property to {@code true} at startup turns on the 
+     * instrumentation of the positional operations.
+     */
+    private static final String INSTRUMENTATION_PROPERTY = 
+            "net.coderodde.util.experimental.LinkedBlockList.instrumented";
+
+    /**
+     * Whether the positional operations are instrumented. Since this is a 
+     * constant, the JIT compiler drops the instrumentation code altogether 
+     * when it is off.
+     */
+    private static final boolean INSTRUMENTED = 
+            Boolean.getBoolean(INSTRUMENTATION_PROPERTY);
+
+    /**
+     * The number of buckets of the instrumentation histograms; bucket 
+     * {@code i > 0} counts the values within {@code [2^(i - 1), 2^i)}.
+     */
+    private static final int HISTOGRAM_BUCKETS = Integer.SIZE + 1;
+
+    /**
+     * The number of positional operations sampled before each auto-tuning 
+     * decision.
+     */
+    private static final int TUNING_WINDOW = 1 << 12;
+
+    /**
+     * The cost of traversing a block, which is a dependent cache miss, in 
+     * units of the cost of shifting an element within a block.
+     */
+    private static final int BLOCK_TRAVERSAL_COST = 128;
+
+    /**
+     * The largest block capacity chosen by auto-tuning.
+     */
+    private static final int MAXIMUM_TUNED_BLOCK_CAPACITY = 1 << 12;
+
+    /**
+     * The number of already repacked blocks a repacking step may skip.
+     */
+    private static final int REPACK_SKIP_LIMIT = 16;
+
+    /**
+     * The number of blocks a sweeping step prunes the versions of.
+     */
+    private static final int SWEEP_BLOCK_LIMIT = 16;
+
+    /**
+     * Hands out the snapshot epochs. The epochs are shared by all the lists 
+     * so that they stay comparable when blocks move from one list to another.
+     */
+    private static final AtomicLong SNAPSHOT_EPOCHS = new AtomicLong();
 
     /**
      * This static inner class implements the actual blocks storing the 
@@ -55,12 +164,72 @@ public final class LinkedBlockList<T> {
          */
         Block<T> nextBlock;
 
+        /**
+         * The parent of this block in the block index tree.
+         */
+        Block<T> parentBlock;
+
+        /**
+         * The left child of this block in the block index tree.
+         */
+        Block<T> leftBlock;
+
+        /**
+         * The right child of this block in the block index tree.
+         */
+        Block<T> rightBlock;
+
+        /**
+         * The heap priority of this block in the block index tree.
+         */
+        int priority;
+
+        /**
+         * The total number of elements in the index subtree rooted at this 
+         * block.
+         */
+        int subtreeSize;
+
+        /**
+         * Indicates whether {@code array} is shared with a snapshot and must 
+         * be copied before it is written.
+         */
+        boolean sharedArray;
+
+        /**
+         * The snapshot epoch at which the current state of this block began. 
+         * The snapshots of later epochs read the current state, and those of
+         * this epoch or earlier read {@code previousVersion}.
+         */
+        volatile long epoch;
+
+        /**
+         * The frozen copy of the state of this block before {@code epoch}, 
+         * linked to the yet older copies, or {@code null} if no reachable 
+         * snapshot reads them.
+         */
+        volatile Block<T> previousVersion;
+
         Block(int capacity) {
             this.capacity = capacity;
             this.indexMask = capacity - 1;
             this.array = (T[]) new Object[capacity];
         }
 
+        /**
+         * Constructs a copy of the contents of {@code block} sharing its array.
+         * The copy points to the next block of {@code block} but is not linked.
+         */
+        Block(Block<T> block) {
+            this.capacity = block.capacity;
+            this.indexMask = block.indexMask;
+            this.array = block.array;
+            this.size = block.size;
+            this.headIndex = block.headIndex;
+            this.nextBlock = block.nextBlock;
+            this.sharedArray = true;
+        }
+
         T get(int logicalIndex) {
             return array[(headIndex + logicalIndex) & indexMask];
         }
@@ -68,6 +237,187 @@ public final class LinkedBlockList<T> {
         void setNull(int logicalIndex) {
             array[(headIndex + logicalIndex) & indexMask] = null;
         }
+
+        /**
+         * Moves {@code count} elements starting at the logical index 
+         * {@code sourceIndex} so that they start at the logical index 
+         * {@code targetIndex}, which may be negative. The source and the 
+         * target ranges may overlap, but must fit together into the array. 
+         * Each run not crossing the end of the array in either range is moved
+         * with one {@code System.arraycopy} call, so that a move takes at 
+         * most three calls.
+         * 
+         * @param sourceIndex the logical index of the first element to move.
+         * @param targetIndex the new logical index of that element.
+         * @param count       the number of elements to move.
+         */
+        void shift(int sourceIndex, int targetIndex, int count) {
+            if (targetIndex < sourceIndex) {
+                // Move the runs front to back:
+                while (count > 0) {
+                    int source = (headIndex + sourceIndex) & indexMask;
+                    int target = (headIndex + targetIndex) & indexMask;
+                    int run = Math.min(count, 
+                                       capacity - Math.max(source, target));
+                    System.arraycopy(array, source, array, target, run);
+                    sourceIndex += run;
+                    targetIndex += run;
+                    count -= run;
+                }
+            } else {
+                // Move the runs back to front:
+                while (count > 0) {
+                    int source = 
+                            (headIndex + sourceIndex + count - 1) & indexMask;
+                    int target = 
+                            (headIndex + targetIndex + count - 1) & indexMask;
+                    int run = Math.min(count, Math.min(source, target) + 1);
+                    System.arraycopy(array, 
+                                     source - run + 1, 
+                                     array, 
+                                     target - run + 1, 
+                                     run);
+                    count -= run;
+                }
+            }
+        }
+
+        /**
+         * Clears {@code count} slots starting at the logical index 
+         * {@code logicalIndex} with at most two {@code Arrays.fill} calls.
+         * 
+         * @param logicalIndex the logical index of the first slot to clear.
+         * @param count        the number of slots to clear.
+         */
+        void setNull(int logicalIndex, int count) {
+            int from = (headIndex + logicalIndex) & indexMask;
+            int firstRunLength = Math.min(count, capacity - from);
+            Arrays.fill(array, from, from + firstRunLength, null);
+            Arrays.fill(array, 0, count - firstRunLength, null);
+        }
+
+        /**
+         * Copies {@code count} elements starting at the logical index 
+         * {@code sourceIndex} of this block to {@code targetBlock} starting 
+         * at its logical index {@code targetIndex}, which may be negative. 
+         * Takes at most three {@code System.arraycopy} calls.
+         * 
+         * @param sourceIndex the logical index of the first element to copy.
+         * @param targetBlock the block to copy to.
+         * @param targetIndex the logical index of the first copy.
+         * @param count       the number of elements to copy.
+         */
+        void copyTo(int sourceIndex, 
+                    Block<T> targetBlock, 
+                    int targetIndex, 
+                    int count) {
+            while (count > 0) {
+                int source = (headIndex + sourceIndex) & indexMask;
+                int target = 
+                        (targetBlock.headIndex + targetIndex) 
+                        & targetBlock.indexMask;
+                int run = Math.min(count, 
+                                   Math.min(capacity - source, 
+                                            targetBlock.capacity - target));
+                System.arraycopy(array, 
+                                 source, 
+                                 targetBlock.array, 
+                                 target, 
+                                 run);
+                sourceIndex += run;
+                targetIndex += run;
+                count -= run;
+            }
+        }
+    }
+
+    /**
+     * This static inner class implements a positional edit for 
+     * {@link #applyBatch(Iterable)}: an insertion, a removal or a replacement
+     * at an index. The index refers to the list as left by all the edits 
+     * before it in the batch.
+     * 
+     * @param <T> the element type.
+     */
+    public static final class Edit<T> {
+
+        /**
+         * The kinds of edits.
+         */
+        public enum Operation { INSERT, REMOVE, SET }
+
+        private final Operation operation;
+        private final int index;
+        private final T element;
+
+        private Edit(Operation operation, int index, T element) {
+            this.operation = operation;
+            this.index = index;
+            this.element = element;
+        }
+
+        /**
+         * Returns an edit inserting {@code element} at {@code index}.
+         * 
+         * @param <T>     the element type.
+         * @param index   the index of the inserted element.
+         * @param element the element to insert.
+         * @return the edit.
+         */
+        public static <T> Edit<T> insert(int index, T element) {
+            return new Edit<>(Operation.INSERT, index, element);
+        }
+
+        /**
+         * Returns an edit removing the element at {@code index}.
+         * 
+         * @param <T>   the element type.
+         * @param index the index of the element to remove.
+         * @return the edit.
+         */
+        public static <T> Edit<T> remove(int index) {
+            return new Edit<>(Operation.REMOVE, index, null);
+        }
+
+        /**
+         * Returns an edit replacing the element at {@code index} with 
+         * {@code element}.
+         * 
+         * @param <T>     the element type.
+         * @param index   the index of the element to replace.
+         * @param element the new element.
+         * @return the edit.
+         */
+        public static <T> Edit<T> set(int index, T element) {
+            return new Edit<>(Operation.SET, index, element);
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the inserted or the new element, or {@code null} for a 
+         * removal.
+         * 
+         * @return the element of this edit.
+         */
+        public T getElement() {
+            return element;
+        }
+
+        @Override
+        public String toString() {
+            if (operation == Operation.REMOVE) {
+                return operation + "(" + index + ")";
+            }
+
+            return operation + "(" + index + ", " + element + ")";
+        }
     }
 
     /**
@@ -80,6 +430,44 @@ public final class LinkedBlockList<T> {
      */
     private int blocks;
 
+    /**
+     * The total capacity of all the blocks.
+     */
+    private long totalCapacity;
+
+    /**
+     * The entry {@code i} holds the number of blocks containing exactly 
+     * {@code i} elements.
+     */
+    private int[] blockSizeCounts;
+
+    /**
+     * The size of the least filled block, or {@code Integer.MAX_VALUE} if 
+     * there are no blocks.
+     */
+    private int minimumBlockSize = Integer.MAX_VALUE;
+
+    /**
+     * The number of block splits since the last counter reset.
+     */
+    private long splits;
+
+    /**
+     * The number of block merges since the last counter reset.
+     */
+    private long merges;
+
+    /**
+     * The number of block lookups since the last counter reset.
+     */
+    private long lookups;
+
+    /**
+     * The number of blocks traversed by the lookups since the last counter 
+     * reset.
+     */
+    private long traversedBlocks;
+
     /**
      * The first block in the chain.
      */
@@ -91,270 +479,5456 @@ public final class LinkedBlockList<T> {
     private Block<T> tailBlock;
 
     /**
-     * The block capacity.
+     * The block capacity. In adaptive mode, the maximum block capacity.
      */
     private int blockCapacity;
+
     /**
-     * The mask used for index computation.
+     * Indicates whether the block capacity is tuned to the observed 
+     * operation mix.
      */
-    private int indexMask;
+    private boolean autoTuningEnabled;
 
-    public LinkedBlockList(int blockCapacity) {
-        blockCapacity = Math.max(blockCapacity, MINIMUM_BLOCK_CAPACITY);
-        blockCapacity = ceilToPowerOfTwo(blockCapacity);
-        this.blockCapacity = blockCapacity;
-        this.indexMask = blockCapacity - 1;
-    }
+    /**
+     * The number of positional operations in the current tuning window.
+     */
+    private int tuningOperations;
 
-    public LinkedBlockList() {
-        this(DEFAULT_BLOCK_CAPACITY);
-    }
+    /**
+     * The lookup counter at the start of the current tuning window.
+     */
+    private long tuningStartLookups;
 
-    public void add(int index, T element) {
-        checkAddIndex(index);
+    /**
+     * The traversed block counter at the start of the current tuning window.
+     */
+    private long tuningStartTraversedBlocks;
 
-        if (size == 0) {
-            headBlock = new Block<>(blockCapacity);
-            tailBlock = headBlock;
-            headBlock.array[0] = element;
-            headBlock.size = 1;
-            size = 1;
-            return;
-        }
+    /**
+     * The number of elements shifted by the positional insertions and 
+     * removals in the current tuning window.
+     */
+    private long tuningShiftedElements;
 
-        Block<T> block = headBlock;
+    /**
+     * The capacity of the blocks still to be repacked to the block capacity,
+     * or zero if no repacking is in progress.
+     */
+    private int repackCapacity;
 
-        while (index > block.size) {
-            index -= block.size;
-            block = block.nextBlock;
-        }
+    /**
+     * The block where the next repacking step starts, or {@code null} to 
+     * start from the head block.
+     */
+    private Block<T> repackBlock;
 
-        if (block.size == block.capacity) {
-            // Create a new block and move to it as little elements as possible:
-            int elementsOnLeft = index;
-            int elementsOnRight = block.size - index;
-            Block<T> newBlock = new Block<>(blockCapacity);
+    /**
+     * The number of passes over the chain still to be made by the sweeping 
+     * steps, which prune the block versions left behind by the dropped 
+     * snapshots. At most two: the one in progress and one more, since a 
+     * pass may miss a snapshot dropped after it started.
+     */
+    private int sweepPasses;
 
-            if (elementsOnLeft < elementsOnRight) {
-                // Add newBlock before block and move to it the prefix of the
-                // current block and append the new element:
-                for (int newBlockIndex = 0; 
-                         newBlockIndex < elementsOnLeft; 
-                         newBlockIndex++) {
-                    newBlock.array[newBlockIndex] = block.get(newBlockIndex);
-                    block.setNull(newBlockIndex);
-                }
+    /**
+     * The block where the next sweeping step starts, or {@code null} to 
+     * start from the head block.
+     */
+    private Block<T> sweepBlock;
 
-                newBlock.array[elementsOnLeft] = element;
-                newBlock.size = elementsOnLeft + 1;
-                newBlock.nextBlock = block;
-                newBlock.previousBlock = block.previousBlock;
-                block.previousBlock = newBlock;
-                block.size -= elementsOnLeft;
-                block.headIndex = 
-                        (block.headIndex + elementsOnLeft) & indexMask;
+    /**
+     * Indicates whether the capacity of the new blocks grows with the size of
+     * the list.
+     */
+    private boolean adaptiveBlockCapacityEnabled;
 
-                if (newBlock.previousBlock == null) {
-                    headBlock = newBlock;
-                } else {
-                    newBlock.previousBlock.nextBlock = newBlock;
-                }
-            } else {
-                block.size -= elementsOnRight;
-                newBlock.array[0] = element;
-                int targetIndex = 1;
+    /**
+     * Indicates whether a block created by a split gets half the capacity of
+     * the split block.
+     */
+    private boolean splitShrinkingEnabled;
 
-                for (int newBlockIndex = index; 
-                         newBlockIndex < elementsOnRight;
-                         newBlockIndex++) {
-                    newBlock.array[targetIndex] = block.get(newBlockIndex);
-                    block.setNull(newBlockIndex);
-                    targetIndex++;
-                }
+    /**
+     * The fraction of its capacity below which a block, shrunk by 
+     * {@link #remove(int)}, is merged with or refilled from a neighbour.
+     */
+    private float minimumFillFactor = DEFAULT_MINIMUM_FILL_FACTOR;
 
-                newBlock.size = elementsOnRight + 1;
-                newBlock.previousBlock = block;
-                newBlock.nextBlock = block.nextBlock;
-                block.nextBlock = newBlock;
+    /**
+     * Indicates whether the block index is maintained.
+     */
+    private boolean blockIndexEnabled;
 
-                if (newBlock.nextBlock == null) {
-                    tailBlock = newBlock;
-                } else {
-                    newBlock.nextBlock.previousBlock = newBlock;
-                }
-            }
-        } else {
-            // The current block is not full so insert into it:
-            int elementsOnLeft = index;
-            int elementsOnRight = block.size - index;
+    /**
+     * The root of the block index tree. The block index is a treap whose 
+     * in-order traversal gives the chain of blocks and whose nodes are 
+     * augmented with the number of elements in their subtrees, which allows
+     * locating the block of a given element in logarithmic time.
+     */
+    private Block<T> indexRoot;
 
-            if (elementsOnLeft < elementsOnRight) {
-                // Shift the leftmost elements one position to the left:
-                for (int elementIndex = 0; 
-                         elementIndex < elementsOnLeft; 
-                         elementIndex++) {
-                    int sourceIndex = 
-                            (block.headIndex + elementIndex) 
-                            & indexMask;
+    /**
+     * The state of the pseudorandom generator producing the block priorities.
+     */
+    private int prioritySeed = 0x2545f491;
 
-                    int targetIndex = 
-                            (block.headIndex + elementIndex - 1) 
-                            & indexMask;
+    /**
+     * The finger: the most recently accessed block. Lookups near the finger 
+     * walk from it instead of from either end of the chain.
+     */
+    private Block<T> fingerBlock;
 
-                    block.array[targetIndex] = block.array[sourceIndex];
-                }
+    /**
+     * The global index of the first element in {@code fingerBlock}.
+     */
+    private int fingerStartIndex;
 
-                block.array[(block.headIndex + index - 1) & indexMask] =
-                        element;
-                block.headIndex = (block.headIndex - 1) & indexMask;
-                block.size++;
-            } else {
-                // Shift the rightmost elements one position to the right:
-                for (int elementIndex = 0;
-                         elementIndex < elementsOnRight; 
-                         elementIndex++) {
-                    int sourceIndex = 
-                            (block.headIndex + block.size - elementIndex - 1) 
-                            & indexMask;
+    /**
+     * The maximum number of unlinked blocks kept for reuse.
+     */
+    private int blockPoolCapacity;
 
-                    int targetIndex = 
-                            (block.headIndex + block.size - elementIndex) 
-                            & indexMask;
+    /**
+     * The entry {@code i} holds the first of the blocks of capacity 
+     * {@code 2^i} kept for reuse. The pooled blocks are chained through their
+     * {@code nextBlock} fields.
+     */
+    private Block<T>[] pooledBlockLists;
 
-                    block.array[targetIndex] = block.array[sourceIndex];
-                }
+    /**
+     * The number of blocks kept for reuse.
+     */
+    private int pooledBlocks;
 
-                block.array[(block.headIndex + index) & indexMask] = element;
-                block.size++;
-            }
-        }
+    /**
+     * The number of block allocations served by the pool since the last 
+     * counter reset.
+     */
+    private long blockPoolHits;
 
-        size++;
-    }
+    /**
+     * The number of block allocations not served by the pool since the last
+     * counter reset.
+     */
+    private long blockPoolMisses;
 
-    public T get(int index) {
-        checkAccessIndex(index);
-        Block<T> block = headBlock;
+    /**
+     * The number of elements shifted by the instrumented insertions and 
+     * removals since the last counter reset.
+     */
+    private long shiftedElements;
 
-        while (index >= block.size) {
-            index -= block.size;
-            block = block.nextBlock;
-        }
+    /**
+     * The number of blocks unlinked since the last counter reset, counted 
+     * only if instrumented.
+     */
+    private long unlinks;
 
-        return block.get(index);
-    }
+    /**
+     * The histogram of the number of blocks traversed per instrumented 
+     * operation, or {@code null} if not instrumented.
+     */
+    private final long[] traversalHistogram = 
+            INSTRUMENTED ? new long[HISTOGRAM_BUCKETS] : null;
 
-    public void remove(int index) {
-        checkAccessIndex(index);
-        Block<T> targetBlock = headBlock;
+    /**
+     * The histogram of the number of elements shifted per instrumented 
+     * insertion or removal, or {@code null} if not instrumented.
+     */
+    private final long[] shiftHistogram = 
+            INSTRUMENTED ? new long[HISTOGRAM_BUCKETS] : null;
 
-        while (index >= targetBlock.size) {
-            index -= targetBlock.size;
-            targetBlock = targetBlock.nextBlock;
-        }
+    /**
+     * The event of the instrumented operation in progress.
+     */
+    private LinkedBlockListEvent operationEvent;
 
-        if (targetBlock.size == 1) {
-            // The target block contains only one element. Unlink it from the
-            // chain of blocks:
-            if (targetBlock == headBlock) {
-                headBlock = headBlock.nextBlock;
+    /**
+     * The most recent snapshot if this list has not been modified since, or 
+     * {@code null}.
+     */
+    private Snapshot<T> sharedSnapshot;
 
-                if (headBlock != null) {
-                    headBlock.previousBlock = null;                    
-                }
+    /**
+     * The epoch of the most recent snapshot of this list, or zero. A block 
+     * of an earlier epoch is preserved for the snapshots before it is 
+     * written.
+     */
+    private long snapshotEpoch;
+
+    /**
+     * The snapshots of this list that are still reachable, or {@code null} 
+     * if no snapshot has been taken.
+     */
+    private SnapshotRegistry snapshots;
+
+    public LinkedBlockList(int blockCapacity) {
+        blockCapacity = Math.max(blockCapacity, MINIMUM_BLOCK_CAPACITY);
+        blockCapacity = ceilToPowerOfTwo(blockCapacity);
+        this.blockCapacity = blockCapacity;
+        this.blockSizeCounts = new int[blockCapacity + 1];
+        this.pooledBlockLists = newBlockArray(
+                Integer.numberOfTrailingZeros(blockCapacity) + 1);
+    }
+
+    public LinkedBlockList() {
+        this(DEFAULT_BLOCK_CAPACITY);
+    }
+
+    /**
+     * Builds a list of the elements returned by {@code iterator}. The blocks
+     * are filled to capacity one after another and each is linked once, full.
+     * 
+     * @param <T>      the element type.
+     * @param iterator the source of the elements.
+     * @return a new list.
+     */
+    public static <T> LinkedBlockList<T> from(Iterator<? extends T> iterator) {
+        Objects.requireNonNull(iterator, "The input iterator is null.");
+        LinkedBlockList<T> list = new LinkedBlockList<>();
+
+        while (iterator.hasNext()) {
+            Block<T> block = list.allocateBlock(list.blockCapacity);
+            int count = 0;
+
+            while (count < block.capacity && iterator.hasNext()) {
+                block.array[count++] = iterator.next();
+            }
+
+            block.size = count;
+
+            if (list.tailBlock == null) {
+                list.linkOnlyBlock(block);
             } else {
-                targetBlock.previousBlock.nextBlock = targetBlock.nextBlock;
+                list.linkBlockAfter(list.tailBlock, block);
             }
 
-            if (targetBlock == tailBlock) {
-                tailBlock = tailBlock.previousBlock;
+            list.size += count;
+        }
+
+        return list;
+    }
 
-                if (tailBlock != null) {
-                    tailBlock.nextBlock = null;
-                }
+    /**
+     * Builds a list of the elements of {@code stream} in encounter order with
+     * {@link #collector()}.
+     * 
+     * @param <T>    the element type.
+     * @param stream the source of the elements.
+     * @return a new list.
+     */
+    public static <T> LinkedBlockList<T> from(Stream<? extends T> stream) {
+        Objects.requireNonNull(stream, "The input stream is null.");
+        return stream.collect(collector());
+    }
+
+    /**
+     * Returns a collector accumulating the elements into a new list with the 
+     * default block capacity.
+     * 
+     * @param <T> the element type.
+     * @return a collector.
+     * @see #collector(int)
+     */
+    public static <T> Collector<T, ?, LinkedBlockList<T>> collector() {
+        return collector(DEFAULT_BLOCK_CAPACITY);
+    }
+
+    /**
+     * Returns a collector accumulating the elements into a new list. Each 
+     * element is appended in constant time, and the partial lists of a 
+     * parallel reduction are concatenated by {@link #append} without copying,
+     * so that collecting {@code n} elements takes {@code O(n)} time.
+     * 
+     * @param <T>           the element type.
+     * @param blockCapacity the block capacity of the lists.
+     * @return a collector.
+     */
+    public static <T> Collector<T, ?, LinkedBlockList<T>> collector(
+            int blockCapacity) {
+        return Collector.of(() -> new LinkedBlockList<T>(blockCapacity), 
+                            LinkedBlockList::addLast, 
+                            (left, right) -> {
+                                left.append(right);
+                                return left;
+                            });
+    }
+
+    @Override
+    public boolean add(T element) {
+        addLast(element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        checkAddIndex(index);
+
+        if (index == 0) {
+            addFirst(element);
+            return;
+        }
+
+        if (index == size) {
+            addLast(element);
+            return;
+        }
+
+        releaseSnapshot();
+
+        if (repackCapacity != 0) {
+            repackStep();
+        }
+
+        if (mayHoldVersions()) {
+            sweepStep();
+        }
+
+        if (INSTRUMENTED) {
+            beginOperation();
+        }
+
+        int globalIndex = index;
+        Block<T> block = locateBlock(index);
+        index -= fingerStartIndex;
+        int indexMask = block.indexMask;
+        copyOnWrite(block);
+        int shiftedElements = Math.min(index, block.size - index);
+
+        if (block.size == block.capacity) {
+            // Create a new block and move to it as little elements as possible:
+            int elementsOnLeft = index;
+            int elementsOnRight = block.size - index;
+            Block<T> newBlock = allocateBlock(
+                    splitBlockCapacity(
+                            block, 
+                            Math.min(elementsOnLeft, elementsOnRight) + 1));
+            splits++;
+
+            if (elementsOnLeft < elementsOnRight) {
+                // Add newBlock before block and move to it the prefix of the
+                // current block and append the new element:
+                block.copyTo(0, newBlock, 0, elementsOnLeft);
+                block.setNull(0, elementsOnLeft);
+                newBlock.array[elementsOnLeft] = element;
+                newBlock.size = elementsOnLeft + 1;
+                block.size -= elementsOnLeft;
+                block.headIndex = 
+                        (block.headIndex + elementsOnLeft) & indexMask;
+
+                blockSizeChanged(block, -elementsOnLeft);
+
+                linkBlockBefore(block, newBlock);
+                fingerBlock = newBlock;
+            } else {
+                // Add newBlock after block and move to it the new element
+                // followed by the suffix of the current block:
+                newBlock.array[0] = element;
+                block.copyTo(index, newBlock, 1, elementsOnRight);
+                block.setNull(index, elementsOnRight);
+                block.size -= elementsOnRight;
+                newBlock.size = elementsOnRight + 1;
+
+                blockSizeChanged(block, -elementsOnRight);
+
+                linkBlockAfter(block, newBlock);
+            }
+        } else {
+            // The current block is not full so insert into it:
+            int elementsOnLeft = index;
+            int elementsOnRight = block.size - index;
+
+            if (elementsOnLeft < elementsOnRight) {
+                // Shift the leftmost elements one position to the left:
+                block.shift(0, -1, elementsOnLeft);
+                block.array[(block.headIndex + index - 1) & indexMask] =
+                        element;
+                block.headIndex = (block.headIndex - 1) & indexMask;
+                block.size++;
             } else {
-                targetBlock.nextBlock.previousBlock = targetBlock.previousBlock;
+                // Shift the rightmost elements one position to the right:
+                block.shift(index, index + 1, elementsOnRight);
+                block.array[(block.headIndex + index) & indexMask] = element;
+                block.size++;
             }
+
+            blockSizeChanged(block, 1);
+        }
+
+        size++;
+        modCount++;
+
+        if (INSTRUMENTED) {
+            recordShift(shiftedElements);
+            endOperation("add", globalIndex, shiftedElements);
+        }
+
+        if (autoTuningEnabled) {
+            sampleOperation(shiftedElements);
+        }
+    }
+
+    @Override
+    public T get(int index) {
+        checkAccessIndex(index);
+
+        if (INSTRUMENTED) {
+            beginOperation();
+        }
+
+        Block<T> block = locateBlock(index);
+        T element = block.get(index - fingerStartIndex);
+
+        if (INSTRUMENTED) {
+            endOperation("get", index, 0);
+        }
+
+        if (autoTuningEnabled) {
+            sampleOperation(0);
+        }
+
+        return element;
+    }
+
+    @Override
+    public T set(int index, T element) {
+        checkAccessIndex(index);
+        releaseSnapshot();
+
+        if (mayHoldVersions()) {
+            sweepStep();
+        }
+
+        if (INSTRUMENTED) {
+            beginOperation();
+        }
+
+        Block<T> block = locateBlock(index);
+        copyOnWrite(block);
+        int arrayIndex = 
+                (block.headIndex + index - fingerStartIndex) & block.indexMask;
+        T oldElement = block.array[arrayIndex];
+        block.array[arrayIndex] = element;
+
+        if (INSTRUMENTED) {
+            endOperation("set", index, 0);
+        }
+
+        if (autoTuningEnabled) {
+            sampleOperation(0);
+        }
+
+        return oldElement;
+    }
+
+    @Override
+    public T remove(int index) {
+        checkAccessIndex(index);
+        releaseSnapshot();
+
+        if (repackCapacity != 0) {
+            repackStep();
+        }
+
+        if (mayHoldVersions()) {
+            sweepStep();
+        }
+
+        if (INSTRUMENTED) {
+            beginOperation();
+        }
+
+        int globalIndex = index;
+        Block<T> targetBlock = locateBlock(index);
+        index -= fingerStartIndex;
+        int indexMask = targetBlock.indexMask;
+        T element = targetBlock.get(index);
+        int shiftedElements = 
+                Math.min(index, targetBlock.size - index - 1);
+
+        if (targetBlock.size == 1) {
+            // The target block contains only one element. Unlink it from the
+            // chain of blocks:
+            unlinkBlock(targetBlock);
         } else {
+            copyOnWrite(targetBlock);
             int elementsOnLeft = index;
             int elementsOnRight = targetBlock.size - index - 1;
 
             if (elementsOnLeft < elementsOnRight) {
                 // Shift the leftmost elements in the target block one position
                 // to the right:
-                for (int i = index - 1; i >= 0; i--) {
-                    int sourceIndex = (targetBlock.headIndex + i) & indexMask;
-                    int targetIndex = (targetBlock.headIndex + i + 1) 
-                            & indexMask;
-                    targetBlock.array[targetIndex] = 
-                            targetBlock.array[sourceIndex];
-                }
-
+                targetBlock.shift(0, 1, elementsOnLeft);
                 targetBlock.setNull(0);
                 targetBlock.headIndex = (targetBlock.headIndex + 1) & indexMask;
                 targetBlock.size--;
             } else {
                 // Shift the rightmost elements in the target block one position
                 // to the left:
-                for (int i = index + 1; i < targetBlock.size; i++) {
-                    int sourceIndex = (targetBlock.headIndex + i) & indexMask;
-                    int targetIndex = (targetBlock.headIndex + i - 1) 
-                            & indexMask;
-                    targetBlock.array[targetIndex] = 
-                            targetBlock.array[sourceIndex];
-                }
-
+                targetBlock.shift(index + 1, index, elementsOnRight);
                 targetBlock.size--;
                 targetBlock.setNull(targetBlock.size);
             }
+
+            blockSizeChanged(targetBlock, -1);
+
+            if (isUnderfilled(targetBlock)) {
+                rebalanceBlock(targetBlock);
+            }
         }
 
         size--;
+        modCount++;
+
+        if (INSTRUMENTED) {
+            recordShift(shiftedElements);
+            endOperation("remove", globalIndex, shiftedElements);
+        }
+
+        if (autoTuningEnabled) {
+            sampleOperation(shiftedElements);
+        }
+
+        return element;
     }
 
-    public int size() {
-        return size;
+    /**
+     * Inserts {@code element} at the beginning of this list in constant time.
+     * 
+     * @param element the element to insert.
+     */
+    @Override
+    public void addFirst(T element) {
+        releaseSnapshot();
+
+        if (size == 0 || headBlock.size == headBlock.capacity) {
+            // Fill the new block from its end so that the subsequent 
+            // prepends need no shifting:
+            Block<T> newBlock = allocateBlock(nextBlockCapacity(size));
+            newBlock.headIndex = newBlock.indexMask;
+            newBlock.array[newBlock.indexMask] = element;
+            newBlock.size = 1;
+
+            if (size == 0) {
+                linkOnlyBlock(newBlock);
+            } else {
+                linkBlockBefore(headBlock, newBlock);
+            }
+        } else {
+            copyOnWrite(headBlock);
+            headBlock.headIndex = 
+                    (headBlock.headIndex - 1) & headBlock.indexMask;
+            headBlock.array[headBlock.headIndex] = element;
+            headBlock.size++;
+
+            blockSizeChanged(headBlock, 1);
+        }
+
+        size++;
+        modCount++;
+        // All the blocks shifted; point the finger at the head block:
+        fingerBlock = headBlock;
+        fingerStartIndex = 0;
     }
 
     /**
-     * Returns a number between zero and one indicating how densely the blocks
-     * are.
+     * Appends {@code element} to the end of this list in constant time.
      * 
-     * @return density factor.
+     * @param element the element to append.
      */
-    public float getDensityFactor() {
-        return ((float) size) / blocks * blockCapacity;
+    @Override
+    public void addLast(T element) {
+        releaseSnapshot();
+
+        if (size == 0 || tailBlock.size == tailBlock.capacity) {
+            Block<T> newBlock = allocateBlock(nextBlockCapacity(size));
+            newBlock.array[0] = element;
+            newBlock.size = 1;
+
+            if (size == 0) {
+                linkOnlyBlock(newBlock);
+            } else {
+                linkBlockAfter(tailBlock, newBlock);
+            }
+        } else {
+            copyOnWrite(tailBlock);
+            tailBlock.array[(tailBlock.headIndex + tailBlock.size) 
+                            & tailBlock.indexMask] = element;
+            tailBlock.size++;
+
+            blockSizeChanged(tailBlock, 1);
+        }
+
+        size++;
+        modCount++;
+        fingerBlock = tailBlock;
+        fingerStartIndex = size - tailBlock.size;
     }
 
-    private void checkAccessIndex(int index) {
-        if (index < 0) {
-            throw new IndexOutOfBoundsException("index(" + index + ") < 0");
+    /**
+     * Removes and returns the first element of this list in constant time.
+     * 
+     * @return the removed element.
+     * @throws NoSuchElementException if this list is empty.
+     */
+    @Override
+    public T removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException("The list is empty.");
         }
 
-        if (index >= size) {
-            throw new IndexOutOfBoundsException(
-                    "index(" + index + ") >= (" + size + ")");
+        releaseSnapshot();
+        Block<T> block = headBlock;
+        T element = block.get(0);
+
+        if (block.size == 1) {
+            unlinkBlock(block);
+        } else {
+            copyOnWrite(block);
+            block.setNull(0);
+            block.headIndex = (block.headIndex + 1) & block.indexMask;
+            block.size--;
+
+            blockSizeChanged(block, -1);
         }
+
+        size--;
+        modCount++;
+        // All the blocks shifted; point the finger at the head block:
+        fingerBlock = headBlock;
+        fingerStartIndex = 0;
+        return element;
     }
 
-    private void checkAddIndex(int index) {
-        if (index < 0) {
-            throw new IndexOutOfBoundsException("index(" + index + ") < 0");
+    /**
+     * Removes and returns the last element of this list in constant time.
+     * 
+     * @return the removed element.
+     * @throws NoSuchElementException if this list is empty.
+     */
+    @Override
+    public T removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("The list is empty.");
         }
 
-        if (index > size) {
-            throw new IndexOutOfBoundsException(
-                    "index(" + index + ") > (" + size + ")");
+        releaseSnapshot();
+        Block<T> block = tailBlock;
+        T element = block.get(block.size - 1);
+
+        if (block.size == 1) {
+            unlinkBlock(block);
+        } else {
+            copyOnWrite(block);
+            block.size--;
+            block.setNull(block.size);
+
+            blockSizeChanged(block, -1);
         }
+
+        size--;
+        modCount++;
+        fingerBlock = tailBlock;
+        fingerStartIndex = size == 0 ? 0 : size - tailBlock.size;
+        return element;
     }
 
-    private static int ceilToPowerOfTwo(int number) {
-        int ret = 1;
+    @Override
+    public boolean offerFirst(T element) {
+        addFirst(element);
+        return true;
+    }
 
-        while (ret < number) {
-            ret <<= 1;
+    @Override
+    public boolean offerLast(T element) {
+        addLast(element);
+        return true;
+    }
+
+    @Override
+    public T pollFirst() {
+        return size == 0 ? null : removeFirst();
+    }
+
+    @Override
+    public T pollLast() {
+        return size == 0 ? null : removeLast();
+    }
+
+    @Override
+    public T getFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException("The list is empty.");
         }
 
-        return ret;
+        return headBlock.get(0);
+    }
+
+    @Override
+    public T getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("The list is empty.");
+        }
+
+        return tailBlock.get(tailBlock.size - 1);
+    }
+
+    @Override
+    public T peekFirst() {
+        return size == 0 ? null : headBlock.get(0);
+    }
+
+    @Override
+    public T peekLast() {
+        return size == 0 ? null : tailBlock.get(tailBlock.size - 1);
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        Iterator<T> iterator = iterator();
+
+        while (iterator.hasNext()) {
+            if (Objects.equals(o, iterator.next())) {
+                iterator.remove();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        ListIterator<T> iterator = listIterator(size);
+
+        while (iterator.hasPrevious()) {
+            if (Objects.equals(o, iterator.previous())) {
+                iterator.remove();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean offer(T element) {
+        addLast(element);
+        return true;
+    }
+
+    @Override
+    public T remove() {
+        return removeFirst();
+    }
+
+    @Override
+    public T poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public T element() {
+        return getFirst();
+    }
+
+    @Override
+    public T peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(T element) {
+        addFirst(element);
+    }
+
+    @Override
+    public T pop() {
+        return removeFirst();
+    }
+
+    @Override
+    public Iterator<T> descendingIterator() {
+        final ListIterator<T> iterator = listIterator(size);
+
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasPrevious();
+            }
+
+            @Override
+            public T next() {
+                return iterator.previous();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    /**
+     * Returns a reverse-ordered view of this list. The view supports all the
+     * operations of the list, translating them to the opposite end, and 
+     * writes through to this list. Its iterators fail fast on the structural
+     * modifications not made through them. Both {@link List} and 
+     * {@link Deque} declare this method as of Java 21, so the return type is 
+     * one implementing them both.
+     * 
+     * @return a reverse-ordered view of this list.
+     */
+    public ReversedList reversed() {
+        return new ReversedList();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return indexOf(o, 0, size);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return lastIndexOf(o, 0, size);
+    }
+
+    /**
+     * Returns a view of the elements within {@code [fromIndex, toIndex)}. The
+     * view locates its elements through the block index and the finger of 
+     * this list, scans the blocks directly in {@code indexOf}, iterates from 
+     * the block of its first element, and turns its bulk modifications into 
+     * the block-at-a-time {@link #addAll(int, Collection)} and 
+     * {@link #removeRange(int, int)} of this list.
+     * 
+     * @param fromIndex the index of the first element in the view.
+     * @param toIndex   the index one past the last element in the view.
+     * @return a view of the range.
+     */
+    @Override
+    public List<T> subList(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        return new SubList(null, fromIndex, toIndex - fromIndex);
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+
+        releaseSnapshot();
+
+        // Keep as many of the dropped blocks as the pool has room for, 
+        // unless a snapshot may still read them:
+        for (Block<T> block = headBlock; 
+                block != null && pooledBlocks < blockPoolCapacity;) {
+            Block<T> nextBlock = block.nextBlock;
+
+            if (isRecyclable(block)) {
+                recycleBlock(block);
+            }
+
+            block = nextBlock;
+        }
+
+        headBlock = null;
+        tailBlock = null;
+        indexRoot = null;
+        fingerBlock = null;
+        repackBlock = null;
+        sweepBlock = null;
+        size = 0;
+        blocks = 0;
+        totalCapacity = 0L;
+        Arrays.fill(blockSizeCounts, 0);
+        minimumBlockSize = Integer.MAX_VALUE;
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> collection) {
+        return addAll(size, collection);
+    }
+
+    /**
+     * Inserts all the elements of {@code collection} starting at the position
+     * {@code index}. The target block is located and split only once, the 
+     * free space at the end of the block before the insertion point and at 
+     * the beginning of the block after it is filled, and the rest of the 
+     * elements are copied to new full blocks with {@code System.arraycopy}.
+     * 
+     * @param index      the position of the first inserted element.
+     * @param collection the collection of elements to insert.
+     * @return {@code true} if this list changed.
+     */
+    @Override
+    public boolean addAll(int index, Collection<? extends T> collection) {
+        checkAddIndex(index);
+        Object[] elements = collection.toArray();
+        int remaining = elements.length;
+
+        if (remaining == 0) {
+            return false;
+        }
+
+        releaseSnapshot();
+
+        // Find the blocks on both sides of the insertion point, splitting a
+        // block if the point is in its middle:
+        Block<T> leftBlock;
+        Block<T> rightBlock;
+
+        if (index == size) {
+            leftBlock = tailBlock;
+            rightBlock = null;
+        } else {
+            rightBlock = cutBefore(index);
+            leftBlock = rightBlock.previousBlock;
+        }
+
+        int elementIndex = 0;
+
+        if (leftBlock != null) {
+            int count = Math.min(remaining, 
+                                 leftBlock.capacity - leftBlock.size);
+            appendToBlock(leftBlock, elements, 0, count);
+            elementIndex = count;
+            remaining -= count;
+        }
+
+        int rightBlockFreeSlots = 
+                rightBlock == null ? 0 : rightBlock.capacity - rightBlock.size;
+
+        // Copy to new blocks what does not fit into the free space of the 
+        // right block:
+        while (remaining > rightBlockFreeSlots) {
+            int capacity = nextBlockCapacity(size + elementIndex);
+            int count = Math.min(remaining, capacity);
+            Block<T> newBlock = allocateBlock(capacity);
+            System.arraycopy(elements, elementIndex, newBlock.array, 0, count);
+            newBlock.size = count;
+
+            if (leftBlock != null) {
+                linkBlockAfter(leftBlock, newBlock);
+            } else if (rightBlock != null) {
+                linkBlockBefore(rightBlock, newBlock);
+            } else {
+                linkOnlyBlock(newBlock);
+            }
+
+            leftBlock = newBlock;
+            elementIndex += count;
+            remaining -= count;
+        }
+
+        if (remaining > 0) {
+            prependToBlock(rightBlock, elements, elementIndex, remaining);
+        }
+
+        size += elements.length;
+        fingerBlock = null;
+        repackBlock = null;
+        sweepBlock = null;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes all the elements with indices within 
+     * {@code [fromIndex, toIndex)}. The blocks strictly inside the range are 
+     * unlinked as a whole, and only the two boundary blocks are trimmed. The
+     * trimmed blocks are then merged with each other if they fit into one, 
+     * or else rebalanced with their neighbours as in {@link #remove(int)}.
+     * 
+     * @param fromIndex the index of the first element to remove.
+     * @param toIndex   the index one past the last element to remove.
+     */
+    @Override
+    public void removeRange(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+
+        if (fromIndex == toIndex) {
+            return;
+        }
+
+        if (toIndex - fromIndex == size) {
+            clear();
+            return;
+        }
+
+        releaseSnapshot();
+        Block<T> firstBlock = locateBlock(fromIndex);
+        int firstOffset = fromIndex - fingerStartIndex;
+        int count = toIndex - fromIndex;
+
+        if (firstOffset + count <= firstBlock.size) {
+            boolean blockSurvives = count < firstBlock.size;
+            removeFromBlock(firstBlock, firstOffset, count);
+
+            if (blockSurvives && isUnderfilled(firstBlock)) {
+                rebalanceBlock(firstBlock);
+            }
+        } else {
+            // The blocks that will surround the gap, if any:
+            Block<T> leftBlock = 
+                    firstOffset > 0 ? firstBlock : firstBlock.previousBlock;
+
+            // Unlink the interior blocks:
+            int remaining = count - (firstBlock.size - firstOffset);
+            Block<T> lastBlock = firstBlock.nextBlock;
+
+            while (remaining >= lastBlock.size) {
+                Block<T> nextBlock = lastBlock.nextBlock;
+                remaining -= lastBlock.size;
+                unlinkBlock(lastBlock);
+                lastBlock = nextBlock;
+
+                if (remaining == 0) {
+                    break;
+                }
+            }
+
+            // Trim the boundary blocks:
+            removeFromBlock(firstBlock, 
+                            firstOffset, 
+                            firstBlock.size - firstOffset);
+
+            if (remaining > 0) {
+                removeFromBlock(lastBlock, 0, remaining);
+            }
+
+            Block<T> rightBlock = lastBlock;
+
+            // Keep the trimmed boundary blocks above the minimum fill factor
+            // as remove(int) does, preferring to merge them with each other:
+            boolean merged = leftBlock != null 
+                          && rightBlock != null 
+                          && mergeAdjacentBlocks(leftBlock, rightBlock);
+
+            if (!merged) {
+                // If both blocks exist, they do not fit into one, so 
+                // rebalancing the left block leaves the right one linked:
+                if (firstOffset > 0 && isUnderfilled(leftBlock)) {
+                    rebalanceBlock(leftBlock);
+                }
+
+                if (remaining > 0 && isUnderfilled(rightBlock)) {
+                    rebalanceBlock(rightBlock);
+                }
+            }
+        }
+
+        size -= count;
+        fingerBlock = null;
+        repackBlock = null;
+        sweepBlock = null;
+        modCount++;
+    }
+
+    /**
+     * Moves all the elements of {@code other} to the end of this list and 
+     * leaves {@code other} empty. The blocks of {@code other} are relinked 
+     * rather than copied, and the block index, if enabled, is merged in 
+     * expected logarithmic time, so that the operation runs in time 
+     * proportional to the block capacity. If {@code other} may hold blocks 
+     * larger than this list accepts, its elements are copied instead.
+     * 
+     * @param other the list whose elements to append.
+     * @throws IllegalArgumentException if {@code other} is this list.
+     */
+    public void append(LinkedBlockList<T> other) {
+        Objects.requireNonNull(other, "The input list is null.");
+
+        if (other == this) {
+            throw new IllegalArgumentException(
+                    "Cannot append a list to itself.");
+        }
+
+        if (other.size == 0) {
+            return;
+        }
+
+        if (other.blockSizeCounts.length > blockSizeCounts.length) {
+            addAll(other);
+            other.clear();
+            return;
+        }
+
+        releaseSnapshot();
+        other.releaseSnapshot();
+
+        if (other.hasReachableSnapshots()) {
+            // This list does not preserve the blocks for the snapshots of 
+            // the other one:
+            other.copyBlocks();
+        } else if (other.mayHoldVersions()) {
+            // The blocks may still hold versions no snapshot reads:
+            startSweep();
+        }
+
+        if (blockIndexEnabled && !other.blockIndexEnabled) {
+            other.buildIndex();
+        } else if (!blockIndexEnabled && other.blockIndexEnabled) {
+            other.clearIndex();
+        }
+
+        if (tailBlock == null) {
+            headBlock = other.headBlock;
+        } else {
+            preserveBlock(tailBlock);
+            tailBlock.nextBlock = other.headBlock;
+            other.headBlock.previousBlock = tailBlock;
+        }
+
+        tailBlock = other.tailBlock;
+
+        if (blockIndexEnabled) {
+            indexRoot = indexMerge(indexRoot, other.indexRoot);
+            indexRoot.parentBlock = null;
+        }
+
+        size += other.size;
+        blocks += other.blocks;
+        totalCapacity += other.totalCapacity;
+
+        for (int i = 0; i < other.blockSizeCounts.length; i++) {
+            blockSizeCounts[i] += other.blockSizeCounts[i];
+        }
+
+        minimumBlockSize = Math.min(minimumBlockSize, other.minimumBlockSize);
+        modCount++;
+
+        // Empty the other list without recycling the blocks it gave away:
+        other.headBlock = null;
+        other.tailBlock = null;
+        other.indexRoot = null;
+        other.fingerBlock = null;
+        other.repackBlock = null;
+        other.sweepBlock = null;
+        other.size = 0;
+        other.blocks = 0;
+        other.totalCapacity = 0L;
+        Arrays.fill(other.blockSizeCounts, 0);
+        other.minimumBlockSize = Integer.MAX_VALUE;
+        other.modCount++;
+    }
+
+    /**
+     * Removes all the elements starting at {@code index} and returns them in
+     * a new list with the same settings. At most one block is cut, the blocks
+     * after it are handed over as a whole, and the block index, if enabled, 
+     * is split in expected logarithmic time. The block statistics, however, 
+     * are updated block by block, walking whichever part of the chain is 
+     * shorter, so that even with the block index enabled the split runs in 
+     * expected time {@code O(log n + min(index, n - index) / blockCapacity)}
+     * rather than in logarithmic time, the walk dominating any split not 
+     * close to either end. If a snapshot of this list is still reachable, 
+     * the blocks of the suffix are also copied, in time 
+     * {@code O(n - index)}.
+     * 
+     * @param index the index of the first element to move.
+     * @return the list of the elements within {@code [index, size())}.
+     */
+    public LinkedBlockList<T> splitAt(int index) {
+        checkAddIndex(index);
+        LinkedBlockList<T> suffix = new LinkedBlockList<>(blockCapacity);
+        suffix.minimumFillFactor = minimumFillFactor;
+        suffix.blockIndexEnabled = blockIndexEnabled;
+        suffix.adaptiveBlockCapacityEnabled = adaptiveBlockCapacityEnabled;
+        suffix.splitShrinkingEnabled = splitShrinkingEnabled;
+        suffix.blockPoolCapacity = blockPoolCapacity;
+        suffix.autoTuningEnabled = autoTuningEnabled;
+        suffix.repackCapacity = repackCapacity;
+        suffix.supportBlockCapacity(blockSizeCounts.length - 1);
+
+        if (index == size) {
+            return suffix;
+        }
+
+        releaseSnapshot();
+        Block<T> firstBlock = cutBefore(index);
+        Block<T> lastBlock = firstBlock.previousBlock;
+        int count = size - index;
+
+        // Move the statistics of the shorter part of the chain:
+        if (count <= index) {
+            for (Block<T> block = firstBlock; 
+                    block != null; 
+                    block = block.nextBlock) {
+                moveBlockStatistics(block, suffix);
+            }
+        } else {
+            swapBlockStatistics(suffix);
+
+            for (Block<T> block = lastBlock; 
+                    block != null; 
+                    block = block.previousBlock) {
+                suffix.moveBlockStatistics(block, this);
+            }
+        }
+
+        if (blockIndexEnabled) {
+            suffix.indexRoot = indexSplit(firstBlock);
+        }
+
+        suffix.headBlock = firstBlock;
+        suffix.tailBlock = tailBlock;
+        suffix.size = count;
+        firstBlock.previousBlock = null;
+        tailBlock = lastBlock;
+
+        if (lastBlock == null) {
+            headBlock = null;
+        } else {
+            preserveBlock(lastBlock);
+            lastBlock.nextBlock = null;
+        }
+
+        if (hasReachableSnapshots()) {
+            // The suffix does not preserve the blocks for the snapshots of 
+            // this list:
+            suffix.copyBlocks();
+        } else if (mayHoldVersions()) {
+            // The blocks may still hold versions no snapshot reads:
+            suffix.startSweep();
+        }
+
+        size = index;
+        fingerBlock = null;
+        repackBlock = null;
+        sweepBlock = null;
+        modCount++;
+        return suffix;
+    }
+
+    /**
+     * Applies {@code edits} in order, with the same effect as calling 
+     * {@link #add(int, Object)}, {@link #remove(int)} and 
+     * {@link #set(int, Object)} for them one by one, but in a single pass 
+     * over the blocks. The edits are first replayed on a rope of pieces, each
+     * of which is a run of the current elements or an element of the batch, 
+     * which resolves the index of every edit in expected logarithmic time 
+     * without touching the blocks. The chain is then rebuilt from left to 
+     * right: the blocks lying entirely within a run are relinked as they 
+     * are, and the elements of the blocks touched by the edits are copied 
+     * once to new blocks. A batch of {@code k} edits thus runs in expected 
+     * time {@code O(n / blockCapacity + k log k + k blockCapacity)} rather 
+     * than {@code O(k n / blockCapacity)}. With the block index enabled, 
+     * each edit is located in logarithmic time anyway, and the edits are 
+     * applied one by one. Either way, all the indices are checked first, so 
+     * that if any of them is out of range, the list is left unchanged.
+     * 
+     * @param edits the edits to apply.
+     * @throws IndexOutOfBoundsException if the index of an edit is out of the
+     *                                   range of the list left by the edits 
+     *                                   before it.
+     */
+    public void applyBatch(Iterable<? extends Edit<? extends T>> edits) {
+        Objects.requireNonNull(edits, "The input edits are null.");
+        List<Edit<? extends T>> editList = new ArrayList<>();
+        int newSize = size;
+
+        // Check all the indices before applying anything:
+        for (Edit<? extends T> edit : edits) {
+            int index = edit.getIndex();
+            int maximumIndex = edit.getOperation() == Edit.Operation.INSERT ?
+                               newSize : 
+                               newSize - 1;
+
+            if (index < 0) {
+                throw new IndexOutOfBoundsException(
+                        "Edit " + editList.size() + ": index(" + index 
+                                + ") < 0");
+            }
+
+            if (index > maximumIndex) {
+                throw new IndexOutOfBoundsException(
+                        "Edit " + editList.size() + ": index(" + index 
+                                + ") > (" + maximumIndex + ")");
+            }
+
+            if (edit.getOperation() == Edit.Operation.INSERT) {
+                newSize++;
+            } else if (edit.getOperation() == Edit.Operation.REMOVE) {
+                newSize--;
+            }
+
+            editList.add(edit);
+        }
+
+        if (editList.isEmpty()) {
+            return;
+        }
+
+        if (blockIndexEnabled) {
+            // Locating an edit through the index costs no more than 
+            // replaying it on the rope:
+            for (Edit<? extends T> edit : editList) {
+                applyEdit(edit);
+            }
+
+            return;
+        }
+
+        Rope<T> rope = new Rope<>(size);
+
+        for (Edit<? extends T> edit : editList) {
+            switch (edit.getOperation()) {
+                case INSERT:
+                    rope.insert(edit.getIndex(), edit.getElement());
+                    break;
+
+                case REMOVE:
+                    rope.remove(edit.getIndex());
+                    break;
+
+                case SET:
+                    rope.set(edit.getIndex(), edit.getElement());
+                    break;
+            }
+        }
+
+        releaseSnapshot();
+        rebuildChain(rope.pieces(), newSize);
+    }
+
+    private void applyEdit(Edit<? extends T> edit) {
+        switch (edit.getOperation()) {
+            case INSERT:
+                add(edit.getIndex(), edit.getElement());
+                break;
+
+            case REMOVE:
+                remove(edit.getIndex());
+                break;
+
+            case SET:
+                set(edit.getIndex(), edit.getElement());
+                break;
+        }
+    }
+
+    /**
+     * Removes all the elements satisfying {@code filter} in a single pass 
+     * over the blocks. The survivors are moved towards the head of the chain 
+     * and the blocks left empty are unlinked.
+     * 
+     * @param filter the predicate selecting the elements to remove.
+     * @return {@code true} if any element was removed.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super T> filter) {
+        Objects.requireNonNull(filter, "The input filter is null.");
+        // Evaluate the filter first so that an exception thrown by it leaves
+        // the list intact:
+        long[] removed = new long[(size + 63) >>> 6];
+        int removedCount = 0;
+        int elementIndex = 0;
+        int expectedModCount = modCount;
+
+        for (Block<T> block = headBlock; 
+                block != null; 
+                block = block.nextBlock) {
+            for (int i = 0; i < block.size; i++, elementIndex++) {
+                if (filter.test(block.get(i))) {
+                    removed[elementIndex >>> 6] |= 1L << elementIndex;
+                    removedCount++;
+                }
+            }
+        }
+
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+
+        if (removedCount == 0) {
+            return false;
+        }
+
+        releaseSnapshot();
+
+        // Compact the survivors towards the head, keeping every block at most
+        // as full as it was:
+        Block<T> targetBlock = headBlock;
+        int targetOffset = 0;
+        elementIndex = 0;
+        copyOnWrite(targetBlock);
+
+        for (Block<T> block = headBlock; 
+                block != null; 
+                block = block.nextBlock) {
+            for (int i = 0; i < block.size; i++, elementIndex++) {
+                long bit = 1L << elementIndex;
+
+                if ((removed[elementIndex >>> 6] & bit) != 0L) {
+                    continue;
+                }
+
+                if (targetOffset == targetBlock.size) {
+                    targetBlock = targetBlock.nextBlock;
+                    targetOffset = 0;
+                    copyOnWrite(targetBlock);
+                }
+
+                targetBlock.array[(targetBlock.headIndex + targetOffset++) 
+                                  & targetBlock.indexMask] = block.get(i);
+            }
+        }
+
+        int survivors = size - removedCount;
+
+        if (survivors == 0) {
+            clear();
+            return true;
+        }
+
+        // Truncate the last target block and drop the blocks after it:
+        for (int i = targetOffset; i < targetBlock.size; i++) {
+            targetBlock.setNull(i);
+        }
+
+        targetBlock.size = targetOffset;
+        targetBlock.nextBlock = null;
+        tailBlock = targetBlock;
+        size = survivors;
+        fingerBlock = null;
+        repackBlock = null;
+        sweepBlock = null;
+        recountBlocks();
+
+        if (blockIndexEnabled) {
+            buildIndex();
+        }
+
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size];
+        copyToArray(array);
+        return array;
+    }
+
+    @Override
+    public <E> E[] toArray(E[] array) {
+        if (array.length < size) {
+            array = Arrays.copyOf(array, size);
+        } else if (array.length > size) {
+            array[size] = null;
+        }
+
+        copyToArray(array);
+        return array;
+    }
+
+    /**
+     * Sets the minimum fill factor. Whenever {@link #remove(int)} leaves a 
+     * block filled below this fraction of its capacity, the block is merged
+     * into a neighbour block if they fit together, and otherwise borrows 
+     * elements from the neighbour. Zero disables merging.
+     * 
+     * @param minimumFillFactor the minimum fill factor within {@code [0, 0.5]}.
+     */
+    public void setMinimumFillFactor(float minimumFillFactor) {
+        if (!(minimumFillFactor >= 0.0f 
+                && minimumFillFactor <= MAXIMUM_MINIMUM_FILL_FACTOR)) {
+            throw new IllegalArgumentException(
+                    "minimumFillFactor(" + minimumFillFactor + 
+                    ") is not within [0, " + MAXIMUM_MINIMUM_FILL_FACTOR + 
+                    "]");
+        }
+
+        this.minimumFillFactor = minimumFillFactor;
+    }
+
+    public float getMinimumFillFactor() {
+        return minimumFillFactor;
+    }
+
+    /**
+     * Enables or disables adaptive block capacity. In adaptive mode, a new 
+     * block gets a capacity of about an eighth of the list size, rounded up to
+     * a power of two and capped by the block capacity given at construction. 
+     * Small lists thus use small blocks, and the capacity of the new blocks 
+     * grows geometrically with the list. The existing blocks keep their 
+     * capacities.
+     * 
+     * @param enabled whether to use adaptive block capacity.
+     */
+    public void setAdaptiveBlockCapacityEnabled(boolean enabled) {
+        adaptiveBlockCapacityEnabled = enabled;
+    }
+
+    public boolean isAdaptiveBlockCapacityEnabled() {
+        return adaptiveBlockCapacityEnabled;
+    }
+
+    /**
+     * Enables or disables split shrinking. With split shrinking, the block 
+     * created by splitting a full block gets half the capacity of the split 
+     * block, or enough for the elements it receives. Regions receiving many
+     * insertions thus end up in small blocks with cheap shifts, while the 
+     * regions built by appends keep large blocks for dense scans.
+     * 
+     * @param enabled whether to shrink the blocks created by splits.
+     */
+    public void setSplitShrinkingEnabled(boolean enabled) {
+        splitShrinkingEnabled = enabled;
+    }
+
+    public boolean isSplitShrinkingEnabled() {
+        return splitShrinkingEnabled;
+    }
+
+    /**
+     * Enables or disables auto-tuning of the block capacity. An auto-tuned 
+     * list samples the positional operations in windows of 
+     * {@value #TUNING_WINDOW} and weighs the blocks traversed by the lookups,
+     * which favour large blocks, against the elements shifted by the 
+     * insertions and removals, which favour small ones. When doubling or 
+     * halving the block capacity is predicted to cut the cost by more than a 
+     * sixteenth, the capacity is changed and the blocks of the old capacity are 
+     * repacked to the new one, one block per positional insertion or removal, 
+     * so that there is no pause. The capacity stays within 
+     * {@code [4, 4096]}, and another change waits until the repacking is 
+     * done.
+     * 
+     * @param enabled whether to tune the block capacity.
+     */
+    public void setAutoTuningEnabled(boolean enabled) {
+        autoTuningEnabled = enabled;
+        startTuningWindow();
+    }
+
+    public boolean isAutoTuningEnabled() {
+        return autoTuningEnabled;
+    }
+
+    /**
+     * Returns the block capacity. In adaptive mode, the maximum capacity of 
+     * the new blocks; when auto-tuning, the capacity currently chosen.
+     * 
+     * @return the block capacity.
+     */
+    public int getBlockCapacity() {
+        return blockCapacity;
+    }
+
+    /**
+     * Sets the maximum number of unlinked blocks kept for reuse. Splits and 
+     * appends take their new blocks from the pool before allocating, so that
+     * a list churning around a steady size allocates nothing. Zero, the 
+     * default, disables pooling.
+     * 
+     * @param blockPoolCapacity the maximum number of pooled blocks.
+     */
+    public void setBlockPoolCapacity(int blockPoolCapacity) {
+        if (blockPoolCapacity < 0) {
+            throw new IllegalArgumentException(
+                    "blockPoolCapacity(" + blockPoolCapacity + ") < 0");
+        }
+
+        this.blockPoolCapacity = blockPoolCapacity;
+
+        for (int i = 0; pooledBlocks > blockPoolCapacity; i++) {
+            while (pooledBlocks > blockPoolCapacity 
+                    && pooledBlockLists[i] != null) {
+                pooledBlockLists[i] = pooledBlockLists[i].nextBlock;
+                pooledBlocks--;
+            }
+        }
+    }
+
+    public int getBlockPoolCapacity() {
+        return blockPoolCapacity;
+    }
+
+    /**
+     * Returns the number of blocks currently kept for reuse.
+     * 
+     * @return the number of pooled blocks.
+     */
+    public int getNumberOfPooledBlocks() {
+        return pooledBlocks;
+    }
+
+    /**
+     * Repacks all the elements into as few blocks as possible, leaving every 
+     * block except the last one full. Runs in linear time without allocating
+     * new blocks.
+     */
+    public void compact() {
+        if (size == 0) {
+            return;
+        }
+
+        releaseSnapshot();
+        // The index is rebuilt once at the end instead of being updated for
+        // every unlinked block:
+        boolean rebuildIndex = blockIndexEnabled;
+        blockIndexEnabled = false;
+        indexRoot = null;
+        Block<T> targetBlock = headBlock;
+        Block<T> sourceBlock = targetBlock.nextBlock;
+
+        while (sourceBlock != null) {
+            int count = Math.min(targetBlock.capacity - targetBlock.size, 
+                                 sourceBlock.size);
+
+            moveToEnd(sourceBlock, targetBlock, count);
+
+            if (sourceBlock.size == 0) {
+                Block<T> nextSourceBlock = sourceBlock.nextBlock;
+                unlinkBlock(sourceBlock);
+                sourceBlock = nextSourceBlock;
+            } else {
+                targetBlock = targetBlock.nextBlock;
+
+                if (targetBlock == sourceBlock) {
+                    sourceBlock = sourceBlock.nextBlock;
+                }
+            }
+        }
+
+        fingerBlock = null;
+        repackBlock = null;
+        sweepBlock = null;
+        modCount++;
+
+        if (rebuildIndex) {
+            blockIndexEnabled = true;
+            buildIndex();
+        }
+    }
+
+    /**
+     * Serializes this list through a {@link SerializationProxy}.
+     * 
+     * @return the serialization proxy of this list.
+     */
+    private Object writeReplace() {
+        return new SerializationProxy<>(this);
+    }
+
+    private void readObject(ObjectInputStream stream) 
+            throws InvalidObjectException {
+        throw new InvalidObjectException(
+                "A LinkedBlockList is deserialized through its proxy.");
+    }
+
+    /**
+     * Returns an immutable view of the current contents of this list in 
+     * constant time. The snapshot shares the blocks of this list and is 
+     * stamped with a new epoch. The first write to a block of an earlier 
+     * epoch freezes a copy of the block header for the snapshots, and the 
+     * array is copied only when the list writes to it, so that a 
+     * modification after a snapshot costs {@code O(1)} extra per block 
+     * touched. Once the garbage collector drops a snapshot, the block 
+     * versions only it reads are pruned on the next write to their blocks, 
+     * or else by a sweep over the chain which the positional operations 
+     * advance a few blocks at a time. The iterators and the sublists of this
+     * list stay valid. The snapshot is never affected by later modifications
+     * of the list and may be read by any number of threads once published.
+     * 
+     * @return an immutable snapshot of this list.
+     */
+    public List<T> snapshot() {
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+
+        if (sharedSnapshot == null) {
+            if (snapshots == null) {
+                snapshots = new SnapshotRegistry();
+            }
+
+            snapshotEpoch = SNAPSHOT_EPOCHS.incrementAndGet();
+            sharedSnapshot = new Snapshot<>(headBlock, size, snapshotEpoch);
+            snapshots.register(sharedSnapshot, snapshotEpoch);
+        }
+
+        return sharedSnapshot;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new BlockListIterator(0);
+    }
+
+    @Override
+    public ListIterator<T> listIterator() {
+        return new BlockListIterator(0);
+    }
+
+    /**
+     * Returns a list iterator starting at the element with index 
+     * {@code index}. Traversal steps through the block arrays directly, and 
+     * the modifications through the iterator act on the block under the 
+     * cursor without locating it from either end of the chain.
+     * 
+     * @param index the index of the first element returned by {@code next()}.
+     * @return a list iterator.
+     */
+    @Override
+    public ListIterator<T> listIterator(int index) {
+        checkAddIndex(index);
+        return new BlockListIterator(index);
+    }
+
+    /**
+     * Returns a spliterator over the elements of this list. The spliterator 
+     * splits only on block boundaries: by element count through the block 
+     * index if it is enabled, and by block count otherwise. It traverses the
+     * block arrays directly.
+     * 
+     * @return a spliterator over the elements of this list.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new BlockSpliterator(headBlock, 0, size, 0, blocks);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Enables or disables the block index. With the block index enabled, the 
+     * block containing a given position is located in {@code O(log B)} time,
+     * where {@code B} is the number of blocks, instead of walking the chain of
+     * blocks. The price is an {@code O(log B)} index update whenever a block is
+     * resized, split or unlinked. Enabling the index on a non-empty list builds
+     * it in {@code O(B)} time.
+     * 
+     * @param enabled whether to maintain the block index.
+     */
+    public void setBlockIndexEnabled(boolean enabled) {
+        if (blockIndexEnabled == enabled) {
+            return;
+        }
+
+        blockIndexEnabled = enabled;
+
+        if (enabled) {
+            buildIndex();
+        } else {
+            clearIndex();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the block index is maintained.
+     * 
+     * @return {@code true} if the block index is enabled.
+     */
+    public boolean isBlockIndexEnabled() {
+        return blockIndexEnabled;
+    }
+
+    /**
+     * Returns a number between zero and one indicating how densely the blocks
+     * are filled, that is, the ratio of the list size to the total capacity of
+     * the blocks.
+     * 
+     * @return density factor.
+     */
+    public float getDensityFactor() {
+        if (totalCapacity == 0L) {
+            return 0.0f;
+        }
+
+        return (float) (((double) size) / totalCapacity);
+    }
+
+    /**
+     * Returns the number of blocks in this list.
+     * 
+     * @return the number of blocks.
+     */
+    public int getNumberOfBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Returns the mean number of elements per block.
+     * 
+     * @return the mean block fill.
+     */
+    public float getMeanBlockFill() {
+        return blocks == 0 ? 0.0f : ((float) size) / blocks;
+    }
+
+    /**
+     * Returns the number of elements in the least filled block.
+     * 
+     * @return the minimum block fill, or zero if the list is empty.
+     */
+    public int getMinimumBlockFill() {
+        return blocks == 0 ? 0 : minimumBlockSize;
+    }
+
+    /**
+     * Returns the number of allocated block slots not holding an element.
+     * 
+     * @return the number of wasted slots.
+     */
+    public long getWastedSlots() {
+        return totalCapacity - size;
+    }
+
+    /**
+     * Returns an estimate of the number of bytes retained by the blocks, 
+     * excluding the elements themselves.
+     * 
+     * @return the estimated number of bytes retained.
+     */
+    public long getEstimatedRetainedBytes() {
+        return BLOCK_OVERHEAD_BYTES * (long) blocks 
+             + SLOT_BYTES * totalCapacity;
+    }
+
+    /**
+     * Returns the number of block versions kept for the snapshots. Walks the
+     * chain of blocks; meant for the tests.
+     * 
+     * @return the number of block versions.
+     */
+    int getNumberOfBlockVersions() {
+        int versions = 0;
+
+        for (Block<T> block = headBlock; 
+                block != null; 
+                block = block.nextBlock) {
+            for (Block<T> version = block.previousVersion; 
+                    version != null; 
+                    version = version.previousVersion) {
+                versions++;
+            }
+        }
+
+        return versions;
+    }
+
+    /**
+     * Returns the number of block splits since the last counter reset.
+     * 
+     * @return the number of splits.
+     */
+    public long getNumberOfSplits() {
+        return splits;
+    }
+
+    /**
+     * Returns the number of block merges since the last counter reset.
+     * 
+     * @return the number of merges.
+     */
+    public long getNumberOfMerges() {
+        return merges;
+    }
+
+    /**
+     * Returns the average number of blocks traversed per positional lookup 
+     * since the last counter reset. Lookups resolved by the finger traverse 
+     * no blocks; lookups through the block index count the tree nodes 
+     * visited.
+     * 
+     * @return the average number of blocks traversed per lookup.
+     */
+    public double getAverageBlocksTraversedPerLookup() {
+        return lookups == 0L ? 0.0 : ((double) traversedBlocks) / lookups;
+    }
+
+    /**
+     * Returns the number of block allocations served by the block pool since
+     * the last counter reset.
+     * 
+     * @return the number of pool hits.
+     */
+    public long getBlockPoolHits() {
+        return blockPoolHits;
+    }
+
+    /**
+     * Returns the number of block allocations that found the block pool empty
+     * since the last counter reset.
+     * 
+     * @return the number of pool misses.
+     */
+    public long getBlockPoolMisses() {
+        return blockPoolMisses;
+    }
+
+    /**
+     * Returns {@code true} if the positional operations are instrumented. The
+     * instrumentation is turned on by starting the JVM with the system 
+     * property {@value #INSTRUMENTATION_PROPERTY} set to {@code true}. 
+     * An instrumented list counts the elements shifted and the blocks 
+     * unlinked, keeps histograms of the blocks traversed and the elements 
+     * shifted per operation, and commits a {@code LinkedBlockListOperation}
+     * Flight Recorder event for each positional operation slower than the 
+     * threshold of the event, ten microseconds by default.
+     * 
+     * @return {@code true} if instrumented.
+     */
+    public static boolean isInstrumented() {
+        return INSTRUMENTED;
+    }
+
+    /**
+     * Returns the number of elements shifted by the positional insertions and
+     * removals since the last counter reset. Always zero if not 
+     * instrumented.
+     * 
+     * @return the number of shifted elements.
+     */
+    public long getNumberOfShiftedElements() {
+        return shiftedElements;
+    }
+
+    /**
+     * Returns the number of blocks unlinked since the last counter reset. 
+     * Always zero if not instrumented.
+     * 
+     * @return the number of unlinks.
+     */
+    public long getNumberOfUnlinks() {
+        return unlinks;
+    }
+
+    /**
+     * Returns the histogram of the number of blocks traversed per positional
+     * operation since the last counter reset. The entry zero counts the 
+     * operations traversing no blocks, and the entry {@code i > 0} those 
+     * traversing at least {@code 2^(i - 1)} and less than {@code 2^i}. All 
+     * zeros if not instrumented.
+     * 
+     * @return a copy of the histogram.
+     */
+    public long[] getBlocksTraversedHistogram() {
+        return INSTRUMENTED ? 
+               traversalHistogram.clone() : 
+               new long[HISTOGRAM_BUCKETS];
+    }
+
+    /**
+     * Returns the histogram of the number of elements shifted per positional
+     * insertion or removal since the last counter reset, bucketed as in 
+     * {@link #getBlocksTraversedHistogram()}. All zeros if not instrumented.
+     * 
+     * @return a copy of the histogram.
+     */
+    public long[] getElementsShiftedHistogram() {
+        return INSTRUMENTED ? 
+               shiftHistogram.clone() : 
+               new long[HISTOGRAM_BUCKETS];
+    }
+
+    /**
+     * Resets the split, merge, lookup and block pool counters, and the 
+     * instrumentation counters and histograms.
+     */
+    public void resetCounters() {
+        splits = 0L;
+        merges = 0L;
+        lookups = 0L;
+        traversedBlocks = 0L;
+        blockPoolHits = 0L;
+        blockPoolMisses = 0L;
+
+        if (INSTRUMENTED) {
+            shiftedElements = 0L;
+            unlinks = 0L;
+            Arrays.fill(traversalHistogram, 0L);
+            Arrays.fill(shiftHistogram, 0L);
+        }
+    }
+
+    private void beginOperation() {
+        LinkedBlockListEvent event = new LinkedBlockListEvent();
+        event.startTraversedBlocks = traversedBlocks;
+        event.startSplits = splits;
+        event.startUnlinks = unlinks;
+        event.begin();
+        operationEvent = event;
+    }
+
+    /**
+     * Updates the histograms with the counters of the operation begun by 
+     * {@link #beginOperation()} and commits its event if it took long enough
+     * and recording is on.
+     * 
+     * @param operation       the name of the operation.
+     * @param index           the index argument of the operation.
+     * @param shiftedElements the number of elements shifted by an insertion 
+     *                        or a removal, or zero.
+     */
+    private void endOperation(String operation, 
+                              int index, 
+                              int shiftedElements) {
+        LinkedBlockListEvent event = operationEvent;
+        operationEvent = null;
+        event.end();
+
+        int blocksTraversed = 
+                (int) (traversedBlocks - event.startTraversedBlocks);
+        traversalHistogram[histogramBucket(blocksTraversed)]++;
+
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.index = index;
+            event.listSize = size;
+            event.blockCapacity = blockCapacity;
+            event.blocks = blocks;
+            event.blockIndexEnabled = blockIndexEnabled;
+            event.blocksTraversed = blocksTraversed;
+            event.elementsShifted = shiftedElements;
+            event.blockSplits = (int) (splits - event.startSplits);
+            event.blockUnlinks = (int) (unlinks - event.startUnlinks);
+            event.commit();
+        }
+    }
+
+    private void recordShift(int shiftedElements) {
+        this.shiftedElements += shiftedElements;
+        shiftHistogram[histogramBucket(shiftedElements)]++;
+    }
+
+    private static int histogramBucket(int value) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(value);
+    }
+
+    private void startTuningWindow() {
+        tuningOperations = 0;
+        tuningStartLookups = lookups;
+        tuningStartTraversedBlocks = traversedBlocks;
+        tuningShiftedElements = 0L;
+    }
+
+    /**
+     * Counts a positional operation towards the current tuning window and 
+     * tunes the block capacity at the end of the window.
+     * 
+     * @param shiftedElements the number of elements the operation shifted.
+     */
+    private void sampleOperation(int shiftedElements) {
+        tuningShiftedElements += shiftedElements;
+
+        if (++tuningOperations == TUNING_WINDOW) {
+            tuneBlockCapacity();
+        }
+    }
+
+    /**
+     * Predicts the cost of the last tuning window for half and for twice the
+     * block capacity and starts repacking to the cheaper one if it saves more
+     * than a sixteenth. Without the block index, a lookup traverses a number
+     * of blocks inversely proportional to the capacity; with the index, about
+     * one and a half tree levels more or less, since the expected depth of a
+     * treap is {@code 1.39 log n}. The shifts are proportional to the
+     * capacity.
+     */
+    private void tuneBlockCapacity() {
+        long lookups = this.lookups - tuningStartLookups;
+        long traversed = traversedBlocks - tuningStartTraversedBlocks;
+        long shifted = tuningShiftedElements;
+        startTuningWindow();
+
+        if (repackCapacity != 0 || lookups < 0L || traversed < 0L) {
+            // Still repacking, or the counters were reset:
+            return;
+        }
+
+        long cost = BLOCK_TRAVERSAL_COST * traversed + shifted;
+        long growCost;
+        long shrinkCost;
+
+        if (blockIndexEnabled) {
+            long levels = lookups + lookups / 2L;
+            growCost = BLOCK_TRAVERSAL_COST * Math.max(traversed - levels, 0L)
+                     + 2L * shifted;
+            shrinkCost = BLOCK_TRAVERSAL_COST * (traversed + levels)
+                       + shifted / 2L;
+        } else {
+            growCost = BLOCK_TRAVERSAL_COST * traversed / 2L + 2L * shifted;
+            shrinkCost = BLOCK_TRAVERSAL_COST * traversed * 2L + shifted / 2L;
+        }
+
+        long threshold = cost - cost / 16L;
+
+        if (growCost < threshold 
+                && growCost <= shrinkCost 
+                && blockCapacity < MAXIMUM_TUNED_BLOCK_CAPACITY) {
+            changeBlockCapacity(blockCapacity * 2);
+        } else if (shrinkCost < threshold 
+                && blockCapacity > MINIMUM_BLOCK_CAPACITY) {
+            changeBlockCapacity(blockCapacity / 2);
+        }
+    }
+
+    /**
+     * Makes {@code capacity} the block capacity and starts repacking the 
+     * blocks of the old capacity.
+     * 
+     * @param capacity the new block capacity.
+     */
+    private void changeBlockCapacity(int capacity) {
+        supportBlockCapacity(capacity);
+        repackCapacity = blockCapacity;
+        repackBlock = null;
+        blockCapacity = capacity;
+    }
+
+    /**
+     * Grows the block size histogram and the block pool, which never shrink, 
+     * to accommodate blocks of capacity {@code capacity}.
+     * 
+     * @param capacity the block capacity to support.
+     */
+    private void supportBlockCapacity(int capacity) {
+        if (capacity >= blockSizeCounts.length) {
+            blockSizeCounts = Arrays.copyOf(blockSizeCounts, capacity + 1);
+            pooledBlockLists = Arrays.copyOf(
+                    pooledBlockLists, 
+                    Integer.numberOfTrailingZeros(capacity) + 1);
+        }
+    }
+
+    /**
+     * Performs one step of repacking: finds the next block of the old 
+     * capacity and moves its elements, together with those of the following
+     * blocks of the old capacity, into a new block of the block capacity. 
+     * Each step thus copies at most {@code blockCapacity} elements. Ends the
+     * repacking once the tail is reached.
+     */
+    private void repackStep() {
+        Block<T> block = repackBlock == null ? headBlock : repackBlock;
+        int skipped = 0;
+
+        while (block != null && block.capacity != repackCapacity) {
+            if (++skipped > REPACK_SKIP_LIMIT) {
+                repackBlock = block;
+                return;
+            }
+
+            block = block.nextBlock;
+        }
+
+        if (block == null) {
+            repackCapacity = 0;
+            repackBlock = null;
+            return;
+        }
+
+        Block<T> newBlock = allocateBlock(blockCapacity);
+        linkBlockBefore(block, newBlock);
+
+        while (block != null 
+                && block.capacity == repackCapacity 
+                && newBlock.size < newBlock.capacity) {
+            if (fingerBlock == block) {
+                // The elements of the block start to move:
+                fingerBlock = null;
+            }
+
+            moveToEnd(block, 
+                      newBlock, 
+                      Math.min(block.size, newBlock.capacity - newBlock.size));
+
+            if (block.size > 0) {
+                break;
+            }
+
+            Block<T> nextBlock = block.nextBlock;
+            unlinkBlock(block);
+            block = nextBlock;
+        }
+
+        repackBlock = newBlock.nextBlock;
+
+        if (repackBlock == null) {
+            repackCapacity = 0;
+        }
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code o} within 
+     * {@code [fromIndex, toIndex)}, or {@code -1} if there is none. Scans the
+     * block arrays from the block of {@code fromIndex}.
+     */
+    private int indexOf(Object o, int fromIndex, int toIndex) {
+        if (fromIndex == toIndex) {
+            return -1;
+        }
+
+        Block<T> block = locateBlock(fromIndex);
+        int startIndex = fingerStartIndex;
+        int offset = fromIndex - startIndex;
+
+        for (; block != null && startIndex < toIndex; 
+                block = block.nextBlock) {
+            int end = Math.min(block.size, toIndex - startIndex);
+
+            for (int i = offset; i < end; i++) {
+                if (Objects.equals(o, block.get(i))) {
+                    return startIndex + i;
+                }
+            }
+
+            startIndex += block.size;
+            offset = 0;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of {@code o} within 
+     * {@code [fromIndex, toIndex)}, or {@code -1} if there is none. Scans the
+     * block arrays backwards from the block of {@code toIndex - 1}.
+     */
+    private int lastIndexOf(Object o, int fromIndex, int toIndex) {
+        if (fromIndex == toIndex) {
+            return -1;
+        }
+
+        Block<T> block = locateBlock(toIndex - 1);
+        int startIndex = fingerStartIndex;
+        int offset = toIndex - 1 - startIndex;
+
+        while (true) {
+            int end = Math.max(0, fromIndex - startIndex);
+
+            for (int i = offset; i >= end; i--) {
+                if (Objects.equals(o, block.get(i))) {
+                    return startIndex + i;
+                }
+            }
+
+            block = block.previousBlock;
+
+            if (block == null || startIndex <= fromIndex) {
+                return -1;
+            }
+
+            startIndex -= block.size;
+            offset = block.size - 1;
+        }
+    }
+
+    private void checkAccessIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index(" + index + ") < 0");
+        }
+
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") >= (" + size + ")");
+        }
+    }
+
+    private void checkAddIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index(" + index + ") < 0");
+        }
+
+        if (index > size) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") > (" + size + ")");
+        }
+    }
+
+    /**
+     * Returns the block containing the element with the global index 
+     * {@code index} and makes it the finger, so that the global index of the
+     * first element of that block is available in {@code fingerStartIndex}.
+     * 
+     * @param index the global index of the element. Must be within range.
+     * @return the block containing the element.
+     */
+    private Block<T> locateBlock(int index) {
+        Block<T> block = fingerBlock;
+        int startIndex = fingerStartIndex;
+
+        lookups++;
+
+        if (block != null 
+                && index >= startIndex 
+                && index < startIndex + block.size) {
+            return block;
+        }
+
+        if (blockIndexEnabled) {
+            return indexLocateBlock(index);
+        }
+
+        // Start from whichever of the head block, the tail block and the 
+        // finger is closest to the target element:
+        int distanceFromFinger = block == null ? 
+                                 Integer.MAX_VALUE : 
+                                 Math.abs(index - startIndex);
+
+        if (index < size / 2) {
+            if (index < distanceFromFinger) {
+                block = headBlock;
+                startIndex = 0;
+            }
+        } else if (size - index < distanceFromFinger) {
+            block = tailBlock;
+            startIndex = size - block.size;
+        }
+
+        int hops = 0;
+
+        if (index >= startIndex) {
+            while (index >= startIndex + block.size) {
+                startIndex += block.size;
+                block = block.nextBlock;
+                hops++;
+            }
+        } else {
+            while (index < startIndex) {
+                block = block.previousBlock;
+                startIndex -= block.size;
+                hops++;
+            }
+        }
+
+        traversedBlocks += hops;
+        fingerBlock = block;
+        fingerStartIndex = startIndex;
+        return block;
+    }
+
+    /**
+     * Returns the index of the first element not less than {@code key}, or 
+     * {@link #size()} if there is none. The list must be sorted by 
+     * {@code comparator}.
+     * 
+     * @param key        the key to search for.
+     * @param comparator the order of the list.
+     * @return the lower bound of {@code key}.
+     * @see #search(Object, Comparator, boolean)
+     */
+    int lowerBound(T key, Comparator<? super T> comparator) {
+        return search(key, comparator, false);
+    }
+
+    /**
+     * Returns the index of the first element greater than {@code key}, or 
+     * {@link #size()} if there is none. The list must be sorted by 
+     * {@code comparator}.
+     * 
+     * @param key        the key to search for.
+     * @param comparator the order of the list.
+     * @return the upper bound of {@code key}.
+     * @see #search(Object, Comparator, boolean)
+     */
+    int upperBound(T key, Comparator<? super T> comparator) {
+        return search(key, comparator, true);
+    }
+
+    /**
+     * Searches a sorted list in two phases. First the block containing the 
+     * bound is found by comparing {@code key} with the last element of the
+     * blocks, descending the block index if enabled and walking the chain 
+     * otherwise. Then the bound is binary searched within that block, which 
+     * becomes the finger, so that an insertion at the returned index does not
+     * look the block up again.
+     * 
+     * @param key        the key to search for.
+     * @param comparator the order of the list.
+     * @param upper      whether to skip the elements equal to {@code key}.
+     * @return the index of the first element greater than {@code key}, or
+     *         not less than {@code key} if {@code upper} is {@code false}.
+     */
+    private int search(T key, Comparator<? super T> comparator, boolean upper) {
+        Block<T> targetBlock = null;
+        int targetStartIndex = size;
+        lookups++;
+
+        if (blockIndexEnabled) {
+            Block<T> block = indexRoot;
+            int startIndex = 0;
+
+            while (block != null) {
+                traversedBlocks++;
+                int cmp = comparator.compare(block.get(block.size - 1), key);
+
+                if (cmp < 0 || (upper && cmp == 0)) {
+                    // The bound is after this block:
+                    startIndex += subtreeSize(block.leftBlock) + block.size;
+                    block = block.rightBlock;
+                } else {
+                    targetBlock = block;
+                    targetStartIndex = startIndex 
+                                     + subtreeSize(block.leftBlock);
+                    block = block.leftBlock;
+                }
+            }
+        } else {
+            int startIndex = 0;
+
+            for (Block<T> block = headBlock; 
+                    block != null; 
+                    block = block.nextBlock) {
+                traversedBlocks++;
+                int cmp = comparator.compare(block.get(block.size - 1), key);
+
+                if (cmp > 0 || (!upper && cmp == 0)) {
+                    targetBlock = block;
+                    targetStartIndex = startIndex;
+                    break;
+                }
+
+                startIndex += block.size;
+            }
+        }
+
+        if (targetBlock == null) {
+            return size;
+        }
+
+        // The last element of the target block is past the bound:
+        int low = 0;
+        int high = targetBlock.size - 1;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int cmp = comparator.compare(targetBlock.get(middle), key);
+
+            if (cmp < 0 || (upper && cmp == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        fingerBlock = targetBlock;
+        fingerStartIndex = targetStartIndex;
+        return targetStartIndex + low;
+    }
+
+    private boolean isUnderfilled(Block<T> block) {
+        return block.size < block.capacity * minimumFillFactor;
+    }
+
+    /**
+     * Merges the adjacent blocks {@code leftBlock} and {@code rightBlock} 
+     * into whichever of them can hold both.
+     * 
+     * @param leftBlock  the left block.
+     * @param rightBlock the block right after {@code leftBlock}.
+     * @return {@code true} if the blocks were merged.
+     */
+    private boolean mergeAdjacentBlocks(Block<T> leftBlock, 
+                                        Block<T> rightBlock) {
+        int mergedSize = leftBlock.size + rightBlock.size;
+
+        if (mergedSize <= leftBlock.capacity) {
+            moveToEnd(rightBlock, leftBlock, rightBlock.size);
+            unlinkBlock(rightBlock);
+        } else if (mergedSize <= rightBlock.capacity) {
+            moveToFront(leftBlock, rightBlock, leftBlock.size);
+            unlinkBlock(leftBlock);
+        } else {
+            return false;
+        }
+
+        merges++;
+        return true;
+    }
+
+    /**
+     * Restores the minimum fill of {@code block}, which is the finger, by 
+     * either merging it into a neighbour or borrowing elements from one.
+     * 
+     * @param block the underfilled block.
+     */
+    private void rebalanceBlock(Block<T> block) {
+        Block<T> previousBlock = block.previousBlock;
+        Block<T> nextBlock = block.nextBlock;
+        Block<T> neighbourBlock;
+
+        // Prefer the less filled neighbour:
+        if (previousBlock == null) {
+            neighbourBlock = nextBlock;
+        } else if (nextBlock == null) {
+            neighbourBlock = previousBlock;
+        } else if (previousBlock.size < nextBlock.size) {
+            neighbourBlock = previousBlock;
+        } else {
+            neighbourBlock = nextBlock;
+        }
+
+        if (neighbourBlock == null) {
+            return;
+        }
+
+        if (block.size + neighbourBlock.size <= neighbourBlock.capacity) {
+            // Merge: move the contents of the block to the neighbour and 
+            // unlink the block:
+            merges++;
+
+            if (neighbourBlock == previousBlock) {
+                fingerStartIndex -= previousBlock.size;
+                moveToEnd(block, previousBlock, block.size);
+                unlinkBlock(block);
+                fingerBlock = previousBlock;
+            } else {
+                moveToFront(block, nextBlock, block.size);
+                unlinkBlock(block);
+            }
+        } else if (block.size + neighbourBlock.size <= block.capacity) {
+            // The blocks differ in capacity and only the block can hold both:
+            // merge the neighbour into the block:
+            merges++;
+
+            if (neighbourBlock == previousBlock) {
+                fingerStartIndex -= previousBlock.size;
+                moveToFront(previousBlock, block, previousBlock.size);
+                unlinkBlock(previousBlock);
+            } else {
+                moveToEnd(nextBlock, block, nextBlock.size);
+                unlinkBlock(nextBlock);
+            }
+        } else {
+            // Borrow: even out the sizes of the block and the neighbour, as 
+            // far as the capacity of the block allows:
+            int count = Math.min((neighbourBlock.size - block.size) / 2, 
+                                 block.capacity - block.size);
+
+            if (count <= 0) {
+                return;
+            }
+
+            if (neighbourBlock == previousBlock) {
+                moveToFront(previousBlock, block, count);
+                fingerStartIndex -= count;
+            } else {
+                moveToEnd(nextBlock, block, count);
+            }
+        }
+    }
+
+    /**
+     * Moves the first {@code count} elements of {@code sourceBlock} to the end
+     * of {@code targetBlock}.
+     * 
+     * @param sourceBlock the source block.
+     * @param targetBlock the target block.
+     * @param count       the number of elements to move.
+     */
+    private void moveToEnd(Block<T> sourceBlock, 
+                           Block<T> targetBlock, 
+                           int count) {
+        copyOnWrite(sourceBlock);
+        copyOnWrite(targetBlock);
+
+        sourceBlock.copyTo(0, targetBlock, targetBlock.size, count);
+        sourceBlock.setNull(0, count);
+
+        sourceBlock.headIndex = 
+                (sourceBlock.headIndex + count) & sourceBlock.indexMask;
+        sourceBlock.size -= count;
+        targetBlock.size += count;
+
+        blockSizeChanged(sourceBlock, -count);
+        blockSizeChanged(targetBlock, count);
+    }
+
+    /**
+     * Moves the last {@code count} elements of {@code sourceBlock} to the 
+     * beginning of {@code targetBlock}.
+     * 
+     * @param sourceBlock the source block.
+     * @param targetBlock the target block.
+     * @param count       the number of elements to move.
+     */
+    private void moveToFront(Block<T> sourceBlock, 
+                             Block<T> targetBlock, 
+                             int count) {
+        copyOnWrite(sourceBlock);
+        copyOnWrite(targetBlock);
+
+        sourceBlock.copyTo(sourceBlock.size - count, 
+                           targetBlock, 
+                           -count, 
+                           count);
+        sourceBlock.setNull(sourceBlock.size - count, count);
+
+        targetBlock.headIndex = 
+                (targetBlock.headIndex - count) & targetBlock.indexMask;
+        sourceBlock.size -= count;
+        targetBlock.size += count;
+
+        blockSizeChanged(sourceBlock, -count);
+        blockSizeChanged(targetBlock, count);
+    }
+
+    /**
+     * Removes {@code count} elements starting at the logical index 
+     * {@code offset} from {@code block}, shifting the shorter of the 
+     * remaining prefix and suffix. Unlinks the block if it becomes empty.
+     * 
+     * @param block  the target block.
+     * @param offset the logical index of the first element to remove.
+     * @param count  the number of elements to remove.
+     */
+    private void removeFromBlock(Block<T> block, int offset, int count) {
+        if (count == block.size) {
+            unlinkBlock(block);
+            return;
+        }
+
+        copyOnWrite(block);
+        int elementsOnLeft = offset;
+        int elementsOnRight = block.size - offset - count;
+
+        if (elementsOnLeft < elementsOnRight) {
+            // Shift the prefix to the right and clear its old slots:
+            block.shift(0, count, offset);
+            block.setNull(0, count);
+
+            block.headIndex = (block.headIndex + count) & block.indexMask;
+        } else {
+            // Shift the suffix to the left and clear its old slots:
+            block.shift(offset + count, offset, elementsOnRight);
+            block.setNull(block.size - count, count);
+        }
+
+        block.size -= count;
+        blockSizeChanged(block, -count);
+    }
+
+    /**
+     * Copies {@code count} elements from {@code source} to the end of 
+     * {@code block} with at most two {@code System.arraycopy} calls.
+     * 
+     * @param block       the target block.
+     * @param source      the source array.
+     * @param sourceIndex the index of the first element to copy.
+     * @param count       the number of elements to copy.
+     */
+    private void appendToBlock(Block<T> block, 
+                               Object[] source, 
+                               int sourceIndex, 
+                               int count) {
+        copyOnWrite(block);
+        int targetIndex = (block.headIndex + block.size) & block.indexMask;
+        int firstChunkLength = Math.min(count, block.capacity - targetIndex);
+        System.arraycopy(source, 
+                         sourceIndex, 
+                         block.array, 
+                         targetIndex, 
+                         firstChunkLength);
+        System.arraycopy(source, 
+                         sourceIndex + firstChunkLength, 
+                         block.array, 
+                         0, 
+                         count - firstChunkLength);
+        block.size += count;
+        blockSizeChanged(block, count);
+    }
+
+    /**
+     * Copies {@code count} elements from {@code source} to the beginning of 
+     * {@code block} with at most two {@code System.arraycopy} calls.
+     * 
+     * @param block       the target block.
+     * @param source      the source array.
+     * @param sourceIndex the index of the first element to copy.
+     * @param count       the number of elements to copy.
+     */
+    private void prependToBlock(Block<T> block, 
+                                Object[] source, 
+                                int sourceIndex, 
+                                int count) {
+        copyOnWrite(block);
+        int targetIndex = (block.headIndex - count) & block.indexMask;
+        int firstChunkLength = Math.min(count, block.capacity - targetIndex);
+        System.arraycopy(source, 
+                         sourceIndex, 
+                         block.array, 
+                         targetIndex, 
+                         firstChunkLength);
+        System.arraycopy(source, 
+                         sourceIndex + firstChunkLength, 
+                         block.array, 
+                         0, 
+                         count - firstChunkLength);
+        block.headIndex = targetIndex;
+        block.size += count;
+        blockSizeChanged(block, count);
+    }
+
+    /**
+     * Copies all the elements in order to the beginning of {@code array}, at 
+     * most two {@code System.arraycopy} calls per block.
+     * 
+     * @param array the target array of length at least {@code size}.
+     */
+    private void copyToArray(Object[] array) {
+        int targetIndex = 0;
+
+        for (Block<T> block = headBlock; 
+                block != null; 
+                block = block.nextBlock) {
+            int firstChunkLength = Math.min(block.size, 
+                                            block.capacity - block.headIndex);
+            System.arraycopy(block.array, 
+                             block.headIndex, 
+                             array, 
+                             targetIndex, 
+                             firstChunkLength);
+            System.arraycopy(block.array, 
+                             0, 
+                             array, 
+                             targetIndex + firstChunkLength, 
+                             block.size - firstChunkLength);
+            targetIndex += block.size;
+        }
+    }
+
+    /**
+     * Recomputes the block count, the total capacity and the block size 
+     * histogram by scanning the chain of blocks.
+     */
+    private void recountBlocks() {
+        blocks = 0;
+        totalCapacity = 0L;
+        Arrays.fill(blockSizeCounts, 0);
+        minimumBlockSize = Integer.MAX_VALUE;
+
+        for (Block<T> block = headBlock; 
+                block != null; 
+                block = block.nextBlock) {
+            blockLinked(block);
+        }
+    }
+
+    /**
+     * Updates the statistics and the block index after the size of 
+     * {@code block} has changed by {@code delta}.
+     * 
+     * @param block the resized block.
+     * @param delta the size change.
+     */
+    private void blockSizeChanged(Block<T> block, int delta) {
+        countBlockSize(block.size);
+        uncountBlockSize(block.size - delta);
+
+        if (blockIndexEnabled) {
+            indexUpdateSize(block, delta);
+        }
+    }
+
+    private void blockLinked(Block<T> block) {
+        blocks++;
+        totalCapacity += block.capacity;
+        countBlockSize(block.size);
+    }
+
+    private void countBlockSize(int blockSize) {
+        blockSizeCounts[blockSize]++;
+
+        if (minimumBlockSize > blockSize) {
+            minimumBlockSize = blockSize;
+        }
+    }
+
+    private void uncountBlockSize(int blockSize) {
+        if (--blockSizeCounts[blockSize] == 0 
+                && blockSize == minimumBlockSize) {
+            // Scan upwards for the next occupied block size:
+            while (minimumBlockSize < blockSizeCounts.length 
+                    && blockSizeCounts[minimumBlockSize] == 0) {
+                minimumBlockSize++;
+            }
+
+            if (minimumBlockSize == blockSizeCounts.length) {
+                minimumBlockSize = Integer.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Links {@code newBlock} into the chain right before {@code block}. The 
+     * size of {@code newBlock} must be set.
+     * 
+     * @param block    the block already in the chain.
+     * @param newBlock the block to link.
+     */
+    private void linkBlockBefore(Block<T> block, Block<T> newBlock) {
+        blockLinked(newBlock);
+        newBlock.nextBlock = block;
+        newBlock.previousBlock = block.previousBlock;
+        block.previousBlock = newBlock;
+
+        if (newBlock.previousBlock == null) {
+            headBlock = newBlock;
+        } else {
+            preserveBlock(newBlock.previousBlock);
+            newBlock.previousBlock.nextBlock = newBlock;
+        }
+
+        if (blockIndexEnabled) {
+            indexInsertBefore(block, newBlock);
+        }
+    }
+
+    /**
+     * Links {@code newBlock} into the chain right after {@code block}. The 
+     * size of {@code newBlock} must be set.
+     * 
+     * @param block    the block already in the chain.
+     * @param newBlock the block to link.
+     */
+    private void linkBlockAfter(Block<T> block, Block<T> newBlock) {
+        blockLinked(newBlock);
+        newBlock.previousBlock = block;
+        newBlock.nextBlock = block.nextBlock;
+        preserveBlock(block);
+        block.nextBlock = newBlock;
+
+        if (newBlock.nextBlock == null) {
+            tailBlock = newBlock;
+        } else {
+            newBlock.nextBlock.previousBlock = newBlock;
+        }
+
+        if (blockIndexEnabled) {
+            indexInsertAfter(block, newBlock);
+        }
+    }
+
+    /**
+     * Makes {@code block} the only block of this list. The size of 
+     * {@code block} must be set.
+     * 
+     * @param block the block to link.
+     */
+    private void linkOnlyBlock(Block<T> block) {
+        blockLinked(block);
+        headBlock = block;
+        tailBlock = block;
+
+        if (blockIndexEnabled) {
+            indexInsertRoot(block);
+        }
+    }
+
+    /**
+     * Unlinks {@code block} from the chain of blocks.
+     * 
+     * @param block the block to unlink.
+     */
+    private void unlinkBlock(Block<T> block) {
+        if (INSTRUMENTED) {
+            unlinks++;
+        }
+
+        blocks--;
+        totalCapacity -= block.capacity;
+        uncountBlockSize(block.size);
+
+        if (fingerBlock == block) {
+            // The next block will start where the unlinked one did:
+            fingerBlock = block.nextBlock;
+        }
+
+        if (repackBlock == block) {
+            repackBlock = block.nextBlock;
+        }
+
+        if (sweepBlock == block) {
+            sweepBlock = block.nextBlock;
+        }
+
+        if (blockIndexEnabled) {
+            indexRemove(block);
+        }
+
+        if (block == headBlock) {
+            headBlock = headBlock.nextBlock;
+
+            if (headBlock != null) {
+                headBlock.previousBlock = null;                    
+            }
+        } else {
+            preserveBlock(block.previousBlock);
+            block.previousBlock.nextBlock = block.nextBlock;
+        }
+
+        if (block == tailBlock) {
+            tailBlock = tailBlock.previousBlock;
+
+            if (tailBlock != null) {
+                preserveBlock(tailBlock);
+                tailBlock.nextBlock = null;
+            }
+        } else {
+            block.nextBlock.previousBlock = block.previousBlock;
+        }
+
+        if (pooledBlocks < blockPoolCapacity && isRecyclable(block)) {
+            recycleBlock(block);
+        }
+    }
+
+    /**
+     * Returns an empty block of capacity {@code capacity}, taking it from the
+     * block pool if possible.
+     * 
+     * @param capacity the capacity of the block. Must be a power of two.
+     * @return an empty block.
+     */
+    private Block<T> allocateBlock(int capacity) {
+        int poolIndex = Integer.numberOfTrailingZeros(capacity);
+        Block<T> block = pooledBlockLists[poolIndex];
+
+        if (block == null) {
+            blockPoolMisses++;
+            block = new Block<>(capacity);
+        } else {
+            blockPoolHits++;
+            pooledBlockLists[poolIndex] = block.nextBlock;
+            pooledBlocks--;
+            block.nextBlock = null;
+        }
+
+        if (block.epoch < snapshotEpoch) {
+            // No snapshot taken so far reads the new contents:
+            block.epoch = snapshotEpoch;
+        }
+
+        return block;
+    }
+
+    /**
+     * Clears {@code block}, which must not be linked any more, and pushes it 
+     * onto the block pool.
+     * 
+     * @param block the block to recycle.
+     */
+    private void recycleBlock(Block<T> block) {
+        for (int i = 0; i < block.size; i++) {
+            block.setNull(i);
+        }
+
+        block.size = 0;
+        block.headIndex = 0;
+        block.previousBlock = null;
+        block.parentBlock = null;
+        block.leftBlock = null;
+        block.rightBlock = null;
+        int poolIndex = Integer.numberOfTrailingZeros(block.capacity);
+        block.nextBlock = pooledBlockLists[poolIndex];
+        pooledBlockLists[poolIndex] = block;
+        pooledBlocks++;
+    }
+
+    /**
+     * Makes the element at {@code index} the first one of its block. If the 
+     * element is in the middle of a block, the shorter part of the block is 
+     * moved to a new block linked next to it.
+     * 
+     * @param index the global index of the element. Must be within range.
+     * @return the block starting with the element at {@code index}.
+     */
+    private Block<T> cutBefore(int index) {
+        Block<T> block = locateBlock(index);
+        int offset = index - fingerStartIndex;
+
+        if (offset == 0) {
+            return block;
+        }
+
+        splits++;
+
+        if (offset < block.size - offset) {
+            // Move the prefix of the block to a new block:
+            Block<T> newBlock = 
+                    allocateBlock(splitBlockCapacity(block, offset));
+            linkBlockBefore(block, newBlock);
+            moveToEnd(block, newBlock, offset);
+            return block;
+        }
+
+        // Move the suffix of the block to a new block:
+        Block<T> newBlock = 
+                allocateBlock(splitBlockCapacity(block, block.size - offset));
+        linkBlockAfter(block, newBlock);
+        moveToFront(block, newBlock, block.size - offset);
+        return newBlock;
+    }
+
+    /**
+     * Replaces the contents of this list with {@code pieces} in one sweep 
+     * over the chain. A block lying entirely within a run is relinked, and if
+     * the new block before it has room in its free slots, the few elements 
+     * of that new block are moved there instead. Every other block is copied
+     * from and then dropped.
+     * 
+     * @param pieces  the pieces of the new contents in order.
+     * @param newSize the total length of the pieces.
+     */
+    private void rebuildChain(List<Rope.Piece<T>> pieces, int newSize) {
+        int capacity = nextBlockCapacity(newSize);
+        Block<T> sourceBlock = headBlock;
+        int sourceStartIndex = 0;
+        int sourceOffset = 0;
+        boolean tailBlockAllocated = false;
+        headBlock = null;
+        tailBlock = null;
+
+        for (Rope.Piece<T> piece : pieces) {
+            if (piece.startIndex < 0) {
+                if (tailBlock == null || tailBlock.size == tailBlock.capacity) {
+                    linkLastBlock(allocateBlock(capacity));
+                    tailBlockAllocated = true;
+                }
+
+                copyOnWrite(tailBlock);
+                tailBlock.array[(tailBlock.headIndex + tailBlock.size) 
+                                & tailBlock.indexMask] = piece.element;
+                tailBlock.size++;
+                continue;
+            }
+
+            // Drop the blocks removed before the run:
+            while (sourceStartIndex + sourceBlock.size <= piece.startIndex) {
+                Block<T> nextBlock = sourceBlock.nextBlock;
+                sourceStartIndex += sourceBlock.size;
+                dropBlock(sourceBlock);
+                sourceBlock = nextBlock;
+            }
+
+            sourceOffset = piece.startIndex - sourceStartIndex;
+            int remaining = piece.length;
+
+            while (remaining > 0) {
+                Block<T> nextBlock = sourceBlock.nextBlock;
+
+                if (sourceOffset == 0 && sourceBlock.size <= remaining) {
+                    remaining -= sourceBlock.size;
+                    sourceStartIndex += sourceBlock.size;
+
+                    if (tailBlockAllocated 
+                            && tailBlock.size + sourceBlock.size 
+                            <= sourceBlock.capacity) {
+                        // Move the elements of the new tail block in front of
+                        // the relinked block:
+                        Block<T> newBlock = tailBlock;
+                        copyOnWrite(sourceBlock);
+                        newBlock.copyTo(0, 
+                                        sourceBlock, 
+                                        -newBlock.size, 
+                                        newBlock.size);
+                        sourceBlock.headIndex = 
+                                (sourceBlock.headIndex - newBlock.size) 
+                                & sourceBlock.indexMask;
+                        sourceBlock.size += newBlock.size;
+                        tailBlock = newBlock.previousBlock;
+
+                        if (tailBlock == null) {
+                            headBlock = null;
+                        }
+
+                        dropBlock(newBlock);
+                    }
+
+                    linkLastBlock(sourceBlock);
+                    tailBlockAllocated = false;
+                    sourceBlock = nextBlock;
+                    continue;
+                }
+
+                int count = Math.min(remaining, 
+                                     sourceBlock.size - sourceOffset);
+                remaining -= count;
+
+                while (count > 0) {
+                    if (tailBlock == null 
+                            || tailBlock.size == tailBlock.capacity) {
+                        linkLastBlock(allocateBlock(capacity));
+                        tailBlockAllocated = true;
+                    }
+
+                    int run = Math.min(count, 
+                                       tailBlock.capacity - tailBlock.size);
+                    copyOnWrite(tailBlock);
+                    sourceBlock.copyTo(sourceOffset, 
+                                       tailBlock, 
+                                       tailBlock.size, 
+                                       run);
+                    tailBlock.size += run;
+                    sourceOffset += run;
+                    count -= run;
+                }
+
+                if (sourceOffset == sourceBlock.size) {
+                    sourceStartIndex += sourceBlock.size;
+                    sourceOffset = 0;
+                    dropBlock(sourceBlock);
+                    sourceBlock = nextBlock;
+                }
+            }
+        }
+
+        // Drop the blocks removed after the last run:
+        while (sourceBlock != null) {
+            Block<T> nextBlock = sourceBlock.nextBlock;
+            dropBlock(sourceBlock);
+            sourceBlock = nextBlock;
+        }
+
+        if (tailBlock != null) {
+            preserveBlock(tailBlock);
+            tailBlock.nextBlock = null;
+        }
+
+        size = newSize;
+        fingerBlock = null;
+        repackBlock = null;
+        sweepBlock = null;
+        recountBlocks();
+
+        if (blockIndexEnabled) {
+            buildIndex();
+        }
+
+        modCount++;
+    }
+
+    /**
+     * Links {@code block} after the tail of the chain being rebuilt by 
+     * {@link #rebuildChain(List, int)}. The statistics and the block index 
+     * are left to be recomputed.
+     * 
+     * @param block the block to link.
+     */
+    private void linkLastBlock(Block<T> block) {
+        block.previousBlock = tailBlock;
+
+        if (tailBlock == null) {
+            headBlock = block;
+        } else {
+            preserveBlock(tailBlock);
+            tailBlock.nextBlock = block;
+        }
+
+        tailBlock = block;
+    }
+
+    /**
+     * Pushes {@code block}, which is no longer linked, onto the block pool if
+     * the pool has room and no snapshot may read the block.
+     * 
+     * @param block the block to drop.
+     */
+    private void dropBlock(Block<T> block) {
+        if (pooledBlocks < blockPoolCapacity && isRecyclable(block)) {
+            recycleBlock(block);
+        }
+    }
+
+    /**
+     * Moves the contribution of {@code block} to the block statistics from 
+     * this list to {@code list}. Does not touch the chain.
+     * 
+     * @param block the block changing hands.
+     * @param list  the list receiving the block.
+     */
+    private void moveBlockStatistics(Block<T> block, LinkedBlockList<T> list) {
+        blocks--;
+        totalCapacity -= block.capacity;
+        uncountBlockSize(block.size);
+        list.blocks++;
+        list.totalCapacity += block.capacity;
+        list.countBlockSize(block.size);
+    }
+
+    /**
+     * Exchanges the block statistics of this list and {@code list}, which 
+     * must have the same block capacity.
+     * 
+     * @param list the other list.
+     */
+    private void swapBlockStatistics(LinkedBlockList<T> list) {
+        int blocks = this.blocks;
+        this.blocks = list.blocks;
+        list.blocks = blocks;
+
+        long totalCapacity = this.totalCapacity;
+        this.totalCapacity = list.totalCapacity;
+        list.totalCapacity = totalCapacity;
+
+        int[] blockSizeCounts = this.blockSizeCounts;
+        this.blockSizeCounts = list.blockSizeCounts;
+        list.blockSizeCounts = blockSizeCounts;
+
+        int minimumBlockSize = this.minimumBlockSize;
+        this.minimumBlockSize = list.minimumBlockSize;
+        list.minimumBlockSize = minimumBlockSize;
+    }
+
+    /**
+     * Stops handing out the shared snapshot, which the coming modification 
+     * makes stale. The snapshot itself is left intact, since the blocks are 
+     * preserved for it one at a time as they are written.
+     */
+    private void releaseSnapshot() {
+        sharedSnapshot = null;
+    }
+
+    /**
+     * Returns {@code true} if a snapshot of this list may still be read.
+     * 
+     * @return {@code true} if a snapshot of this list is reachable.
+     */
+    private boolean hasReachableSnapshots() {
+        return snapshots != null && snapshots.hasSnapshotAfter(0L);
+    }
+
+    /**
+     * Replaces the blocks of this list with copies sharing their arrays, and
+     * leaves the original blocks to the snapshots that may read them. Used 
+     * before the blocks are handed over to a list which would not preserve 
+     * them for those snapshots. Counts as no modification; the callers do.
+     */
+    private void copyBlocks() {
+        long epoch = SNAPSHOT_EPOCHS.get();
+        Block<T> previousCopy = null;
+
+        for (Block<T> block = headBlock; 
+                block != null; 
+                block = block.nextBlock) {
+            Block<T> copy = new Block<>(block);
+            copy.epoch = epoch;
+            copy.previousBlock = previousCopy;
+
+            if (previousCopy == null) {
+                headBlock = copy;
+            } else {
+                previousCopy.nextBlock = copy;
+            }
+
+            previousCopy = copy;
+        }
+
+        tailBlock = previousCopy;
+        fingerBlock = null;
+        repackBlock = null;
+        sweepBlock = null;
+
+        if (blockIndexEnabled) {
+            buildIndex();
+        }
+    }
+
+    /**
+     * Freezes a copy of the header of {@code block} for the reachable 
+     * snapshots that read its current state, if any, and moves the block to
+     * the current epoch. Must be called before any field read by the 
+     * snapshots, or the array, of a linked block is written. If no snapshot
+     * has been taken since the last call, only prunes the versions of the 
+     * block once the newest of them is no longer read.
+     * 
+     * @param block the block about to be written.
+     */
+    private void preserveBlock(Block<T> block) {
+        long epoch = block.epoch;
+
+        if (epoch >= snapshotEpoch) {
+            Block<T> version = block.previousVersion;
+
+            if (version != null && !isRead(version, epoch)) {
+                block.previousVersion = pruneVersions(version, epoch);
+            }
+
+            return;
+        }
+
+        Block<T> versions = pruneVersions(block.previousVersion, epoch);
+
+        if (snapshots.hasSnapshotAfter(epoch)) {
+            Block<T> version = new Block<>(block);
+            version.epoch = epoch;
+            version.previousVersion = versions;
+            versions = version;
+            block.sharedArray = true;
+        }
+
+        // Publish the version before the epoch, and the epoch before any 
+        // write to the block, as the readers check them in reverse order:
+        block.previousVersion = versions;
+        block.epoch = snapshotEpoch;
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Unlinks from the chain starting at {@code version} the versions no 
+     * reachable snapshot reads. A version is read by the snapshots of the 
+     * epochs after its own, up to the epoch of the next newer version. The 
+     * readers never need the versions unlinked, so they may keep walking 
+     * the chain concurrently.
+     * 
+     * @param version    the newest version, or {@code null}.
+     * @param newerEpoch the epoch of the state replacing {@code version}.
+     * @return the newest version kept, or {@code null}.
+     */
+    private Block<T> pruneVersions(Block<T> version, long newerEpoch) {
+        if (!hasReachableSnapshots()) {
+            return null;
+        }
+
+        Block<T> firstKept = null;
+        Block<T> lastKept = null;
+
+        for (; version != null; version = version.previousVersion) {
+            long epoch = version.epoch;
+
+            if (snapshots.hasSnapshotWithin(epoch, newerEpoch)) {
+                if (lastKept == null) {
+                    firstKept = version;
+                } else if (lastKept.previousVersion != version) {
+                    lastKept.previousVersion = version;
+                }
+
+                lastKept = version;
+            }
+
+            newerEpoch = epoch;
+        }
+
+        if (lastKept != null && lastKept.previousVersion != null) {
+            lastKept.previousVersion = null;
+        }
+
+        return firstKept;
+    }
+
+    /**
+     * Returns {@code true} if a reachable snapshot reads {@code version}, 
+     * whose state was replaced at the epoch {@code newerEpoch}.
+     * 
+     * @param version    the version.
+     * @param newerEpoch the epoch of the state replacing {@code version}.
+     * @return {@code true} if the version is read.
+     */
+    private boolean isRead(Block<T> version, long newerEpoch) {
+        return snapshots != null 
+            && snapshots.hasSnapshotWithin(version.epoch, newerEpoch);
+    }
+
+    /**
+     * Returns {@code true} if some block of this list may hold versions, 
+     * that is, if a snapshot has been taken or the blocks of a list that 
+     * has taken one have been received.
+     * 
+     * @return {@code true} if a block may hold versions.
+     */
+    private boolean mayHoldVersions() {
+        return snapshots != null || sweepPasses != 0;
+    }
+
+    /**
+     * Requests one more sweeping pass over the chain, in addition to the 
+     * one in progress, if any.
+     */
+    private void startSweep() {
+        sweepPasses = Math.min(sweepPasses + 1, 2);
+    }
+
+    /**
+     * Performs one step of sweeping, if a snapshot has been dropped or some
+     * blocks were received since the last pass began: prunes the versions 
+     * of the next {@link #SWEEP_BLOCK_LIMIT} blocks, so that the versions of
+     * the blocks never written again do not outlive the snapshots reading 
+     * them. Ends the pass once the tail is reached.
+     */
+    private void sweepStep() {
+        if (snapshots != null && snapshots.takeDroppedSnapshots()) {
+            startSweep();
+        }
+
+        if (sweepPasses == 0) {
+            return;
+        }
+
+        Block<T> block = sweepBlock == null ? headBlock : sweepBlock;
+
+        for (int swept = 0; 
+                block != null && swept < SWEEP_BLOCK_LIMIT; 
+                swept++) {
+            Block<T> version = block.previousVersion;
+
+            if (version != null) {
+                block.previousVersion = pruneVersions(version, block.epoch);
+            }
+
+            block = block.nextBlock;
+        }
+
+        sweepBlock = block;
+
+        if (block == null) {
+            sweepPasses--;
+        }
+    }
+
+    /**
+     * Preserves {@code block} for the snapshots and gives it a private copy 
+     * of its array if the array is shared.
+     * 
+     * @param block the block about to be written.
+     */
+    private void copyOnWrite(Block<T> block) {
+        preserveBlock(block);
+        unshareArray(block);
+    }
+
+    /**
+     * Gives {@code block} a private copy of its array if the array is shared
+     * with a snapshot.
+     * 
+     * @param block the block about to be written.
+     */
+    private static <T> void unshareArray(Block<T> block) {
+        if (block.sharedArray) {
+            block.array = block.array.clone();
+            block.sharedArray = false;
+        }
+    }
+
+    /**
+     * Returns {@code true} if {@code block}, which is no longer linked, may 
+     * be cleared and reused: no reachable snapshot reads its current state 
+     * or its array.
+     * 
+     * @param block the unlinked block.
+     * @return {@code true} if the block may be recycled.
+     */
+    private boolean isRecyclable(Block<T> block) {
+        if (block.sharedArray) {
+            return false;
+        }
+
+        long epoch = block.epoch;
+        return epoch >= snapshotEpoch || !snapshots.hasSnapshotAfter(epoch);
+    }
+
+    /**
+     * Returns the state of {@code block} read by the snapshot of epoch 
+     * {@code epoch}: a copy of the current state if it is older than the 
+     * snapshot, or else the newest version older than the snapshot. The 
+     * current state is read optimistically and validated against the epoch
+     * of the block, which a writer raises before it touches the block.
+     * 
+     * @param <T>   the element type.
+     * @param block the block.
+     * @param epoch the epoch of the snapshot.
+     * @return the state of the block as of the snapshot.
+     */
+    private static <T> Block<T> versionOf(Block<T> block, long epoch) {
+        long blockEpoch = block.epoch;
+
+        if (blockEpoch < epoch) {
+            Block<T> copy = new Block<>(block);
+            VarHandle.acquireFence();
+
+            if (block.epoch == blockEpoch) {
+                return copy;
+            }
+        }
+
+        Block<T> version = block.previousVersion;
+
+        while (version.epoch >= epoch) {
+            version = version.previousVersion;
+        }
+
+        return version;
+    }
+
+    /**
+     * Returns the capacity of a new block in a list of {@code listSize} 
+     * elements.
+     * 
+     * @param listSize the size of the list.
+     * @return the capacity of a new block.
+     */
+    private int nextBlockCapacity(int listSize) {
+        if (!adaptiveBlockCapacityEnabled) {
+            return blockCapacity;
+        }
+
+        int capacity = ceilToPowerOfTwo(
+                Math.max(listSize >>> ADAPTIVE_GROWTH_SHIFT, 
+                         MINIMUM_BLOCK_CAPACITY));
+        return Math.min(capacity, blockCapacity);
+    }
+
+    /**
+     * Returns the capacity of the block receiving {@code count} elements from 
+     * the split of the full block {@code block}.
+     * 
+     * @param block the block being split.
+     * @param count the number of elements the new block receives.
+     * @return the capacity of the new block.
+     */
+    private int splitBlockCapacity(Block<T> block, int count) {
+        int capacity = splitShrinkingEnabled ? 
+                       block.capacity / 2 : 
+                       nextBlockCapacity(size);
+
+        capacity = Math.max(capacity, ceilToPowerOfTwo(count));
+        return Math.max(capacity, MINIMUM_BLOCK_CAPACITY);
+    }
+
+    private Block<T> indexLocateBlock(int index) {
+        Block<T> block = indexRoot;
+        int startIndex = 0;
+
+        while (true) {
+            traversedBlocks++;
+            int leftSize = subtreeSize(block.leftBlock);
+
+            if (index < startIndex + leftSize) {
+                block = block.leftBlock;
+            } else if (index < startIndex + leftSize + block.size) {
+                fingerBlock = block;
+                fingerStartIndex = startIndex + leftSize;
+                return block;
+            } else {
+                startIndex += leftSize + block.size;
+                block = block.rightBlock;
+            }
+        }
+    }
+
+    /**
+     * Returns the block containing the element with the global index 
+     * {@code index} without touching the finger or the lookup counters, so 
+     * that it may be called by concurrent readers.
+     * 
+     * @param index the global index of the element. Must be within range.
+     * @return the block containing the element.
+     */
+    private Block<T> indexFindBlock(int index) {
+        Block<T> block = indexRoot;
+
+        while (true) {
+            int leftSize = subtreeSize(block.leftBlock);
+
+            if (index < leftSize) {
+                block = block.leftBlock;
+            } else if (index < leftSize + block.size) {
+                return block;
+            } else {
+                index -= leftSize + block.size;
+                block = block.rightBlock;
+            }
+        }
+    }
+
+    /**
+     * Returns the global index of the first element in {@code block} by 
+     * walking up the block index.
+     * 
+     * @param block the block in the index.
+     * @return the global index of the first element of {@code block}.
+     */
+    private static <T> int indexStartIndexOf(Block<T> block) {
+        int startIndex = subtreeSize(block.leftBlock);
+
+        while (block.parentBlock != null) {
+            Block<T> parent = block.parentBlock;
+
+            if (parent.rightBlock == block) {
+                startIndex += subtreeSize(parent.leftBlock) + parent.size;
+            }
+
+            block = parent;
+        }
+
+        return startIndex;
+    }
+
+    private void indexInsertRoot(Block<T> block) {
+        block.priority = nextPriority();
+        block.subtreeSize = block.size;
+        indexRoot = block;
+    }
+
+    /**
+     * Inserts {@code block} to the block index right before {@code anchor}.
+     * 
+     * @param anchor the block already in the index.
+     * @param block  the block to insert.
+     */
+    private void indexInsertBefore(Block<T> anchor, Block<T> block) {
+        if (anchor.leftBlock == null) {
+            anchor.leftBlock = block;
+            block.parentBlock = anchor;
+        } else {
+            Block<T> parent = anchor.leftBlock;
+
+            while (parent.rightBlock != null) {
+                parent = parent.rightBlock;
+            }
+
+            parent.rightBlock = block;
+            block.parentBlock = parent;
+        }
+
+        indexFixInsertion(block);
+    }
+
+    /**
+     * Inserts {@code block} to the block index right after {@code anchor}.
+     * 
+     * @param anchor the block already in the index.
+     * @param block  the block to insert.
+     */
+    private void indexInsertAfter(Block<T> anchor, Block<T> block) {
+        if (anchor.rightBlock == null) {
+            anchor.rightBlock = block;
+            block.parentBlock = anchor;
+        } else {
+            Block<T> parent = anchor.rightBlock;
+
+            while (parent.leftBlock != null) {
+                parent = parent.leftBlock;
+            }
+
+            parent.leftBlock = block;
+            block.parentBlock = parent;
+        }
+
+        indexFixInsertion(block);
+    }
+
+    private void indexFixInsertion(Block<T> block) {
+        block.priority = nextPriority();
+        block.subtreeSize = block.size;
+        indexUpdateSize(block.parentBlock, block.size);
+
+        while (block.parentBlock != null 
+                && block.parentBlock.priority < block.priority) {
+            rotateUp(block);
+        }
+    }
+
+    /**
+     * Removes {@code block} from the block index.
+     * 
+     * @param block the block to remove.
+     */
+    private void indexRemove(Block<T> block) {
+        // Rotate the block down until it becomes a leaf:
+        while (block.leftBlock != null || block.rightBlock != null) {
+            Block<T> child;
+
+            if (block.leftBlock == null) {
+                child = block.rightBlock;
+            } else if (block.rightBlock == null) {
+                child = block.leftBlock;
+            } else if (block.leftBlock.priority > block.rightBlock.priority) {
+                child = block.leftBlock;
+            } else {
+                child = block.rightBlock;
+            }
+
+            rotateUp(child);
+        }
+
+        Block<T> parent = block.parentBlock;
+
+        if (parent == null) {
+            indexRoot = null;
+        } else {
+            if (parent.leftBlock == block) {
+                parent.leftBlock = null;
+            } else {
+                parent.rightBlock = null;
+            }
+
+            indexUpdateSize(parent, -block.subtreeSize);
+            block.parentBlock = null;
+        }
+    }
+
+    /**
+     * Merges two block index trees, all the blocks of {@code left} preceding
+     * all the blocks of {@code right}. The parent of the returned root is not
+     * updated.
+     * 
+     * @param left  the root of the left tree, or {@code null}.
+     * @param right the root of the right tree, or {@code null}.
+     * @return the root of the merged tree.
+     */
+    private static <T> Block<T> indexMerge(Block<T> left, Block<T> right) {
+        if (left == null) {
+            return right;
+        }
+
+        if (right == null) {
+            return left;
+        }
+
+        if (left.priority > right.priority) {
+            Block<T> child = indexMerge(left.rightBlock, right);
+            left.rightBlock = child;
+            child.parentBlock = left;
+            updateSubtreeSize(left);
+            return left;
+        }
+
+        Block<T> child = indexMerge(left, right.leftBlock);
+        right.leftBlock = child;
+        child.parentBlock = right;
+        updateSubtreeSize(right);
+        return right;
+    }
+
+    /**
+     * Splits the block index right before {@code block}. This tree keeps the 
+     * blocks preceding {@code block}.
+     * 
+     * @param block the first block of the split-off tree.
+     * @return the root of the tree holding {@code block} and all the blocks 
+     *         after it.
+     */
+    private Block<T> indexSplit(Block<T> block) {
+        // Make the block the root; its left subtree is then the prefix:
+        block.priority = Integer.MAX_VALUE;
+
+        while (block.parentBlock != null) {
+            rotateUp(block);
+        }
+
+        Block<T> leftRoot = block.leftBlock;
+        block.leftBlock = null;
+        updateSubtreeSize(block);
+
+        if (leftRoot != null) {
+            leftRoot.parentBlock = null;
+        }
+
+        // Restore the heap order under a fresh priority:
+        block.priority = nextPriority();
+
+        while (block.rightBlock != null 
+                && block.rightBlock.priority > block.priority) {
+            rotateUp(block.rightBlock);
+        }
+
+        Block<T> rightRoot = indexRoot;
+        indexRoot = leftRoot;
+        return rightRoot;
+    }
+
+    /**
+     * Adds {@code delta} to the subtree sizes of {@code block} and all its 
+     * ancestors in the block index.
+     * 
+     * @param block the block whose size has changed.
+     * @param delta the size change.
+     */
+    private static <T> void indexUpdateSize(Block<T> block, int delta) {
+        while (block != null) {
+            block.subtreeSize += delta;
+            block = block.parentBlock;
+        }
+    }
+
+    /**
+     * Rotates {@code block} above its parent in the block index.
+     * 
+     * @param block the block to rotate up.
+     */
+    private void rotateUp(Block<T> block) {
+        Block<T> parent = block.parentBlock;
+        Block<T> grandParent = parent.parentBlock;
+
+        if (parent.leftBlock == block) {
+            parent.leftBlock = block.rightBlock;
+
+            if (block.rightBlock != null) {
+                block.rightBlock.parentBlock = parent;
+            }
+
+            block.rightBlock = parent;
+        } else {
+            parent.rightBlock = block.leftBlock;
+
+            if (block.leftBlock != null) {
+                block.leftBlock.parentBlock = parent;
+            }
+
+            block.leftBlock = parent;
+        }
+
+        parent.parentBlock = block;
+        block.parentBlock = grandParent;
+
+        if (grandParent == null) {
+            indexRoot = block;
+        } else if (grandParent.leftBlock == parent) {
+            grandParent.leftBlock = block;
+        } else {
+            grandParent.rightBlock = block;
+        }
+
+        updateSubtreeSize(parent);
+        updateSubtreeSize(block);
+    }
+
+    /**
+     * Builds the block index over the current chain of blocks in linear time.
+     * Since the chain is already in order, the treap is built as a Cartesian
+     * tree by maintaining its rightmost path.
+     */
+    private void buildIndex() {
+        indexRoot = null;
+        Block<T> rightmostBlock = null;
+
+        for (Block<T> block = headBlock; 
+                block != null; 
+                block = block.nextBlock) {
+            block.priority = nextPriority();
+            block.leftBlock = null;
+            block.rightBlock = null;
+            Block<T> lastPoppedBlock = null;
+
+            while (rightmostBlock != null 
+                    && rightmostBlock.priority < block.priority) {
+                // The subtree of a popped block is final:
+                updateSubtreeSize(rightmostBlock);
+                lastPoppedBlock = rightmostBlock;
+                rightmostBlock = rightmostBlock.parentBlock;
+            }
+
+            block.leftBlock = lastPoppedBlock;
+
+            if (lastPoppedBlock != null) {
+                lastPoppedBlock.parentBlock = block;
+            }
+
+            block.parentBlock = rightmostBlock;
+
+            if (rightmostBlock == null) {
+                indexRoot = block;
+            } else {
+                rightmostBlock.rightBlock = block;
+            }
+
+            rightmostBlock = block;
+        }
+
+        while (rightmostBlock != null) {
+            updateSubtreeSize(rightmostBlock);
+            rightmostBlock = rightmostBlock.parentBlock;
+        }
+    }
+
+    private void clearIndex() {
+        indexRoot = null;
+
+        for (Block<T> block = headBlock; 
+                block != null; 
+                block = block.nextBlock) {
+            block.parentBlock = null;
+            block.leftBlock = null;
+            block.rightBlock = null;
+        }
+    }
+
+    private static <T> void updateSubtreeSize(Block<T> block) {
+        block.subtreeSize = subtreeSize(block.leftBlock) 
+                          + block.size 
+                          + subtreeSize(block.rightBlock);
+    }
+
+    private static <T> int subtreeSize(Block<T> block) {
+        return block == null ? 0 : block.subtreeSize;
+    }
+
+    private int nextPriority() {
+        // Xorshift:
+        int seed = prioritySeed;
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        prioritySeed = seed;
+        return seed;
+    }
+
+    private void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException(
+                    "fromIndex(" + fromIndex + ") < 0");
+        }
+
+        if (toIndex > size) {
+            throw new IndexOutOfBoundsException(
+                    "toIndex(" + toIndex + ") > (" + size + ")");
+        }
+
+        if (fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        }
+    }
+
+    private static int ceilToPowerOfTwo(int number) {
+        int ret = 1;
+
+        while (ret < number) {
+            ret <<= 1;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Creates an array of {@code length} {@code null} block references. The 
+     * cast is safe since the array never escapes as anything but a 
+     * {@code Block<T>[]}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Block<T>[] newBlockArray(int length) {
+        return (Block<T>[]) new Block<?>[length];
+    }
+
+    /**
+     * This inner class implements a fail-fast list iterator walking the chain 
+     * of blocks.
+     */
+    private final class BlockListIterator implements ListIterator<T> {
+
+        /**
+         * The block holding the element returned by the next call to 
+         * {@code next()}, or the tail block if the cursor is at the end of the
+         * list.
+         */
+        private Block<T> block;
+
+        /**
+         * The logical index of the cursor within {@code block}.
+         */
+        private int offset;
+
+        /**
+         * The global index of the element returned by the next call to 
+         * {@code next()}.
+         */
+        private int nextIndex;
+
+        /**
+         * The block holding the most recently returned element.
+         */
+        private Block<T> lastReturnedBlock;
+
+        /**
+         * The logical index of the most recently returned element within 
+         * {@code lastReturnedBlock}.
+         */
+        private int lastReturnedOffset;
+
+        /**
+         * The global index of the most recently returned element, or -1 if 
+         * there is no such element.
+         */
+        private int lastReturnedIndex = -1;
+
+        private int expectedModCount = modCount;
+
+        BlockListIterator(int index) {
+            nextIndex = index;
+            positionCursor();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+
+        @Override
+        public T next() {
+            checkForComodification();
+
+            if (nextIndex >= size) {
+                throw new NoSuchElementException();
+            }
+
+            if (offset == block.size) {
+                block = block.nextBlock;
+                offset = 0;
+            }
+
+            lastReturnedBlock = block;
+            lastReturnedOffset = offset;
+            lastReturnedIndex = nextIndex;
+            nextIndex++;
+            return block.array[(block.headIndex + offset++) & block.indexMask];
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+
+        @Override
+        public T previous() {
+            checkForComodification();
+
+            if (nextIndex == 0) {
+                throw new NoSuchElementException();
+            }
+
+            if (offset == 0) {
+                block = block.previousBlock;
+                offset = block.size;
+            }
+
+            nextIndex--;
+            offset--;
+            lastReturnedBlock = block;
+            lastReturnedOffset = offset;
+            lastReturnedIndex = nextIndex;
+            return block.array[(block.headIndex + offset) & block.indexMask];
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturnedIndex < 0) {
+                throw new IllegalStateException();
+            }
+
+            checkForComodification();
+            // Point the finger at the block under the cursor so that the 
+            // removal finds it right away:
+            fingerBlock = lastReturnedBlock;
+            fingerStartIndex = lastReturnedIndex - lastReturnedOffset;
+            LinkedBlockList.this.remove(lastReturnedIndex);
+            nextIndex = lastReturnedIndex;
+            lastReturnedIndex = -1;
+            expectedModCount = modCount;
+            positionCursor();
+        }
+
+        @Override
+        public void set(T element) {
+            if (lastReturnedIndex < 0) {
+                throw new IllegalStateException();
+            }
+
+            checkForComodification();
+
+            releaseSnapshot();
+            copyOnWrite(lastReturnedBlock);
+            lastReturnedBlock.array[(lastReturnedBlock.headIndex 
+                                     + lastReturnedOffset) 
+                                    & lastReturnedBlock.indexMask] = element;
+        }
+
+        @Override
+        public void add(T element) {
+            checkForComodification();
+
+            if (block != null) {
+                fingerBlock = block;
+                fingerStartIndex = nextIndex - offset;
+            }
+
+            LinkedBlockList.this.add(nextIndex, element);
+            nextIndex++;
+            lastReturnedIndex = -1;
+            expectedModCount = modCount;
+            positionCursor();
+        }
+
+        /**
+         * Sets {@code block} and {@code offset} to match {@code nextIndex}. 
+         * Right after a modification the finger is at or next to the cursor,
+         * so this takes constant time.
+         */
+        private void positionCursor() {
+            if (nextIndex < size) {
+                block = locateBlock(nextIndex);
+                offset = nextIndex - fingerStartIndex;
+            } else {
+                block = tailBlock;
+                offset = size == 0 ? 0 : tailBlock.size;
+            }
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * This inner class implements a view of a range of this list. Its 
+     * operations are translated to the positional and the bulk operations 
+     * of this list, so that the view profits from the block layout as much 
+     * as the list itself. A structural modification through the view 
+     * updates the sizes of the enclosing views; any other structural 
+     * modification of this list makes the view fail fast.
+     */
+    private final class SubList extends AbstractList<T> {
+
+        /**
+         * The view this view was created from, or {@code null} if it was 
+         * created from the list.
+         */
+        private final SubList parent;
+
+        /**
+         * The index of the first element of this view in the list.
+         */
+        private final int offset;
+
+        private int size;
+
+        /**
+         * The modification count of the list this view is in sync with. The
+         * {@code modCount} inherited by the view is not used.
+         */
+        private int expectedModCount = LinkedBlockList.this.modCount;
+
+        SubList(SubList parent, int offset, int size) {
+            this.parent = parent;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public T get(int index) {
+            checkAccessIndex(index);
+            checkForComodification();
+            return LinkedBlockList.this.get(offset + index);
+        }
+
+        @Override
+        public T set(int index, T element) {
+            checkAccessIndex(index);
+            checkForComodification();
+            return LinkedBlockList.this.set(offset + index, element);
+        }
+
+        @Override
+        public void add(int index, T element) {
+            checkAddIndex(index);
+            checkForComodification();
+            LinkedBlockList.this.add(offset + index, element);
+            sizeChanged(1);
+        }
+
+        @Override
+        public T remove(int index) {
+            checkAccessIndex(index);
+            checkForComodification();
+            T element = LinkedBlockList.this.remove(offset + index);
+            sizeChanged(-1);
+            return element;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends T> collection) {
+            return addAll(size, collection);
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends T> collection) {
+            checkAddIndex(index);
+            checkForComodification();
+            int listSize = LinkedBlockList.this.size;
+
+            if (!LinkedBlockList.this.addAll(offset + index, collection)) {
+                return false;
+            }
+
+            sizeChanged(LinkedBlockList.this.size - listSize);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            removeRange(0, size);
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            checkForComodification();
+            LinkedBlockList.this.removeRange(offset + fromIndex, 
+                                             offset + toIndex);
+            sizeChanged(fromIndex - toIndex);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            checkForComodification();
+            int index = LinkedBlockList.this.indexOf(o, 
+                                                     offset, 
+                                                     offset + size);
+            return index < 0 ? -1 : index - offset;
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            checkForComodification();
+            int index = LinkedBlockList.this.lastIndexOf(o, 
+                                                         offset, 
+                                                         offset + size);
+            return index < 0 ? -1 : index - offset;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return listIterator(0);
+        }
+
+        @Override
+        public ListIterator<T> listIterator(int index) {
+            checkAddIndex(index);
+            checkForComodification();
+            return new SubListIterator(offset + index);
+        }
+
+        @Override
+        public List<T> subList(int fromIndex, int toIndex) {
+            if (fromIndex < 0) {
+                throw new IndexOutOfBoundsException(
+                        "fromIndex(" + fromIndex + ") < 0");
+            }
+
+            if (toIndex > size) {
+                throw new IndexOutOfBoundsException(
+                        "toIndex(" + toIndex + ") > (" + size + ")");
+            }
+
+            if (fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException(
+                        "fromIndex(" + fromIndex + ") > toIndex(" 
+                                + toIndex + ")");
+            }
+
+            checkForComodification();
+            return new SubList(this, offset + fromIndex, toIndex - fromIndex);
+        }
+
+        @Override
+        public int size() {
+            checkForComodification();
+            return size;
+        }
+
+        /**
+         * Updates the sizes and the expected modification counts of this 
+         * view and the views enclosing it after a structural modification 
+         * through this view.
+         * 
+         * @param delta the size change.
+         */
+        private void sizeChanged(int delta) {
+            for (SubList view = this; view != null; view = view.parent) {
+                view.size += delta;
+                view.expectedModCount = LinkedBlockList.this.modCount;
+            }
+        }
+
+        private void checkAccessIndex(int index) {
+            if (index < 0) {
+                throw new IndexOutOfBoundsException(
+                        "index(" + index + ") < 0");
+            }
+
+            if (index >= size) {
+                throw new IndexOutOfBoundsException(
+                        "index(" + index + ") >= (" + size + ")");
+            }
+        }
+
+        private void checkAddIndex(int index) {
+            if (index < 0) {
+                throw new IndexOutOfBoundsException(
+                        "index(" + index + ") < 0");
+            }
+
+            if (index > size) {
+                throw new IndexOutOfBoundsException(
+                        "index(" + index + ") > (" + size + ")");
+            }
+        }
+
+        private void checkForComodification() {
+            if (LinkedBlockList.this.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        /**
+         * This inner class implements a list iterator over the view by 
+         * wrapping a list iterator of the list, which walks the blocks 
+         * directly, and stopping it at the ends of the view.
+         */
+        private final class SubListIterator implements ListIterator<T> {
+
+            private final BlockListIterator iterator;
+
+            SubListIterator(int index) {
+                iterator = new BlockListIterator(index);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.nextIndex() < offset + size;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    checkForComodification();
+                    throw new NoSuchElementException();
+                }
+
+                return iterator.next();
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return iterator.nextIndex() > offset;
+            }
+
+            @Override
+            public T previous() {
+                if (!hasPrevious()) {
+                    checkForComodification();
+                    throw new NoSuchElementException();
+                }
+
+                return iterator.previous();
+            }
+
+            @Override
+            public int nextIndex() {
+                return iterator.nextIndex() - offset;
+            }
+
+            @Override
+            public int previousIndex() {
+                return iterator.previousIndex() - offset;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                sizeChanged(-1);
+            }
+
+            @Override
+            public void set(T element) {
+                iterator.set(element);
+            }
+
+            @Override
+            public void add(T element) {
+                iterator.add(element);
+                sizeChanged(1);
+            }
+        }
+    }
+
+    /**
+     * This inner class implements the reverse-ordered view returned by 
+     * {@link #reversed()}. The element at index {@code i} of the view is the 
+     * element at index {@code size() - 1 - i} of the list, and each 
+     * operation of the view is translated to the mirrored operation of the 
+     * list, so that the view profits from the block layout as much as the 
+     * list itself.
+     */
+    public final class ReversedList extends AbstractList<T> 
+                                    implements Deque<T> {
+
+        private ReversedList() {}
+
+        @Override
+        public T get(int index) {
+            checkAccessIndex(index);
+            return LinkedBlockList.this.get(size - 1 - index);
+        }
+
+        @Override
+        public T set(int index, T element) {
+            checkAccessIndex(index);
+            return LinkedBlockList.this.set(size - 1 - index, element);
+        }
+
+        @Override
+        public void add(int index, T element) {
+            checkAddIndex(index);
+            LinkedBlockList.this.add(size - index, element);
+        }
+
+        @Override
+        public T remove(int index) {
+            checkAccessIndex(index);
+            return LinkedBlockList.this.remove(size - 1 - index);
+        }
+
+        @Override
+        public boolean add(T element) {
+            LinkedBlockList.this.addFirst(element);
+            return true;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return LinkedBlockList.this.removeLastOccurrence(o);
+        }
+
+        @Override
+        public void clear() {
+            LinkedBlockList.this.clear();
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            LinkedBlockList.this.removeRange(size - toIndex, size - fromIndex);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return LinkedBlockList.this.contains(o);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            int index = LinkedBlockList.this.lastIndexOf(o);
+            return index < 0 ? -1 : size - 1 - index;
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            int index = LinkedBlockList.this.indexOf(o);
+            return index < 0 ? -1 : size - 1 - index;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return LinkedBlockList.this.descendingIterator();
+        }
+
+        @Override
+        public ListIterator<T> listIterator(int index) {
+            checkAddIndex(index);
+            return new ReversedListIterator(size - index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void addFirst(T element) {
+            LinkedBlockList.this.addLast(element);
+        }
+
+        @Override
+        public void addLast(T element) {
+            LinkedBlockList.this.addFirst(element);
+        }
+
+        @Override
+        public boolean offerFirst(T element) {
+            return LinkedBlockList.this.offerLast(element);
+        }
+
+        @Override
+        public boolean offerLast(T element) {
+            return LinkedBlockList.this.offerFirst(element);
+        }
+
+        @Override
+        public T removeFirst() {
+            return LinkedBlockList.this.removeLast();
+        }
+
+        @Override
+        public T removeLast() {
+            return LinkedBlockList.this.removeFirst();
+        }
+
+        @Override
+        public T pollFirst() {
+            return LinkedBlockList.this.pollLast();
+        }
+
+        @Override
+        public T pollLast() {
+            return LinkedBlockList.this.pollFirst();
+        }
+
+        @Override
+        public T getFirst() {
+            return LinkedBlockList.this.getLast();
+        }
+
+        @Override
+        public T getLast() {
+            return LinkedBlockList.this.getFirst();
+        }
+
+        @Override
+        public T peekFirst() {
+            return LinkedBlockList.this.peekLast();
+        }
+
+        @Override
+        public T peekLast() {
+            return LinkedBlockList.this.peekFirst();
+        }
+
+        @Override
+        public boolean removeFirstOccurrence(Object o) {
+            return LinkedBlockList.this.removeLastOccurrence(o);
+        }
+
+        @Override
+        public boolean removeLastOccurrence(Object o) {
+            return LinkedBlockList.this.removeFirstOccurrence(o);
+        }
+
+        @Override
+        public boolean offer(T element) {
+            return offerLast(element);
+        }
+
+        @Override
+        public T remove() {
+            return removeFirst();
+        }
+
+        @Override
+        public T poll() {
+            return pollFirst();
+        }
+
+        @Override
+        public T element() {
+            return getFirst();
+        }
+
+        @Override
+        public T peek() {
+            return peekFirst();
+        }
+
+        @Override
+        public void push(T element) {
+            addFirst(element);
+        }
+
+        @Override
+        public T pop() {
+            return removeFirst();
+        }
+
+        @Override
+        public Iterator<T> descendingIterator() {
+            return LinkedBlockList.this.iterator();
+        }
+
+        /**
+         * Returns the list this view reverses.
+         * 
+         * @return the list.
+         */
+        public LinkedBlockList<T> reversed() {
+            return LinkedBlockList.this;
+        }
+
+        /**
+         * This inner class implements a list iterator over the view by 
+         * walking a list iterator of the list backwards.
+         */
+        private final class ReversedListIterator implements ListIterator<T> {
+
+            private final BlockListIterator iterator;
+
+            /**
+             * Tells whether {@code remove()} and {@code set(Object)} may be 
+             * called. The wrapped iterator cannot tell, since {@code add}
+             * steps it back over the inserted element.
+             */
+            private boolean canModify;
+
+            ReversedListIterator(int index) {
+                iterator = new BlockListIterator(index);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasPrevious();
+            }
+
+            @Override
+            public T next() {
+                T element = iterator.previous();
+                canModify = true;
+                return element;
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T previous() {
+                T element = iterator.next();
+                canModify = true;
+                return element;
+            }
+
+            @Override
+            public int nextIndex() {
+                return size - 1 - iterator.previousIndex();
+            }
+
+            @Override
+            public int previousIndex() {
+                return size - 1 - iterator.nextIndex();
+            }
+
+            @Override
+            public void remove() {
+                checkCanModify();
+                iterator.remove();
+                canModify = false;
+            }
+
+            @Override
+            public void set(T element) {
+                checkCanModify();
+                iterator.set(element);
+            }
+
+            @Override
+            public void add(T element) {
+                iterator.add(element);
+                // Step back so that previous() returns the new element:
+                iterator.previous();
+                canModify = false;
+            }
+
+            private void checkCanModify() {
+                if (!canModify) {
+                    throw new IllegalStateException();
+                }
+            }
+        }
+    }
+
+    /**
+     * This inner class implements a fail-fast spliterator splitting on block
+     * boundaries. Each spliterator covers a range of elements ending at the 
+     * end of a block.
+     */
+    private final class BlockSpliterator implements Spliterator<T> {
+
+        /**
+         * The block holding the next element.
+         */
+        private Block<T> block;
+
+        /**
+         * The logical index of the next element within {@code block}.
+         */
+        private int offset;
+
+        /**
+         * The number of elements left to traverse.
+         */
+        private int remaining;
+
+        /**
+         * The global index of the next element.
+         */
+        private int index;
+
+        /**
+         * The number of blocks overlapping the remaining range, or -1 if 
+         * unknown.
+         */
+        private int blockCount;
+
+        private final int expectedModCount = modCount;
+
+        BlockSpliterator(Block<T> block, 
+                         int offset, 
+                         int remaining, 
+                         int index, 
+                         int blockCount) {
+            this.block = block;
+            this.offset = offset;
+            this.remaining = remaining;
+            this.index = index;
+            this.blockCount = blockCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action, "The input action is null.");
+
+            if (remaining == 0) {
+                return false;
+            }
+
+            if (offset == block.size) {
+                block = block.nextBlock;
+                offset = 0;
+
+                if (blockCount > 0) {
+                    blockCount--;
+                }
+            }
+
+            T element = 
+                    block.array[(block.headIndex + offset) & block.indexMask];
+            offset++;
+            index++;
+            remaining--;
+            action.accept(element);
+            checkForComodification();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action, "The input action is null.");
+
+            while (remaining > 0) {
+                if (offset == block.size) {
+                    block = block.nextBlock;
+                    offset = 0;
+                }
+
+                int count = Math.min(remaining, block.size - offset);
+                T[] array = block.array;
+                int headIndex = block.headIndex + offset;
+                int mask = block.indexMask;
+
+                for (int i = 0; i < count; i++) {
+                    action.accept(array[(headIndex + i) & mask]);
+                }
+
+                offset += count;
+                index += count;
+                remaining -= count;
+            }
+
+            blockCount = 0;
+            checkForComodification();
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            checkForComodification();
+
+            if (remaining > 0 && offset == block.size) {
+                block = block.nextBlock;
+                offset = 0;
+
+                if (blockCount > 0) {
+                    blockCount--;
+                }
+            }
+
+            if (remaining == 0 || remaining <= block.size - offset) {
+                // The range is empty or within a single block:
+                return null;
+            }
+
+            Block<T> splitBlock;
+            int prefixSize;
+            int prefixBlockCount;
+
+            if (blockIndexEnabled) {
+                // Cut at the block boundary closest to the middle element:
+                int middleIndex = index + remaining / 2;
+                Block<T> middleBlock = indexFindBlock(middleIndex);
+                int middleBlockStartIndex = indexStartIndexOf(middleBlock);
+                int middleBlockEndIndex = 
+                        middleBlockStartIndex + middleBlock.size;
+
+                if (middleBlockStartIndex > index 
+                        && (middleIndex - middleBlockStartIndex 
+                            <= middleBlockEndIndex - middleIndex
+                            || middleBlockEndIndex == index + remaining)) {
+                    splitBlock = middleBlock;
+                    prefixSize = middleBlockStartIndex - index;
+                } else {
+                    splitBlock = middleBlock.nextBlock;
+                    prefixSize = middleBlockEndIndex - index;
+                }
+
+                prefixBlockCount = -1;
+            } else {
+                if (blockCount < 0) {
+                    blockCount = countBlocks();
+                }
+
+                // Cut at the middle block:
+                prefixBlockCount = blockCount / 2;
+                splitBlock = block;
+                prefixSize = -offset;
+
+                for (int i = 0; i < prefixBlockCount; i++) {
+                    prefixSize += splitBlock.size;
+                    splitBlock = splitBlock.nextBlock;
+                }
+            }
+
+            Spliterator<T> prefix = new BlockSpliterator(block, 
+                                                         offset, 
+                                                         prefixSize, 
+                                                         index, 
+                                                         prefixBlockCount);
+            block = splitBlock;
+            offset = 0;
+            index += prefixSize;
+            remaining -= prefixSize;
+
+            if (blockCount >= 0 && prefixBlockCount >= 0) {
+                blockCount -= prefixBlockCount;
+            } else {
+                blockCount = -1;
+            }
+
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED 
+                 | Spliterator.SIZED 
+                 | Spliterator.SUBSIZED;
+        }
+
+        private int countBlocks() {
+            int count = 0;
+            int elements = -offset;
+
+            for (Block<T> b = block; elements < remaining; b = b.nextBlock) {
+                elements += b.size;
+                count++;
+            }
+
+            return count;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * This static inner class implements the immutable snapshots. A snapshot
+     * reads the blocks of the list through {@link #versionOf(Block, long)}, 
+     * which returns the state each block had when the snapshot was taken; 
+     * random access goes through a directory of those states built on first
+     * use.
+     * 
+     * @param <T> the element type.
+     */
+    private static final class Snapshot<T> extends AbstractList<T> {
+
+        /**
+         * The first block of the snapshot.
+         */
+        private final Block<T> headBlock;
+
+        /**
+         * The number of elements in the snapshot.
+         */
+        private final int size;
+
+        /**
+         * The epoch of the snapshot.
+         */
+        private final long epoch;
+
+        /**
+         * The block directory, or {@code null} if not built yet. Readers 
+         * racing to build it build equal directories.
+         */
+        private Directory<T> directory;
+
+        Snapshot(Block<T> headBlock, int size, long epoch) {
+            this.headBlock = headBlock;
+            this.size = size;
+            this.epoch = epoch;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(
+                        "index(" + index + ") is not within [0, " + size + 
+                        ")");
+            }
+
+            Directory<T> directory = this.directory;
+
+            if (directory == null) {
+                directory = new Directory<>(headBlock, size, epoch);
+                this.directory = directory;
+            }
+
+            return directory.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+
+                private Block<T> block = versionOf(headBlock, epoch);
+                private int offset;
+                private int remaining = size;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @Override
+                public T next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+
+                    if (offset == block.size) {
+                        block = versionOf(block.nextBlock, epoch);
+                        offset = 0;
+                    }
+
+                    remaining--;
+                    return block.get(offset++);
+                }
+            };
+        }
+
+        @Override
+        public Object[] toArray() {
+            Object[] array = new Object[size];
+            int targetIndex = 0;
+
+            for (Block<T> block = versionOf(headBlock, epoch); 
+                    ; 
+                    block = versionOf(block.nextBlock, epoch)) {
+                for (int i = 0; i < block.size; i++) {
+                    array[targetIndex++] = block.get(i);
+                }
+
+                if (targetIndex == size) {
+                    return array;
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps the global indices of a snapshot to the states of its blocks by 
+     * binary search.
+     * 
+     * @param <T> the element type.
+     */
+    private static final class Directory<T> {
+
+        private final Block<T>[] blocks;
+
+        /**
+         * The entry {@code i} holds the global index of the first element of
+         * {@code blocks[i]}.
+         */
+        private final int[] startIndices;
+
+        Directory(Block<T> headBlock, int size, long epoch) {
+            List<Block<T>> versions = new ArrayList<>();
+            int elements = 0;
+
+            for (Block<T> block = headBlock; elements < size;) {
+                Block<T> version = versionOf(block, epoch);
+                versions.add(version);
+                elements += version.size;
+                block = version.nextBlock;
+            }
+
+            this.blocks = versions.toArray(newBlockArray(versions.size()));
+            this.startIndices = new int[blocks.length];
+            elements = 0;
+
+            for (int i = 0; i < blocks.length; i++) {
+                startIndices[i] = elements;
+                elements += blocks[i].size;
+            }
+        }
+
+        T get(int index) {
+            int i = Arrays.binarySearch(startIndices, index);
+
+            if (i < 0) {
+                i = -i - 2;
+            }
+
+            return blocks[i].get(index - startIndices[i]);
+        }
+    }
+
+    /**
+     * Keeps track of the snapshots of a list that are still reachable, by 
+     * their epochs, so that the list keeps only the block versions some 
+     * snapshot may still read. A snapshot is dropped once the garbage 
+     * collector clears the weak reference to it. Used by the writing thread
+     * only.
+     */
+    private static final class SnapshotRegistry {
+
+        /**
+         * A weak reference to a snapshot remembering its epoch.
+         */
+        private static final class SnapshotReference 
+                extends WeakReference<Snapshot<?>> {
+
+            final long epoch;
+
+            SnapshotReference(Snapshot<?> snapshot, 
+                              long epoch, 
+                              ReferenceQueue<Snapshot<?>> queue) {
+                super(snapshot, queue);
+                this.epoch = epoch;
+            }
+        }
+
+        /**
+         * Maps the epochs to the references of the snapshots not known to be
+         * unreachable.
+         */
+        private final TreeMap<Long, SnapshotReference> references = 
+                new TreeMap<>();
+
+        /**
+         * Receives the references cleared by the garbage collector.
+         */
+        private final ReferenceQueue<Snapshot<?>> queue = 
+                new ReferenceQueue<>();
+
+        /**
+         * Indicates whether a snapshot has been dropped since the last call 
+         * to {@link #takeDroppedSnapshots()}.
+         */
+        private boolean snapshotsDropped;
+
+        void register(Snapshot<?> snapshot, long epoch) {
+            expungeClearedReferences();
+            references.put(epoch, 
+                           new SnapshotReference(snapshot, epoch, queue));
+        }
+
+        /**
+         * Returns {@code true} if a snapshot of an epoch after 
+         * {@code epoch} may be reachable.
+         */
+        boolean hasSnapshotAfter(long epoch) {
+            expungeClearedReferences();
+            return references.higherKey(epoch) != null;
+        }
+
+        /**
+         * Returns {@code true} if a snapshot of an epoch within 
+         * {@code (fromEpoch, toEpoch]} may be reachable.
+         */
+        boolean hasSnapshotWithin(long fromEpoch, long toEpoch) {
+            expungeClearedReferences();
+            Long epoch = references.higherKey(fromEpoch);
+            return epoch != null && epoch <= toEpoch;
+        }
+
+        /**
+         * Returns {@code true} if a snapshot has been dropped since the last
+         * call, and so the versions only it read may be pruned.
+         */
+        boolean takeDroppedSnapshots() {
+            expungeClearedReferences();
+            boolean dropped = snapshotsDropped;
+            snapshotsDropped = false;
+            return dropped;
+        }
+
+        private void expungeClearedReferences() {
+            for (Object reference; (reference = queue.poll()) != null;) {
+                references.remove(((SnapshotReference) reference).epoch);
+                snapshotsDropped = true;
+            }
+        }
+    }
+
+    /**
+     * This static inner class implements the rope on which 
+     * {@link LinkedBlockList#applyBatch(Iterable)} replays the edits. The 
+     * rope is a treap of pieces in list order, augmented with the number of 
+     * elements in their subtrees. A piece is either a run of the elements of
+     * the list, given by their indices before the batch, or a single element
+     * inserted or set by the batch. An edit inside a run cuts it in two, so 
+     * that {@code k} edits make at most {@code 2k + 1} pieces.
+     * 
+     * @param <T> the element type.
+     */
+    private static final class Rope<T> {
+
+        static final class Piece<T> {
+
+            /**
+             * The index of the first element of the run before the batch, or
+             * {@code -1} if this piece is a single element of the batch.
+             */
+            final int startIndex;
+
+            /**
+             * The number of elements in this piece.
+             */
+            int length;
+
+            /**
+             * The element of the batch, if this piece is one.
+             */
+            final T element;
+
+            final int priority;
+
+            /**
+             * The total number of elements in the subtree rooted at this 
+             * piece.
+             */
+            int subtreeLength;
+
+            Piece<T> leftPiece;
+            Piece<T> rightPiece;
+
+            Piece(int startIndex, int length, T element, int priority) {
+                this.startIndex = startIndex;
+                this.length = length;
+                this.element = element;
+                this.priority = priority;
+                this.subtreeLength = length;
+            }
+        }
+
+        private Piece<T> root;
+
+        /**
+         * The state of the pseudorandom generator producing the priorities.
+         */
+        private int prioritySeed = 0x2545f491;
+
+        /**
+         * The parts produced by the last {@link #split(Piece, int)}.
+         */
+        private Piece<T> splitLeft;
+        private Piece<T> splitRight;
+
+        Rope(int size) {
+            if (size > 0) {
+                root = new Piece<>(0, size, null, nextPriority());
+            }
+        }
+
+        int size() {
+            return subtreeLength(root);
+        }
+
+        void insert(int index, T element) {
+            split(root, index);
+            Piece<T> rightPart = splitRight;
+            root = merge(merge(splitLeft, elementPiece(element)), rightPart);
+        }
+
+        void remove(int index) {
+            split(root, index);
+            Piece<T> leftPart = splitLeft;
+            split(splitRight, 1);
+            root = merge(leftPart, splitRight);
+        }
+
+        void set(int index, T element) {
+            split(root, index);
+            Piece<T> leftPart = splitLeft;
+            split(splitRight, 1);
+            root = merge(leftPart, merge(elementPiece(element), splitRight));
+        }
+
+        /**
+         * Returns the pieces in list order.
+         * 
+         * @return the list of pieces.
+         */
+        List<Piece<T>> pieces() {
+            List<Piece<T>> pieces = new ArrayList<>();
+            Deque<Piece<T>> stack = new ArrayDeque<>();
+            Piece<T> piece = root;
+
+            while (piece != null || !stack.isEmpty()) {
+                while (piece != null) {
+                    stack.push(piece);
+                    piece = piece.leftPiece;
+                }
+
+                piece = stack.pop();
+                pieces.add(piece);
+                piece = piece.rightPiece;
+            }
+
+            return pieces;
+        }
+
+        /**
+         * Splits the subtree rooted at {@code piece} into the first 
+         * {@code index} elements and the rest, stored in {@code splitLeft} 
+         * and {@code splitRight}, cutting a run if {@code index} falls 
+         * inside it.
+         * 
+         * @param piece the root of the subtree to split.
+         * @param index the number of elements going to the left part.
+         */
+        private void split(Piece<T> piece, int index) {
+            if (piece == null) {
+                splitLeft = null;
+                splitRight = null;
+                return;
+            }
+
+            int leftLength = subtreeLength(piece.leftPiece);
+
+            if (index <= leftLength) {
+                split(piece.leftPiece, index);
+                piece.leftPiece = splitRight;
+                updateSubtreeLength(piece);
+                splitRight = piece;
+            } else if (index >= leftLength + piece.length) {
+                split(piece.rightPiece, index - leftLength - piece.length);
+                piece.rightPiece = splitLeft;
+                updateSubtreeLength(piece);
+                splitLeft = piece;
+            } else {
+                // Only a run is longer than one element:
+                int offset = index - leftLength;
+                Piece<T> tailPiece = new Piece<>(piece.startIndex + offset, 
+                                                 piece.length - offset, 
+                                                 null,
+                                                 nextPriority());
+                Piece<T> rightPiece = piece.rightPiece;
+                piece.length = offset;
+                piece.rightPiece = null;
+                updateSubtreeLength(piece);
+                splitLeft = piece;
+                splitRight = merge(tailPiece, rightPiece);
+            }
+        }
+
+        private static <T> Piece<T> merge(Piece<T> left, Piece<T> right) {
+            if (left == null) {
+                return right;
+            }
+
+            if (right == null) {
+                return left;
+            }
+
+            if (left.priority > right.priority) {
+                left.rightPiece = merge(left.rightPiece, right);
+                updateSubtreeLength(left);
+                return left;
+            }
+
+            right.leftPiece = merge(left, right.leftPiece);
+            updateSubtreeLength(right);
+            return right;
+        }
+
+        private Piece<T> elementPiece(T element) {
+            return new Piece<>(-1, 1, element, nextPriority());
+        }
+
+        private static <T> void updateSubtreeLength(Piece<T> piece) {
+            piece.subtreeLength = subtreeLength(piece.leftPiece) 
+                                + piece.length 
+                                + subtreeLength(piece.rightPiece);
+        }
+
+        private static <T> int subtreeLength(Piece<T> piece) {
+            return piece == null ? 0 : piece.subtreeLength;
+        }
+
+        private int nextPriority() {
+            // Xorshift:
+            int seed = prioritySeed;
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            prioritySeed = seed;
+            return seed;
+        }
+    }
+
+    /**
+     * This static inner class implements the serialized form of a list: the 
+     * block capacity, the size and the settings of the list, followed by the 
+     * elements of each block in order. Deserialization fills full blocks 
+     * directly and builds the block index, if enabled, once at the end.
+     * 
+     * @param <T> the element type.
+     */
+    private static final class SerializationProxy<T> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The list being serialized, or the list deserialized.
+         */
+        private transient LinkedBlockList<T> list;
+
+        SerializationProxy(LinkedBlockList<T> list) {
+            this.list = list;
+        }
+
+        private void writeObject(ObjectOutputStream stream) 
+                throws IOException {
+            stream.defaultWriteObject();
+            stream.writeInt(list.blockCapacity);
+            stream.writeInt(list.size);
+            stream.writeFloat(list.minimumFillFactor);
+            stream.writeBoolean(list.blockIndexEnabled);
+            stream.writeBoolean(list.adaptiveBlockCapacityEnabled);
+            stream.writeBoolean(list.splitShrinkingEnabled);
+            stream.writeInt(list.blockPoolCapacity);
+            stream.writeBoolean(list.autoTuningEnabled);
+
+            for (Block<T> block = list.headBlock; 
+                    block != null; 
+                    block = block.nextBlock) {
+                for (int i = 0; i < block.size; i++) {
+                    stream.writeObject(block.get(i));
+                }
+            }
+        }
+
+        private void readObject(ObjectInputStream stream) 
+                throws IOException, ClassNotFoundException {
+            stream.defaultReadObject();
+            int blockCapacity = stream.readInt();
+            int size = stream.readInt();
+
+            if (blockCapacity < MINIMUM_BLOCK_CAPACITY 
+                    || Integer.bitCount(blockCapacity) != 1 
+                    || size < 0) {
+                throw new InvalidObjectException(
+                        "Invalid block capacity " + blockCapacity + 
+                        " or size " + size + ".");
+            }
+
+            LinkedBlockList<T> list = new LinkedBlockList<>(blockCapacity);
+
+            try {
+                list.setMinimumFillFactor(stream.readFloat());
+                boolean blockIndexEnabled = stream.readBoolean();
+                list.adaptiveBlockCapacityEnabled = stream.readBoolean();
+                list.splitShrinkingEnabled = stream.readBoolean();
+                list.setBlockPoolCapacity(stream.readInt());
+                list.setAutoTuningEnabled(stream.readBoolean());
+
+                while (list.size < size) {
+                    int count = Math.min(size - list.size, blockCapacity);
+                    Block<T> block = list.allocateBlock(blockCapacity);
+
+                    for (int i = 0; i < count; i++) {
+                        @SuppressWarnings("unchecked")
+                        T element = (T) stream.readObject();
+                        block.array[i] = element;
+                    }
+
+                    block.size = count;
+
+                    if (list.tailBlock == null) {
+                        list.linkOnlyBlock(block);
+                    } else {
+                        list.linkBlockAfter(list.tailBlock, block);
+                    }
+
+                    list.size += count;
+                }
+
+                list.setBlockIndexEnabled(blockIndexEnabled);
+            } catch (IllegalArgumentException ex) {
+                InvalidObjectException exception = 
+                        new InvalidObjectException(ex.getMessage());
+                exception.initCause(ex);
+                throw exception;
+            }
+
+            this.list = list;
+        }
+
+        private Object readResolve() {
+            return list;
+        }
     }
 }
@@ -0,0 +1,63 @@
+package net.coderodde.util.experimental;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * This class implements the Flight Recorder event committed by an
+ * instrumented {@link LinkedBlockList} for a positional operation taking
+ * longer than the threshold. The fields tell whether the time went into
+ * walking the blocks, shifting the elements, or relinking the chain.
+ *
+ * @author Rodion "rodde" Efremov
+ * @see LinkedBlockList#isInstrumented()
+ */
+@Name("net.coderodde.util.experimental.LinkedBlockListOperation")
+@Label("Linked Block List Operation")
+@Category({"Java Application", "Collections"})
+@Description("A slow positional operation on a LinkedBlockList.")
+@Threshold("10 us")
+final class LinkedBlockListEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Index")
+    int index;
+
+    @Label("List Size")
+    int listSize;
+
+    @Label("Block Capacity")
+    int blockCapacity;
+
+    @Label("Blocks")
+    int blocks;
+
+    @Label("Block Index Enabled")
+    boolean blockIndexEnabled;
+
+    @Label("Blocks Traversed")
+    int blocksTraversed;
+
+    @Label("Elements Shifted")
+    int elementsShifted;
+
+    @Label("Block Splits")
+    int blockSplits;
+
+    @Label("Block Unlinks")
+    int blockUnlinks;
+
+    /**
+     * The counters of the list when the operation began. Transient fields are
+     * not recorded.
+     */
+    transient long startTraversedBlocks;
+    transient long startSplits;
+    transient long startUnlinks;
+}
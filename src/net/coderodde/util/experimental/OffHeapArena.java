@@ -0,0 +1,187 @@
+package net.coderodde.util.experimental;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * This class implements a pooled arena of fixed-size native memory blocks.
+ * The arena reserves large direct slabs and carves them into block buffers;
+ * the released buffers are kept in a free list and handed out again before a
+ * new slab is reserved. The slabs themselves are returned to the operating
+ * system when all the blocks are released at once, or when the arena is 
+ * closed.
+ *
+ * @author Rodion "rodde" Efremov
+ */
+final class OffHeapArena implements AutoCloseable {
+
+    /**
+     * The preferred size of a slab in bytes.
+     */
+    private static final int SLAB_BYTES = 1 << 20;
+
+    /**
+     * The {@code sun.misc.Unsafe} instance used to free the slabs eagerly, or
+     * {@code null} if it is not available, in which case the slabs are left
+     * to their cleaners.
+     */
+    private static final Object UNSAFE;
+
+    /**
+     * The {@code Unsafe.invokeCleaner(ByteBuffer)} method.
+     */
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+                                                  ByteBuffer.class);
+            unsafe = field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            invokeCleaner = null;
+        }
+
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * The number of bytes in each block.
+     */
+    private final int blockBytes;
+
+    /**
+     * The number of blocks carved out of each slab.
+     */
+    private final int blocksPerSlab;
+
+    /**
+     * All the slabs reserved so far.
+     */
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+
+    /**
+     * The block buffers not currently in use.
+     */
+    private final Deque<LongBuffer> freeBlocks = new ArrayDeque<>();
+
+    private boolean closed;
+
+    /**
+     * Constructs an arena of blocks of {@code blockCapacity} longs each.
+     *
+     * @param blockCapacity the number of longs per block.
+     */
+    OffHeapArena(int blockCapacity) {
+        this.blockBytes = Math.multiplyExact(blockCapacity, Long.BYTES);
+        this.blocksPerSlab = Math.max(1, SLAB_BYTES / blockBytes);
+    }
+
+    /**
+     * Returns a block buffer of {@code blockCapacity} longs. The contents of
+     * the buffer are unspecified.
+     *
+     * @return a block buffer.
+     * @throws IllegalStateException if this arena is closed.
+     */
+    LongBuffer allocate() {
+        if (closed) {
+            throw new IllegalStateException("The arena is closed.");
+        }
+
+        if (freeBlocks.isEmpty()) {
+            reserveSlab();
+        }
+
+        return freeBlocks.pop();
+    }
+
+    /**
+     * Returns {@code buffer} to the free list of this arena.
+     *
+     * @param buffer the buffer obtained from {@link #allocate()}.
+     */
+    void release(LongBuffer buffer) {
+        freeBlocks.push(buffer);
+    }
+
+    /**
+     * Releases all the blocks at once and frees all the slabs.
+     */
+    void releaseAll() {
+        freeSlabs();
+    }
+
+    /**
+     * Returns the number of native bytes currently reserved by this arena.
+     *
+     * @return the number of reserved bytes.
+     */
+    long getReservedBytes() {
+        return (long) slabs.size() * blocksPerSlab * blockBytes;
+    }
+
+    /**
+     * Frees all the slabs. Any subsequent allocation throws.
+     */
+    @Override
+    public void close() {
+        releaseAll();
+        closed = true;
+    }
+
+    private void reserveSlab() {
+        ByteBuffer slab = ByteBuffer.allocateDirect(blocksPerSlab * blockBytes)
+                                    .order(ByteOrder.nativeOrder());
+        slabs.add(slab);
+
+        for (int i = blocksPerSlab - 1; i >= 0; i--) {
+            ByteBuffer block = slab.duplicate();
+            block.position(i * blockBytes);
+            block.limit((i + 1) * blockBytes);
+            freeBlocks.push(block.slice()
+                                 .order(ByteOrder.nativeOrder())
+                                 .asLongBuffer());
+        }
+    }
+
+    /**
+     * Frees the native memory of {@code buffer}, or unmaps it if it is a 
+     * mapped buffer, without waiting for the buffer to become unreachable. 
+     * The buffer and all its views must not be used afterwards.
+     * 
+     * @param buffer the direct buffer, not a slice or a duplicate.
+     */
+    static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException ex) {
+                // The cleaner will run once the buffer is unreachable.
+            }
+        }
+    }
+
+    private void freeSlabs() {
+        freeBlocks.clear();
+
+        for (ByteBuffer slab : slabs) {
+            free(slab);
+        }
+
+        slabs.clear();
+    }
+}
@@ -0,0 +1,1117 @@
+package net.coderodde.util.experimental;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class implements a variant of {@link LongLinkedBlockList} keeping the
+ * ring buffers of its blocks in native memory. Only the block headers live on
+ * the heap, so that even a list of billions of elements gives the garbage 
+ * collector almost nothing to trace. The block buffers come from a pooled 
+ * {@link OffHeapArena}: the blocks unlinked by removals return to its free 
+ * list, and the native memory is freed by {@link #clear()} and 
+ * {@link #close()}. A closed list may not be used any more.
+ * <p>
+ * The iterators and spliterators of the list check for comodification 
+ * before every read of native memory, so that a view used after a 
+ * modification, a {@link #clear()} or a {@link #close()} fails fast with a 
+ * {@link java.util.ConcurrentModificationException}. The list is not 
+ * thread-safe, though: modifying it while another thread reads it without 
+ * synchronization is undefined behaviour, and since the freed memory is 
+ * returned to the operating system at once, it can crash the JVM instead of
+ * throwing.
+ * <p>
+ * The list reads and writes the format of {@link LongLinkedBlockList}, and 
+ * {@link #map(Path)} loads a file of that format without copying it.
+ * 
+ * @author Rodion "rodde" Efremov
+ */
+public final class OffHeapLongLinkedBlockList implements AutoCloseable {
+
+    private static final int DEFAULT_BLOCK_CAPACITY = 64;
+    private static final int MINIMUM_BLOCK_CAPACITY = 4;
+
+    /**
+     * The maximum size of a region mapped by {@link #map(Path)}.
+     */
+    private static final int MAXIMUM_REGION_BYTES = 1 << 30;
+
+    /**
+     * This static inner class implements the actual blocks storing the 
+     * elements.
+     */
+    private static final class Block {
+
+        /**
+         * The number of slots in {@code buffer}.
+         */
+        final int capacity;
+
+        /**
+         * The mask used for modulo computation.
+         */
+        final int indexMask;
+
+        /**
+         * The number of elements in this block.
+         */
+        int size;
+
+        /**
+         * The index of the very first element in this block.
+         */
+        int headIndex;
+
+        /**
+         * The native buffer holding all the elements belonging to this block.
+         */
+        final LongBuffer buffer;
+
+        /**
+         * The previous block.
+         */
+        Block previousBlock;
+
+        /**
+         * The next block.
+         */
+        Block nextBlock;
+
+        Block(LongBuffer buffer) {
+            this.capacity = buffer.capacity();
+            this.indexMask = capacity - 1;
+            this.buffer = buffer;
+        }
+
+        long get(int logicalIndex) {
+            return buffer.get((headIndex + logicalIndex) & indexMask);
+        }
+
+        void set(int logicalIndex, long element) {
+            buffer.put((headIndex + logicalIndex) & indexMask, element);
+        }
+
+        /**
+         * Copies the element at logical index {@code sourceIndex} to the 
+         * logical index {@code targetIndex}.
+         */
+        void move(int sourceIndex, int targetIndex) {
+            set(targetIndex, get(sourceIndex));
+        }
+    }
+
+    /**
+     * The number of elements in this list.
+     */
+    private int size;
+
+    /**
+     * The number of blocks contained by this list.
+     */
+    private int blocks;
+
+    /**
+     * The first block in the chain.
+     */
+    private Block headBlock;
+
+    /**
+     * The last block in the chain.
+     */
+    private Block tailBlock;
+
+    /**
+     * The block capacity.
+     */
+    private final int blockCapacity;
+
+    /**
+     * The mask used for index computation.
+     */
+    private final int indexMask;
+
+    /**
+     * The most recently accessed block.
+     */
+    private Block fingerBlock;
+
+    /**
+     * The global index of the first element in {@code fingerBlock}.
+     */
+    private int fingerStartIndex;
+
+    /**
+     * The number of structural modifications, used by the iterators to detect
+     * concurrent modification.
+     */
+    private int modCount;
+
+    /**
+     * The arena supplying the native block buffers.
+     */
+    private final OffHeapArena arena;
+
+    /**
+     * The file regions mapped by {@link #map(Path)}, unmapped together with 
+     * the arena.
+     */
+    private final List<MappedByteBuffer> mappedRegions = new ArrayList<>();
+
+    private boolean closed;
+
+    public OffHeapLongLinkedBlockList(int blockCapacity) {
+        blockCapacity = Math.max(blockCapacity, MINIMUM_BLOCK_CAPACITY);
+        blockCapacity = ceilToPowerOfTwo(blockCapacity);
+        this.blockCapacity = blockCapacity;
+        this.indexMask = blockCapacity - 1;
+        this.arena = new OffHeapArena(blockCapacity);
+    }
+
+    public OffHeapLongLinkedBlockList() {
+        this(DEFAULT_BLOCK_CAPACITY);
+    }
+
+    /**
+     * Appends {@code element} to the end of this list.
+     * 
+     * @param element the element to append.
+     */
+    public void add(long element) {
+        addLast(element);
+    }
+
+    public void add(int index, long element) {
+        checkAddIndex(index);
+
+        if (index == 0) {
+            addFirst(element);
+            return;
+        }
+
+        if (index == size) {
+            addLast(element);
+            return;
+        }
+
+        Block block = locateBlock(index);
+        index -= fingerStartIndex;
+
+        if (block.size == block.capacity) {
+            // Create a new block and move to it as little elements as possible:
+            int elementsOnLeft = index;
+            int elementsOnRight = block.size - index;
+            Block newBlock = newBlock();
+
+            if (elementsOnLeft < elementsOnRight) {
+                // Add newBlock before block and move to it the prefix of the
+                // current block and append the new element:
+                for (int i = 0; i < elementsOnLeft; i++) {
+                    newBlock.buffer.put(i, block.get(i));
+                }
+
+                newBlock.buffer.put(elementsOnLeft, element);
+                newBlock.size = elementsOnLeft + 1;
+                block.size -= elementsOnLeft;
+                block.headIndex = 
+                        (block.headIndex + elementsOnLeft) & indexMask;
+                linkBlockBefore(block, newBlock);
+                fingerBlock = newBlock;
+            } else {
+                // Add newBlock after block and move to it the new element
+                // followed by the suffix of the current block:
+                newBlock.buffer.put(0, element);
+
+                for (int i = 0; i < elementsOnRight; i++) {
+                    newBlock.buffer.put(i + 1, block.get(index + i));
+                }
+
+                block.size -= elementsOnRight;
+                newBlock.size = elementsOnRight + 1;
+                linkBlockAfter(block, newBlock);
+            }
+        } else {
+            // The current block is not full so insert into it:
+            int elementsOnLeft = index;
+            int elementsOnRight = block.size - index;
+
+            if (elementsOnLeft < elementsOnRight) {
+                // Shift the leftmost elements one position to the left:
+                for (int i = 0; i < elementsOnLeft; i++) {
+                    block.move(i, i - 1);
+                }
+
+                block.headIndex = (block.headIndex - 1) & indexMask;
+            } else {
+                // Shift the rightmost elements one position to the right:
+                for (int i = block.size - 1; i >= index; i--) {
+                    block.move(i, i + 1);
+                }
+            }
+
+            block.set(index, element);
+            block.size++;
+        }
+
+        size++;
+        modCount++;
+    }
+
+    public long get(int index) {
+        checkAccessIndex(index);
+        Block block = locateBlock(index);
+        return block.get(index - fingerStartIndex);
+    }
+
+    public long set(int index, long element) {
+        checkAccessIndex(index);
+        Block block = locateBlock(index);
+        long oldElement = block.get(index - fingerStartIndex);
+        block.set(index - fingerStartIndex, element);
+        return oldElement;
+    }
+
+    /**
+     * Removes the element at position {@code index}.
+     * 
+     * @param index the index of the element to remove.
+     * @return the removed element.
+     */
+    public long remove(int index) {
+        checkAccessIndex(index);
+        Block block = locateBlock(index);
+        index -= fingerStartIndex;
+        long element = block.get(index);
+
+        if (block.size == 1) {
+            unlinkBlock(block);
+        } else {
+            int elementsOnLeft = index;
+            int elementsOnRight = block.size - index - 1;
+
+            if (elementsOnLeft < elementsOnRight) {
+                // Shift the leftmost elements one position to the right:
+                for (int i = index - 1; i >= 0; i--) {
+                    block.move(i, i + 1);
+                }
+
+                block.headIndex = (block.headIndex + 1) & indexMask;
+            } else {
+                // Shift the rightmost elements one position to the left:
+                for (int i = index + 1; i < block.size; i++) {
+                    block.move(i, i - 1);
+                }
+            }
+
+            block.size--;
+        }
+
+        size--;
+        modCount++;
+        return element;
+    }
+
+    /**
+     * Inserts {@code element} at the beginning of this list in constant time.
+     * 
+     * @param element the element to insert.
+     */
+    public void addFirst(long element) {
+        checkOpen();
+
+        if (size == 0 || headBlock.size == headBlock.capacity) {
+            // Fill the new block from its end so that the subsequent 
+            // prepends need no shifting:
+            Block newBlock = newBlock();
+            newBlock.headIndex = indexMask;
+            newBlock.buffer.put(indexMask, element);
+            newBlock.size = 1;
+
+            if (size == 0) {
+                linkOnlyBlock(newBlock);
+            } else {
+                linkBlockBefore(headBlock, newBlock);
+            }
+        } else {
+            headBlock.headIndex = (headBlock.headIndex - 1) & indexMask;
+            headBlock.buffer.put(headBlock.headIndex, element);
+            headBlock.size++;
+        }
+
+        size++;
+        modCount++;
+        fingerBlock = headBlock;
+        fingerStartIndex = 0;
+    }
+
+    /**
+     * Appends {@code element} to the end of this list in constant time.
+     * 
+     * @param element the element to append.
+     */
+    public void addLast(long element) {
+        checkOpen();
+
+        if (size == 0 || tailBlock.size == tailBlock.capacity) {
+            Block newBlock = newBlock();
+            newBlock.buffer.put(0, element);
+            newBlock.size = 1;
+
+            if (size == 0) {
+                linkOnlyBlock(newBlock);
+            } else {
+                linkBlockAfter(tailBlock, newBlock);
+            }
+        } else {
+            tailBlock.set(tailBlock.size, element);
+            tailBlock.size++;
+        }
+
+        size++;
+        modCount++;
+        fingerBlock = tailBlock;
+        fingerStartIndex = size - tailBlock.size;
+    }
+
+    /**
+     * Removes and returns the first element of this list in constant time.
+     * 
+     * @return the removed element.
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public long removeFirst() {
+        checkNotEmpty();
+        Block block = headBlock;
+        long element = block.get(0);
+
+        if (block.size == 1) {
+            unlinkBlock(block);
+        } else {
+            block.headIndex = (block.headIndex + 1) & indexMask;
+            block.size--;
+        }
+
+        size--;
+        modCount++;
+        fingerBlock = headBlock;
+        fingerStartIndex = 0;
+        return element;
+    }
+
+    /**
+     * Removes and returns the last element of this list in constant time.
+     * 
+     * @return the removed element.
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public long removeLast() {
+        checkNotEmpty();
+        Block block = tailBlock;
+        long element = block.get(block.size - 1);
+
+        if (block.size == 1) {
+            unlinkBlock(block);
+        } else {
+            block.size--;
+        }
+
+        size--;
+        modCount++;
+        fingerBlock = tailBlock;
+        fingerStartIndex = size == 0 ? 0 : size - tailBlock.size;
+        return element;
+    }
+
+    public long getFirst() {
+        checkNotEmpty();
+        return headBlock.get(0);
+    }
+
+    public long getLast() {
+        checkNotEmpty();
+        return tailBlock.get(tailBlock.size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the elements and frees the native memory of this list.
+     */
+    public void clear() {
+        checkOpen();
+        headBlock = null;
+        tailBlock = null;
+        fingerBlock = null;
+        size = 0;
+        blocks = 0;
+        modCount++;
+        arena.releaseAll();
+
+        for (MappedByteBuffer region : mappedRegions) {
+            OffHeapArena.free(region);
+        }
+
+        mappedRegions.clear();
+    }
+
+    /**
+     * Frees the native memory of this list. Closing an already closed list 
+     * has no effect.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            clear();
+            arena.close();
+            closed = true;
+        }
+    }
+
+    /**
+     * Returns the number of bytes of native memory reserved by this list.
+     * 
+     * @return the number of reserved bytes.
+     */
+    public long getReservedOffHeapBytes() {
+        return arena.getReservedBytes();
+    }
+
+    /**
+     * Returns the number of blocks in this list.
+     * 
+     * @return the number of blocks.
+     */
+    public int getNumberOfBlocks() {
+        return blocks;
+    }
+
+    public long[] toArray() {
+        long[] array = new long[size];
+        int targetIndex = 0;
+
+        for (Block block = headBlock; block != null; block = block.nextBlock) {
+            int firstChunkLength = Math.min(block.size, 
+                                            block.capacity - block.headIndex);
+            LongBuffer buffer = block.buffer.duplicate();
+            buffer.position(block.headIndex);
+            buffer.get(array, targetIndex, firstChunkLength);
+            buffer.position(0);
+            buffer.get(array, 
+                       targetIndex + firstChunkLength, 
+                       block.size - firstChunkLength);
+            targetIndex += block.size;
+        }
+
+        return array;
+    }
+
+    /**
+     * Writes this list to {@code channel} in the format of 
+     * {@link BlockListFormat}, so that it may be read back by this class or 
+     * by {@link LongLinkedBlockList}.
+     * 
+     * @param channel the channel to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        checkOpen();
+        BlockListFormat.writeHeader(channel, 
+                                    BlockListFormat.LONG_ELEMENTS, 
+                                    blockCapacity, 
+                                    size);
+        ByteBuffer buffer = 
+                BlockListFormat.newBuffer(blockCapacity * Long.BYTES);
+        LongBuffer view = buffer.asLongBuffer();
+
+        for (Block block = headBlock; block != null; block = block.nextBlock) {
+            int firstChunkLength = Math.min(block.size, 
+                                            block.capacity - block.headIndex);
+
+            if (view.remaining() < block.size) {
+                flush(channel, buffer, view);
+            }
+
+            LongBuffer source = block.buffer.duplicate();
+            source.position(block.headIndex);
+            source.limit(block.headIndex + firstChunkLength);
+            view.put(source);
+            source.clear();
+            source.limit(block.size - firstChunkLength);
+            view.put(source);
+        }
+
+        flush(channel, buffer, view);
+    }
+
+    /**
+     * Reads a list written by {@link #writeTo(WritableByteChannel)} into 
+     * native memory.
+     * 
+     * @param channel the channel to read from.
+     * @return the list read.
+     * @throws IOException if reading fails or the stream is malformed.
+     */
+    public static OffHeapLongLinkedBlockList readFrom(
+            ReadableByteChannel channel) throws IOException {
+        BlockListFormat.Header header = 
+                BlockListFormat.readHeader(channel, 
+                                           BlockListFormat.LONG_ELEMENTS);
+        OffHeapLongLinkedBlockList list = 
+                new OffHeapLongLinkedBlockList(header.blockCapacity);
+        ByteBuffer buffer = 
+                BlockListFormat.newBuffer(list.blockCapacity * Long.BYTES);
+        long remainingBytes = (long) header.size * Long.BYTES;
+
+        while (remainingBytes > 0L) {
+            buffer.clear();
+
+            if (buffer.capacity() > remainingBytes) {
+                buffer.limit((int) remainingBytes);
+            }
+
+            BlockListFormat.readFully(channel, buffer);
+            remainingBytes -= buffer.limit();
+            buffer.flip();
+            LongBuffer view = buffer.asLongBuffer();
+
+            while (view.hasRemaining()) {
+                Block block = list.tailBlock;
+
+                if (block == null || block.size == block.capacity) {
+                    block = list.newBlock();
+                    list.appendBlock(block);
+                }
+
+                int count = Math.min(view.remaining(), 
+                                     block.capacity - block.size);
+                LongBuffer source = view.duplicate();
+                source.limit(source.position() + count);
+                LongBuffer target = block.buffer.duplicate();
+                target.position(block.size);
+                target.put(source);
+                view.position(view.position() + count);
+                block.size += count;
+            }
+        }
+
+        list.size = header.size;
+        return list;
+    }
+
+    /**
+     * Loads a file written by {@link #writeTo(WritableByteChannel)} by 
+     * mapping it into memory. Every full block of the returned list is backed
+     * directly by the pages of the file, so that loading takes time 
+     * proportional to the number of blocks rather than to the number of 
+     * bytes, and the pages are read lazily on first access. Only the last, 
+     * partial block is copied.
+     * <p>
+     * The mapping is private: the list may be modified freely, the operating
+     * system copies a page on its first write, and the file never changes. 
+     * Private mappings require the file to be opened for writing, so the file
+     * must be writable. The file is unmapped by {@link #clear()} and 
+     * {@link #close()}.
+     * 
+     * @param path the path of the file.
+     * @return the list backed by the file.
+     * @throws IOException if mapping fails or the file is malformed.
+     */
+    public static OffHeapLongLinkedBlockList map(Path path) 
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, 
+                                                    StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            BlockListFormat.Header header = 
+                    BlockListFormat.readHeader(channel, 
+                                               BlockListFormat.LONG_ELEMENTS);
+            long position = BlockListFormat.HEADER_BYTES;
+
+            if (channel.size() < position + (long) header.size * Long.BYTES) {
+                throw new EOFException("The block list file is truncated.");
+            }
+
+            OffHeapLongLinkedBlockList list = 
+                    new OffHeapLongLinkedBlockList(header.blockCapacity);
+            int blockBytes = list.blockCapacity * Long.BYTES;
+            int blocksPerRegion = 
+                    Math.max(1, MAXIMUM_REGION_BYTES / blockBytes);
+            int remainingBlocks = header.size / list.blockCapacity;
+
+            while (remainingBlocks > 0) {
+                int regionBlocks = Math.min(remainingBlocks, blocksPerRegion);
+                long regionBytes = (long) regionBlocks * blockBytes;
+                MappedByteBuffer region = 
+                        channel.map(FileChannel.MapMode.PRIVATE, 
+                                    position, 
+                                    regionBytes);
+                list.mappedRegions.add(region);
+
+                for (int i = 0; i < regionBlocks; i++) {
+                    ByteBuffer blockBuffer = region.duplicate();
+                    blockBuffer.position(i * blockBytes);
+                    blockBuffer.limit((i + 1) * blockBytes);
+                    Block block = 
+                            new Block(blockBuffer.slice()
+                                                 .order(BlockListFormat
+                                                        .BYTE_ORDER)
+                                                 .asLongBuffer());
+                    block.size = list.blockCapacity;
+                    list.appendBlock(block);
+                }
+
+                position += regionBytes;
+                remainingBlocks -= regionBlocks;
+            }
+
+            int tailSize = header.size % list.blockCapacity;
+
+            if (tailSize > 0) {
+                ByteBuffer buffer = 
+                        ByteBuffer.allocate(tailSize * Long.BYTES)
+                                  .order(BlockListFormat.BYTE_ORDER);
+                channel.position(position);
+                BlockListFormat.readFully(channel, buffer);
+                buffer.flip();
+                Block block = list.newBlock();
+                block.buffer.duplicate().put(buffer.asLongBuffer());
+                block.size = tailSize;
+                list.appendBlock(block);
+            }
+
+            list.size = header.size;
+            return list;
+        }
+    }
+
+    /**
+     * Returns a fail-fast iterator over the unboxed elements of this list.
+     * 
+     * @return an iterator.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new BlockIterator();
+    }
+
+    /**
+     * Returns a spliterator over the elements of this list, splitting on 
+     * block boundaries.
+     * 
+     * @return a spliterator.
+     */
+    public Spliterator.OfLong spliterator() {
+        return new BlockSpliterator(headBlock, 0, size, blocks);
+    }
+
+    public LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    public LongStream parallelStream() {
+        return StreamSupport.longStream(spliterator(), true);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        PrimitiveIterator.OfLong iterator = iterator();
+
+        while (iterator.hasNext()) {
+            sb.append(iterator.nextLong());
+
+            if (iterator.hasNext()) {
+                sb.append(", ");
+            }
+        }
+
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Returns the block containing the element with the global index 
+     * {@code index} and makes it the finger.
+     * 
+     * @param index the global index of the element. Must be within range.
+     * @return the block containing the element.
+     */
+    private Block locateBlock(int index) {
+        Block block = fingerBlock;
+        int startIndex = fingerStartIndex;
+
+        if (block != null 
+                && index >= startIndex 
+                && index < startIndex + block.size) {
+            return block;
+        }
+
+        // Start from whichever of the head block, the tail block and the 
+        // finger is closest to the target element:
+        int distanceFromFinger = block == null ? 
+                                 Integer.MAX_VALUE : 
+                                 Math.abs(index - startIndex);
+
+        if (index < size / 2) {
+            if (index < distanceFromFinger) {
+                block = headBlock;
+                startIndex = 0;
+            }
+        } else if (size - index < distanceFromFinger) {
+            block = tailBlock;
+            startIndex = size - block.size;
+        }
+
+        if (index >= startIndex) {
+            while (index >= startIndex + block.size) {
+                startIndex += block.size;
+                block = block.nextBlock;
+            }
+        } else {
+            while (index < startIndex) {
+                block = block.previousBlock;
+                startIndex -= block.size;
+            }
+        }
+
+        fingerBlock = block;
+        fingerStartIndex = startIndex;
+        return block;
+    }
+
+    private void linkBlockBefore(Block block, Block newBlock) {
+        newBlock.nextBlock = block;
+        newBlock.previousBlock = block.previousBlock;
+        block.previousBlock = newBlock;
+
+        if (newBlock.previousBlock == null) {
+            headBlock = newBlock;
+        } else {
+            newBlock.previousBlock.nextBlock = newBlock;
+        }
+
+        blocks++;
+    }
+
+    private void linkBlockAfter(Block block, Block newBlock) {
+        newBlock.previousBlock = block;
+        newBlock.nextBlock = block.nextBlock;
+        block.nextBlock = newBlock;
+
+        if (newBlock.nextBlock == null) {
+            tailBlock = newBlock;
+        } else {
+            newBlock.nextBlock.previousBlock = newBlock;
+        }
+
+        blocks++;
+    }
+
+    private void linkOnlyBlock(Block block) {
+        headBlock = block;
+        tailBlock = block;
+        blocks = 1;
+    }
+
+    private void unlinkBlock(Block block) {
+        if (fingerBlock == block) {
+            // The next block will start where the unlinked one did:
+            fingerBlock = block.nextBlock;
+        }
+
+        if (block == headBlock) {
+            headBlock = headBlock.nextBlock;
+
+            if (headBlock != null) {
+                headBlock.previousBlock = null;                    
+            }
+        } else {
+            block.previousBlock.nextBlock = block.nextBlock;
+        }
+
+        if (block == tailBlock) {
+            tailBlock = tailBlock.previousBlock;
+
+            if (tailBlock != null) {
+                tailBlock.nextBlock = null;
+            }
+        } else {
+            block.nextBlock.previousBlock = block.previousBlock;
+        }
+
+        blocks--;
+        arena.release(block.buffer);
+    }
+
+    private Block newBlock() {
+        return new Block(arena.allocate());
+    }
+
+    /**
+     * Links {@code block} after the tail block. Does not update the size of
+     * this list.
+     */
+    private void appendBlock(Block block) {
+        if (tailBlock == null) {
+            linkOnlyBlock(block);
+        } else {
+            linkBlockAfter(tailBlock, block);
+        }
+    }
+
+    /**
+     * Writes the elements put into {@code view} so far and empties it.
+     */
+    private static void flush(WritableByteChannel channel, 
+                              ByteBuffer buffer, 
+                              LongBuffer view) throws IOException {
+        buffer.clear();
+        buffer.limit(view.position() * Long.BYTES);
+        BlockListFormat.writeFully(channel, buffer);
+        view.clear();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The list is closed.");
+        }
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException("The list is empty.");
+        }
+    }
+
+    private void checkAccessIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index(" + index + ") < 0");
+        }
+
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") >= (" + size + ")");
+        }
+    }
+
+    private void checkAddIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index(" + index + ") < 0");
+        }
+
+        if (index > size) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") > (" + size + ")");
+        }
+    }
+
+    private static int ceilToPowerOfTwo(int number) {
+        int ret = 1;
+
+        while (ret < number) {
+            ret <<= 1;
+        }
+
+        return ret;
+    }
+
+    /**
+     * This inner class implements a fail-fast iterator walking the chain of 
+     * blocks.
+     */
+    private final class BlockIterator implements PrimitiveIterator.OfLong {
+
+        private Block block = headBlock;
+        private int offset;
+        private int remaining = size;
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+
+            if (offset == block.size) {
+                block = block.nextBlock;
+                offset = 0;
+            }
+
+            remaining--;
+            return block.get(offset++);
+        }
+    }
+
+    /**
+     * This inner class implements a fail-fast spliterator splitting on block
+     * boundaries. Each spliterator covers a range of elements ending at the 
+     * end of a block.
+     */
+    private final class BlockSpliterator implements Spliterator.OfLong {
+
+        /**
+         * The block holding the next element.
+         */
+        private Block block;
+
+        /**
+         * The logical index of the next element within {@code block}.
+         */
+        private int offset;
+
+        /**
+         * The number of elements left to traverse.
+         */
+        private int remaining;
+
+        /**
+         * The number of blocks overlapping the remaining range.
+         */
+        private int blockCount;
+
+        private final int expectedModCount = modCount;
+
+        BlockSpliterator(Block block, 
+                         int offset, 
+                         int remaining, 
+                         int blockCount) {
+            this.block = block;
+            this.offset = offset;
+            this.remaining = remaining;
+            this.blockCount = blockCount;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action, "The input action is null.");
+
+            if (remaining == 0) {
+                return false;
+            }
+
+            // The native memory may be freed already, so check first:
+            checkForComodification();
+            skipExhaustedBlock();
+            long element = block.get(offset++);
+            remaining--;
+            action.accept(element);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action, "The input action is null.");
+
+            while (remaining > 0) {
+                checkForComodification();
+                skipExhaustedBlock();
+                int count = Math.min(remaining, block.size - offset);
+                LongBuffer buffer = block.buffer;
+                int headIndex = block.headIndex + offset;
+                int mask = block.indexMask;
+
+                for (int i = 0; i < count; i++) {
+                    // The action may clear the list and so free the buffer,
+                    // so check before every native read:
+                    checkForComodification();
+                    long element = buffer.get((headIndex + i) & mask);
+                    offset++;
+                    remaining--;
+                    action.accept(element);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            checkForComodification();
+
+            if (remaining == 0) {
+                return null;
+            }
+
+            skipExhaustedBlock();
+
+            if (remaining <= block.size - offset) {
+                // The range is within a single block:
+                return null;
+            }
+
+            // Cut at the middle block:
+            int prefixBlockCount = blockCount / 2;
+            Block splitBlock = block;
+            int prefixSize = -offset;
+
+            for (int i = 0; i < prefixBlockCount; i++) {
+                prefixSize += splitBlock.size;
+                splitBlock = splitBlock.nextBlock;
+            }
+
+            Spliterator.OfLong prefix = 
+                    new BlockSpliterator(block, 
+                                         offset, 
+                                         prefixSize, 
+                                         prefixBlockCount);
+            block = splitBlock;
+            offset = 0;
+            remaining -= prefixSize;
+            blockCount -= prefixBlockCount;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED 
+                 | Spliterator.SIZED 
+                 | Spliterator.SUBSIZED;
+        }
+
+        private void skipExhaustedBlock() {
+            if (offset == block.size) {
+                block = block.nextBlock;
+                offset = 0;
+                blockCount--;
+            }
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package net.coderodde.util.experimental;
+
+import java.util.AbstractCollection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class implements a sorted multiset on top of a
+ * {@link LinkedBlockList} with the block index enabled. The elements are kept
+ * in the order of a comparator, or in their natural order, and equal elements
+ * are kept in their insertion order.
+ * <p>
+ * All the searches run in two phases: first the block index is descended
+ * comparing the key with the last element of each block visited, then the
+ * key is binary searched within the one block found. A search thus compares
+ * {@code O(log n)} elements, most of which lie in a single contiguous array,
+ * and an insertion or a removal shifts at most half a block.
+ *
+ * @param <T> the element type.
+ * @author Rodion "rodde" Efremov
+ */
+public final class SortedLinkedBlockList<T> extends AbstractCollection<T> {
+
+    private final LinkedBlockList<T> list;
+
+    /**
+     * The comparator as given, or {@code null} for the natural order.
+     */
+    private final Comparator<? super T> comparator;
+
+    /**
+     * The comparator actually used.
+     */
+    private final Comparator<? super T> order;
+
+    public SortedLinkedBlockList() {
+        this(null);
+    }
+
+    public SortedLinkedBlockList(Comparator<? super T> comparator) {
+        this(new LinkedBlockList<>(), comparator);
+    }
+
+    public SortedLinkedBlockList(int blockCapacity,
+                                 Comparator<? super T> comparator) {
+        this(new LinkedBlockList<>(blockCapacity), comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    private SortedLinkedBlockList(LinkedBlockList<T> list,
+                                  Comparator<? super T> comparator) {
+        this.list = list;
+        this.list.setBlockIndexEnabled(true);
+        this.comparator = comparator;
+        this.order = comparator != null ?
+                     comparator :
+                     (Comparator<? super T>) Comparator.naturalOrder();
+    }
+
+    /**
+     * Returns the comparator ordering this list, or {@code null} if the
+     * elements are in their natural order.
+     *
+     * @return the comparator.
+     */
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Inserts {@code element} after all the elements not greater than it.
+     *
+     * @param element the element to insert.
+     * @return {@code true}.
+     */
+    @Override
+    public boolean add(T element) {
+        list.add(list.upperBound(element, order), element);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        return indexOf((T) o) >= 0;
+    }
+
+    /**
+     * Removes one occurrence of {@code o}, if present.
+     *
+     * @param o the element to remove.
+     * @return {@code true} if an element was removed.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        int index = indexOf((T) o);
+
+        if (index < 0) {
+            return false;
+        }
+
+        list.remove(index);
+        return true;
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code element}, or
+     * {@code -1} if there is none.
+     *
+     * @param element the element to search for.
+     * @return the index of {@code element} or {@code -1}.
+     */
+    public int indexOf(T element) {
+        int index = list.lowerBound(element, order);
+
+        if (index < list.size()
+                && order.compare(list.get(index), element) == 0) {
+            return index;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the number of elements equal to {@code element}.
+     *
+     * @param element the element to count.
+     * @return the number of occurrences.
+     */
+    public int count(T element) {
+        return list.upperBound(element, order)
+             - list.lowerBound(element, order);
+    }
+
+    public T get(int index) {
+        return list.get(index);
+    }
+
+    /**
+     * Removes the element at position {@code index}.
+     *
+     * @param index the index of the element to remove.
+     * @return the removed element.
+     */
+    public T removeAt(int index) {
+        return list.remove(index);
+    }
+
+    public T first() {
+        return list.getFirst();
+    }
+
+    public T last() {
+        return list.getLast();
+    }
+
+    public T pollFirst() {
+        return list.pollFirst();
+    }
+
+    public T pollLast() {
+        return list.pollLast();
+    }
+
+    /**
+     * Returns the greatest element less than {@code element}, or {@code null}
+     * if there is none.
+     *
+     * @param element the key.
+     * @return the lower element or {@code null}.
+     */
+    public T lower(T element) {
+        return elementAt(list.lowerBound(element, order) - 1);
+    }
+
+    /**
+     * Returns the greatest element not greater than {@code element}, or
+     * {@code null} if there is none.
+     *
+     * @param element the key.
+     * @return the floor element or {@code null}.
+     */
+    public T floor(T element) {
+        return elementAt(list.upperBound(element, order) - 1);
+    }
+
+    /**
+     * Returns the least element not less than {@code element}, or
+     * {@code null} if there is none.
+     *
+     * @param element the key.
+     * @return the ceiling element or {@code null}.
+     */
+    public T ceiling(T element) {
+        return elementAt(list.lowerBound(element, order));
+    }
+
+    /**
+     * Returns the least element greater than {@code element}, or
+     * {@code null} if there is none.
+     *
+     * @param element the key.
+     * @return the higher element or {@code null}.
+     */
+    public T higher(T element) {
+        return elementAt(list.upperBound(element, order));
+    }
+
+    /**
+     * Returns an unmodifiable view of the elements between
+     * {@code fromElement} and {@code toElement}. The view is backed by this
+     * list and fails fast once this list is modified.
+     *
+     * @param fromElement   the low end of the range.
+     * @param fromInclusive whether the elements equal to {@code fromElement}
+     *                      are included.
+     * @param toElement     the high end of the range.
+     * @param toInclusive   whether the elements equal to {@code toElement}
+     *                      are included.
+     * @return the elements within the range in order.
+     * @throws IllegalArgumentException if {@code fromElement} is greater
+     *                                  than {@code toElement}.
+     */
+    public List<T> range(T fromElement,
+                         boolean fromInclusive,
+                         T toElement,
+                         boolean toInclusive) {
+        if (order.compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException(
+                    "fromElement > toElement");
+        }
+
+        int fromIndex = fromInclusive ?
+                        list.lowerBound(fromElement, order) :
+                        list.upperBound(fromElement, order);
+        int toIndex = toInclusive ?
+                      list.upperBound(toElement, order) :
+                      list.lowerBound(toElement, order);
+
+        return Collections.unmodifiableList(
+                list.subList(fromIndex, Math.max(fromIndex, toIndex)));
+    }
+
+    /**
+     * Removes all the elements between {@code fromElement}, inclusive, and
+     * {@code toElement}, exclusive.
+     *
+     * @param fromElement the low end of the range.
+     * @param toElement   the high end of the range.
+     * @return the number of elements removed.
+     */
+    public int removeRange(T fromElement, T toElement) {
+        int fromIndex = list.lowerBound(fromElement, order);
+        int toIndex = list.lowerBound(toElement, order);
+
+        if (fromIndex >= toIndex) {
+            return 0;
+        }
+
+        list.removeRange(fromIndex, toIndex);
+        return toIndex - fromIndex;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return list.iterator();
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    public void clear() {
+        list.clear();
+    }
+
+    private T elementAt(int index) {
+        return index >= 0 && index < list.size() ? list.get(index) : null;
+    }
+}
@@ -0,0 +1,207 @@
+package net.coderodde.util.experimental;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConcurrentLinkedBlockListTest {
+    
+    private static final int THREADS = 8;
+    
+    private ConcurrentLinkedBlockList<Integer> list;
+    
+    @Before
+    public void before() {
+        list = new ConcurrentLinkedBlockList<>(4);
+    }
+    
+    @Test
+    public void bruteForceTest() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        List<Integer> javaList = new ArrayList<>();
+        
+        for (int operationNumber = 0; 
+                 operationNumber < 10_000; 
+                 operationNumber++) {
+            int element = random.nextInt(1000);
+            
+            switch (random.nextInt(7)) {
+                case 0:
+                    javaList.add(0, element);
+                    list.addFirst(element);
+                    break;
+                    
+                case 1:
+                    javaList.add(element);
+                    list.addLast(element);
+                    break;
+                    
+                case 2:
+                    assertEquals(javaList.isEmpty() ? 
+                                 null : 
+                                 javaList.remove(0), 
+                                 list.pollFirst());
+                    break;
+                    
+                case 3:
+                    assertEquals(javaList.isEmpty() ? 
+                                 null : 
+                                 javaList.remove(javaList.size() - 1), 
+                                 list.pollLast());
+                    break;
+                    
+                case 4:
+                    if (!javaList.isEmpty()) {
+                        int index = random.nextInt(javaList.size());
+                        assertEquals(javaList.remove(index), 
+                                     list.remove(index));
+                    }
+                    
+                    break;
+                    
+                case 5:
+                    if (!javaList.isEmpty()) {
+                        int index = random.nextInt(javaList.size());
+                        assertEquals(javaList.set(index, element), 
+                                     list.set(index, element));
+                        assertEquals(javaList.get(index), list.get(index));
+                    }
+                    
+                    break;
+                    
+                default:
+                    int index = random.nextInt(javaList.size() + 1);
+                    javaList.add(index, element);
+                    list.add(index, element);
+                    break;
+            }
+            
+            assertEquals(javaList.size(), list.size());
+        }
+        
+        assertArrayEquals(javaList.toArray(), list.toArray());
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getThrowsOnTooLargeIndex() {
+        list.add(1);
+        list.get(1);
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void rejectsNullElements() {
+        list.add(null);
+    }
+    
+    @Test
+    public void concurrentInsertionsAndRemovals() throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            list.add(-1);
+        }
+        
+        AtomicInteger removedCount = new AtomicInteger();
+        
+        runConcurrently(threadIndex -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            
+            for (int i = 0; i < 10_000; i++) {
+                list.add(random.nextInt(900), threadIndex * 10_000 + i);
+                
+                if (i % 2 == 0 && list.remove(random.nextInt(900)) == -1) {
+                    removedCount.incrementAndGet();
+                }
+                
+                list.get(random.nextInt(900));
+            }
+        });
+        
+        Object[] array = list.toArray();
+        assertEquals(array.length, list.size());
+        assertEquals(1000 + THREADS * 5_000, array.length);
+        
+        long placeholders = 
+                Arrays.stream(array).filter(e -> (int) e == -1).count();
+        assertEquals(1000 - removedCount.get(), placeholders);
+        assertEquals(array.length - placeholders, 
+                     Arrays.stream(array).distinct().count() - 
+                             (placeholders > 0 ? 1 : 0));
+    }
+    
+    @Test
+    public void concurrentQueue() throws InterruptedException {
+        int elementsPerProducer = 20_000;
+        ConcurrentHashMap<Integer, Boolean> consumed = 
+                new ConcurrentHashMap<>();
+        AtomicInteger remaining = 
+                new AtomicInteger(THREADS / 2 * elementsPerProducer);
+        
+        runConcurrently(threadIndex -> {
+            if (threadIndex % 2 == 0) {
+                for (int i = 0; i < elementsPerProducer; i++) {
+                    list.addLast(threadIndex * elementsPerProducer + i);
+                }
+            } else {
+                while (remaining.get() > 0) {
+                    Integer element = threadIndex % 4 == 1 ? 
+                                      list.pollFirst() : 
+                                      list.pollLast();
+                    
+                    if (element != null) {
+                        assertNull(consumed.put(element, Boolean.TRUE));
+                        remaining.decrementAndGet();
+                    }
+                }
+            }
+        });
+        
+        assertEquals(THREADS / 2 * elementsPerProducer, consumed.size());
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.toArray().length);
+    }
+    
+    private interface Task {
+        void run(int threadIndex);
+    }
+    
+    private static void runConcurrently(Task task) 
+            throws InterruptedException {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        Throwable[] failures = new Throwable[THREADS];
+        
+        for (int i = 0; i < THREADS; i++) {
+            int threadIndex = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                    task.run(threadIndex);
+                } catch (Throwable t) {
+                    failures[threadIndex] = t;
+                }
+            });
+            threads[i].start();
+        }
+        
+        startLatch.countDown();
+        
+        for (int i = 0; i < THREADS; i++) {
+            threads[i].join();
+            
+            if (failures[i] != null) {
+                throw new AssertionError(failures[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package net.coderodde.util.experimental;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConcurrentLinkedBlockQueueTest {
+
+    private static final int THREADS = 8;
+
+    private ConcurrentLinkedBlockQueue<Integer> queue;
+
+    @Before
+    public void before() {
+        queue = new ConcurrentLinkedBlockQueue<>(4);
+    }
+
+    @Test
+    public void bruteForceTest() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println("Seed = " + seed);
+
+        Queue<Integer> javaQueue = new ArrayDeque<>();
+
+        for (int operationNumber = 0;
+                 operationNumber < 10_000;
+                 operationNumber++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(javaQueue.poll(), queue.poll());
+                    break;
+
+                case 1:
+                    assertEquals(javaQueue.peek(), queue.peek());
+                    break;
+
+                case 2:
+                    if (random.nextInt(10) == 0) {
+                        Integer element = random.nextInt(100);
+                        assertEquals(javaQueue.remove(element),
+                                     queue.remove(element));
+                    }
+
+                    break;
+
+                default:
+                    int element = random.nextInt(100);
+                    javaQueue.offer(element);
+                    queue.offer(element);
+                    break;
+            }
+
+            assertEquals(javaQueue.size(), queue.size());
+        }
+
+        assertArrayEquals(javaQueue.toArray(), queue.toArray());
+
+        Iterator<Integer> iterator = queue.iterator();
+
+        while (iterator.hasNext()) {
+            assertEquals(javaQueue.poll(), iterator.next());
+            iterator.remove();
+        }
+
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void rejectsNullElements() {
+        queue.offer(null);
+    }
+
+    @Test
+    public void timedPollTimesOutOnEmptyQueue() throws InterruptedException {
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.getWaitingConsumerCount());
+    }
+
+    @Test
+    public void tryTransferFailsWithoutConsumer()
+            throws InterruptedException {
+        assertFalse(queue.tryTransfer(1));
+        assertFalse(queue.tryTransfer(2, 10, TimeUnit.MILLISECONDS));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void transferWaitsForConsumer() throws InterruptedException {
+        AtomicInteger taken = new AtomicInteger();
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100; i++) {
+                    taken.addAndGet(queue.take());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        consumer.start();
+
+        for (int i = 0; i < 100; i++) {
+            queue.transfer(i);
+        }
+
+        consumer.join();
+        assertEquals(99 * 100 / 2, taken.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void iteratorRemoveLeavesRecycledSlotsAlone() {
+        Integer element = 1000;
+        queue.offer(element);
+
+        for (int i = 1; i < 4; i++) {
+            queue.offer(i);
+        }
+
+        Iterator<Integer> iterator = queue.iterator();
+        assertSame(element, iterator.next());
+
+        for (int i = 0; i < 4; i++) {
+            queue.poll();
+        }
+
+        // The new block reuses the slots of the drained one:
+        queue.offer(element);
+        iterator.remove();
+        assertEquals(1, queue.size());
+        assertSame(element, queue.poll());
+    }
+
+    @Test
+    public void concurrentProducersAndConsumers()
+            throws InterruptedException {
+        int elementsPerProducer = 50_000;
+        int[][] lastSeen = new int[THREADS][THREADS];
+        AtomicInteger consumedCount = new AtomicInteger();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        Throwable[] failures = new Throwable[THREADS];
+
+        for (int i = 0; i < THREADS; i++) {
+            int threadIndex = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    startLatch.await();
+
+                    if (threadIndex % 2 == 0) {
+                        for (int j = 1; j <= elementsPerProducer; j++) {
+                            queue.put(threadIndex * elementsPerProducer + j);
+                        }
+
+                        return;
+                    }
+
+                    int[] seen = lastSeen[threadIndex];
+                    Integer element;
+
+                    while ((element = queue.poll(1, TimeUnit.SECONDS))
+                            != null) {
+                        int producer = (element - 1) / elementsPerProducer;
+                        int sequence = element - producer * elementsPerProducer;
+
+                        // Elements of a single producer arrive in order:
+                        assertTrue(seen[producer] < sequence);
+                        seen[producer] = sequence;
+                        consumedCount.incrementAndGet();
+                    }
+                } catch (Throwable t) {
+                    failures[threadIndex] = t;
+                }
+            });
+            threads[i].start();
+        }
+
+        startLatch.countDown();
+
+        for (int i = 0; i < THREADS; i++) {
+            threads[i].join();
+
+            if (failures[i] != null) {
+                throw new AssertionError(failures[i]);
+            }
+        }
+
+        assertEquals(THREADS / 2 * elementsPerProducer, consumedCount.get());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,251 @@
+package net.coderodde.util.experimental;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DoubleLinkedBlockListTest {
+    
+    private DoubleLinkedBlockList list;
+    
+    @Before
+    public void before() {
+        list = new DoubleLinkedBlockList(4);
+    }
+    
+    @Test
+    public void addGetSetRemove() {
+        for (int i = 0; i < 10; i++) {
+            list.add(i + 0.5);
+        }
+        
+        list.add(5, 100.0); // Splits a full block.
+        assertEquals(11, list.size());
+        assertEquals(100.0, list.get(5), 0.0);
+        assertEquals(5.5, list.get(6), 0.0);
+        
+        assertEquals(100.0, list.set(5, -1.0), 0.0);
+        assertEquals(-1.0, list.remove(5), 0.0);
+        
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 0.5, list.get(i), 0.0);
+        }
+    }
+    
+    @Test
+    public void dequeOperations() {
+        for (int i = 0; i < 10; i++) {
+            list.addFirst(-i);
+            list.addLast(i);
+        }
+        
+        assertEquals(-9.0, list.getFirst(), 0.0);
+        assertEquals(9.0, list.getLast(), 0.0);
+        
+        for (int i = 9; i >= 0; i--) {
+            assertEquals(-i, list.removeFirst(), 0.0);
+            assertEquals(i, list.removeLast(), 0.0);
+        }
+        
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.getNumberOfBlocks());
+    }
+    
+    @Test(expected = NoSuchElementException.class)
+    public void removeFirstThrowsOnEmptyList() {
+        list.removeFirst();
+    }
+    
+    @Test
+    public void bruteForceTest() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        List<Double> javaList = new ArrayList<>();
+        
+        for (int operationNumber = 0;
+                 operationNumber < 10_000;
+                 operationNumber++) {
+            if (javaList.size() > 0 && random.nextInt(5) < 2) {
+                int index = random.nextInt(javaList.size());
+                assertEquals(javaList.remove(index), list.remove(index), 0.0);
+            } else {
+                double element = random.nextGaussian();
+                int index = random.nextInt(javaList.size() + 1);
+                javaList.add(index, element);
+                list.add(index, element);
+            }
+            
+            assertEquals(javaList.size(), list.size());
+        }
+        
+        for (int i = 0; i < javaList.size(); i++) {
+            assertEquals(javaList.get(i), list.get(i), 0.0);
+        }
+        
+        assertArrayEquals(
+                javaList.stream().mapToDouble(Double::doubleValue).toArray(),
+                list.toArray(),
+                0.0);
+    }
+    
+    @Test
+    public void indexOfAndContains() {
+        for (int i = 0; i < 20; i++) {
+            list.add(i % 7 * 0.25);
+        }
+        
+        assertEquals(3, list.indexOf(0.75));
+        assertEquals(17, list.lastIndexOf(0.75));
+        assertTrue(list.contains(1.5));
+        assertFalse(list.contains(1.75));
+        assertEquals(-1, list.indexOf(-1.0));
+        assertEquals(-1, list.lastIndexOf(-1.0));
+    }
+    
+    @Test
+    public void indexOfComparesAsDoubleEquals() {
+        list.add(0.0);
+        list.add(Double.NaN);
+        list.add(1.0);
+        list.add(-0.0);
+        list.add(Double.NaN);
+        
+        // NaN is found although NaN != NaN:
+        assertEquals(1, list.indexOf(Double.NaN));
+        assertEquals(4, list.lastIndexOf(Double.NaN));
+        assertTrue(list.contains(0.0 / 0.0));
+        
+        // -0.0 and 0.0 are told apart although -0.0 == 0.0:
+        assertEquals(0, list.indexOf(0.0));
+        assertEquals(0, list.lastIndexOf(0.0));
+        assertEquals(3, list.indexOf(-0.0));
+        
+        list.removeFirst();
+        list.removeLast();
+        assertEquals(2, list.indexOf(-0.0));
+        assertEquals(-1, list.indexOf(0.0));
+        assertFalse(list.contains(0.0));
+        assertTrue(list.contains(Double.NaN));
+    }
+    
+    @Test
+    public void iterator() {
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        
+        PrimitiveIterator.OfDouble iterator = list.iterator();
+        
+        for (int i = 0; i < 10; i++) {
+            assertTrue(iterator.hasNext());
+            assertEquals(i, iterator.nextDouble(), 0.0);
+        }
+        
+        assertFalse(iterator.hasNext());
+        assertEquals("[0.0, 0.5, -0.0, NaN]",
+                     toList(0.0, 0.5, -0.0, Double.NaN).toString());
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void iteratorFailsFast() {
+        list.add(1.0);
+        list.add(2.0);
+        PrimitiveIterator.OfDouble iterator = list.iterator();
+        iterator.nextDouble();
+        list.add(3.0);
+        iterator.nextDouble();
+    }
+    
+    @Test
+    public void streams() {
+        for (int i = 0; i < 10_000; i++) {
+            list.add(i);
+        }
+        
+        double sum = IntStream.range(0, 10_000).sum();
+        assertEquals(sum, list.stream().sum(), 0.0);
+        assertEquals(sum, list.parallelStream().sum(), 0.0);
+        assertArrayEquals(IntStream.range(0, 10_000).asDoubleStream().toArray(),
+                          list.parallelStream().toArray(),
+                          0.0);
+        assertEquals(0, new DoubleLinkedBlockList().stream().count());
+    }
+    
+    @Test
+    public void writeToAndReadFrom() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            // Prepending wraps the ring buffers of the blocks:
+            list.addFirst(i);
+            list.add(list.size() / 2, -i - 0.5);
+        }
+        
+        DoubleLinkedBlockList copy = readFrom(write(list));
+        assertArrayEquals(list.toArray(), copy.toArray(), 0.0);
+        assertEquals(2000 / 4, copy.getNumberOfBlocks());
+        assertEquals(0, readFrom(write(new DoubleLinkedBlockList())).size());
+    }
+    
+    @Test
+    public void writeToAndReadFromKeepTheExactBits() throws IOException {
+        double quietNaN = Double.longBitsToDouble(0x7ff8000000000001L);
+        double[] elements = {
+            -0.0, 0.0, Double.NaN, quietNaN, Double.MIN_VALUE,
+            Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY
+        };
+        
+        double[] copy = readFrom(write(toList(elements))).toArray();
+        assertEquals(elements.length, copy.length);
+        
+        for (int i = 0; i < elements.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(elements[i]),
+                         Double.doubleToRawLongBits(copy[i]));
+        }
+    }
+    
+    @Test(expected = StreamCorruptedException.class)
+    public void readFromRejectsOtherElementTypes() throws IOException {
+        LongLinkedBlockList longList = new LongLinkedBlockList();
+        longList.add(1L);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        longList.writeTo(Channels.newChannel(stream));
+        readFrom(stream.toByteArray());
+    }
+    
+    private static byte[] write(DoubleLinkedBlockList list)
+            throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        list.writeTo(Channels.newChannel(stream));
+        return stream.toByteArray();
+    }
+    
+    private static DoubleLinkedBlockList readFrom(byte[] bytes)
+            throws IOException {
+        return DoubleLinkedBlockList.readFrom(
+                Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+    
+    private static DoubleLinkedBlockList toList(double... elements) {
+        DoubleLinkedBlockList list = new DoubleLinkedBlockList();
+        
+        for (double element : elements) {
+            list.add(element);
+        }
+        
+        return list;
+    }
+}
@@ -0,0 +1,204 @@
+package net.coderodde.util.experimental;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class IntLinkedBlockListTest {
+    
+    private IntLinkedBlockList list;
+    
+    @Before
+    public void before() {
+        list = new IntLinkedBlockList(4);
+    }
+    
+    @Test
+    public void addGetSetRemove() {
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        
+        list.add(5, 100); // Splits a full block.
+        assertEquals(11, list.size());
+        assertEquals(100, list.get(5));
+        assertEquals(5, list.get(6));
+        
+        assertEquals(100, list.set(5, -1));
+        assertEquals(-1, list.remove(5));
+        
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, list.get(i));
+        }
+    }
+    
+    @Test
+    public void dequeOperations() {
+        for (int i = 0; i < 10; i++) {
+            list.addFirst(-i);
+            list.addLast(i);
+        }
+        
+        assertEquals(-9, list.getFirst());
+        assertEquals(9, list.getLast());
+        
+        for (int i = 9; i >= 0; i--) {
+            assertEquals(-i, list.removeFirst());
+            assertEquals(i, list.removeLast());
+        }
+        
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.getNumberOfBlocks());
+    }
+    
+    @Test(expected = NoSuchElementException.class)
+    public void removeFirstThrowsOnEmptyList() {
+        list.removeFirst();
+    }
+    
+    @Test
+    public void bruteForceTest() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        List<Integer> javaList = new ArrayList<>();
+        
+        for (int operationNumber = 0; 
+                 operationNumber < 10_000; 
+                 operationNumber++) {
+            if (javaList.size() > 0 && random.nextInt(5) < 2) {
+                int index = random.nextInt(javaList.size());
+                assertEquals((int) javaList.remove(index), list.remove(index));
+            } else {
+                int element = random.nextInt(1000);
+                int index = random.nextInt(javaList.size() + 1);
+                javaList.add(index, element);
+                list.add(index, element);
+            }
+            
+            assertEquals(javaList.size(), list.size());
+        }
+        
+        for (int i = 0; i < javaList.size(); i++) {
+            assertEquals((int) javaList.get(i), list.get(i));
+        }
+        
+        assertArrayEquals(
+                javaList.stream().mapToInt(Integer::intValue).toArray(),
+                list.toArray());
+    }
+    
+    @Test
+    public void indexOfAndContains() {
+        for (int i = 0; i < 20; i++) {
+            list.add(i % 7);
+        }
+        
+        assertEquals(3, list.indexOf(3));
+        assertEquals(17, list.lastIndexOf(3));
+        assertTrue(list.contains(6));
+        assertFalse(list.contains(7));
+        assertEquals(-1, list.indexOf(-1));
+        assertEquals(-1, list.lastIndexOf(-1));
+    }
+    
+    @Test
+    public void iterator() {
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        
+        PrimitiveIterator.OfInt iterator = list.iterator();
+        
+        for (int i = 0; i < 10; i++) {
+            assertTrue(iterator.hasNext());
+            assertEquals(i, iterator.nextInt());
+        }
+        
+        assertFalse(iterator.hasNext());
+        assertEquals("[0, 1, 2]", toList(0, 1, 2).toString());
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void iteratorFailsFast() {
+        list.add(1);
+        list.add(2);
+        PrimitiveIterator.OfInt iterator = list.iterator();
+        iterator.nextInt();
+        list.add(3);
+        iterator.nextInt();
+    }
+    
+    @Test
+    public void streams() {
+        for (int i = 0; i < 10_000; i++) {
+            list.add(i);
+        }
+        
+        assertEquals(IntStream.range(0, 10_000).sum(), list.stream().sum());
+        assertEquals(IntStream.range(0, 10_000).sum(), 
+                     list.parallelStream().sum());
+        assertArrayEquals(IntStream.range(0, 10_000).toArray(),
+                          list.parallelStream().toArray());
+        assertEquals(0, new IntLinkedBlockList().stream().count());
+    }
+    
+    @Test
+    public void writeToAndReadFrom() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            // Prepending wraps the ring buffers of the blocks:
+            list.addFirst(i);
+            list.add(list.size() / 2, -i);
+        }
+        
+        IntLinkedBlockList copy = readFrom(write(list));
+        assertArrayEquals(list.toArray(), copy.toArray());
+        assertEquals(2000 / 4, copy.getNumberOfBlocks());
+        assertEquals(0, readFrom(write(new IntLinkedBlockList())).size());
+    }
+    
+    @Test(expected = StreamCorruptedException.class)
+    public void readFromRejectsOtherElementTypes() throws IOException {
+        LongLinkedBlockList longList = new LongLinkedBlockList();
+        longList.add(1L);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        longList.writeTo(Channels.newChannel(stream));
+        readFrom(stream.toByteArray());
+    }
+    
+    private static byte[] write(IntLinkedBlockList list) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        list.writeTo(Channels.newChannel(stream));
+        return stream.toByteArray();
+    }
+    
+    private static IntLinkedBlockList readFrom(byte[] bytes) 
+            throws IOException {
+        return IntLinkedBlockList.readFrom(
+                Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+    
+    private static IntLinkedBlockList toList(int... elements) {
+        IntLinkedBlockList list = new IntLinkedBlockList();
+        
+        for (int element : elements) {
+            list.add(element);
+        }
+        
+        return list;
+    }
+}
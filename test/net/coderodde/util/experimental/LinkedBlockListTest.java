@@ -1,10 +1,26 @@
 package net.coderodde.util.experimental;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import static junit.framework.Assert.fail;
 import org.junit.Before;
 import org.junit.Test;
@@ -177,6 +193,1299 @@ public class LinkedBlockListTest {
         }
     }
     
+    @Test
+    public void splitMovesSuffixToNewBlock() {
+        for (int i = 0; i < 4; i++) {
+            list.add(i, i);
+        }
+        
+        // The block is full and the new element goes to its right half:
+        list.add(3, 10);
+        // [0, 1, 2, 10, 3]
+        assertEquals(5, list.size());
+        assertEquals(0,  (int) list.get(0));
+        assertEquals(1,  (int) list.get(1));
+        assertEquals(2,  (int) list.get(2));
+        assertEquals(10, (int) list.get(3));
+        assertEquals(3,  (int) list.get(4));
+    }
+    
+    @Test
+    public void bruteForceBlockIndexTest() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        List<Integer> javaList = new ArrayList<>();
+        list.setBlockIndexEnabled(true);
+        
+        for (int operationNumber = 0; 
+                 operationNumber < 10_000; 
+                 operationNumber++) {
+            int operationCode = random.nextInt(3);
+            
+            if (operationCode == 0 && !javaList.isEmpty()) {
+                int index = random.nextInt(javaList.size());
+                javaList.remove(index);
+                list.remove(index);
+            } else if (operationCode == 1 && javaList.size() < 200) {
+                Integer integer = random.nextInt(1000);
+                int index = random.nextInt(javaList.size() + 1);
+                javaList.add(index, integer);
+                list.add(index, integer);
+            } else if (operationCode == 2) {
+                // Toggling the index rebuilds it from the chain of blocks:
+                list.setBlockIndexEnabled(!list.isBlockIndexEnabled());
+            }
+            
+            assertTrue("Seed = " + seed, equals(javaList, list));
+        }
+    }
+    
+    @Test
+    public void dequeOperations() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        Deque<Integer> deque = new ArrayDeque<>();
+        
+        for (int operationNumber = 0; 
+                 operationNumber < 10_000; 
+                 operationNumber++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    deque.addFirst(operationNumber);
+                    list.addFirst(operationNumber);
+                    break;
+                    
+                case 1:
+                    deque.addLast(operationNumber);
+                    list.addLast(operationNumber);
+                    break;
+                    
+                case 2:
+                    if (!deque.isEmpty()) {
+                        assertEquals(deque.removeFirst(), list.removeFirst());
+                    }
+                    
+                    break;
+                    
+                case 3:
+                    if (!deque.isEmpty()) {
+                        assertEquals(deque.removeLast(), list.removeLast());
+                    }
+                    
+                    break;
+            }
+        }
+        
+        assertTrue("Seed = " + seed, 
+                   equals(new ArrayList<>(deque), list));
+    }
+    
+    @Test(expected = NoSuchElementException.class)
+    public void removeFirstThrowsOnEmptyList() {
+        list.removeFirst();
+    }
+    
+    @Test
+    public void clusteredAccessAroundCursor() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        List<Integer> javaList = new ArrayList<>();
+        
+        for (int i = 0; i < 100; i++) {
+            javaList.add(i);
+            list.add(i, i);
+        }
+        
+        int cursor = 50;
+        
+        for (int operationNumber = 0; 
+                 operationNumber < 10_000; 
+                 operationNumber++) {
+            cursor += random.nextInt(9) - 4;
+            cursor = Math.max(0, Math.min(javaList.size() - 1, cursor));
+            
+            switch (random.nextInt(3)) {
+                case 0:
+                    javaList.add(cursor, operationNumber);
+                    list.add(cursor, operationNumber);
+                    break;
+                    
+                case 1:
+                    if (javaList.size() > 1) {
+                        javaList.remove(cursor);
+                        list.remove(cursor);
+                    }
+                    
+                    break;
+                    
+                case 2:
+                    assertEquals("Seed = " + seed, 
+                                 javaList.get(cursor), 
+                                 list.get(cursor));
+                    break;
+            }
+        }
+        
+        assertTrue("Seed = " + seed, equals(javaList, list));
+    }
+    
+    @Test
+    public void compactAfterChurn() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        List<Integer> javaList = new ArrayList<>();
+        list.setMinimumFillFactor(0.0f);
+        
+        for (int i = 0; i < 1000; i++) {
+            int index = random.nextInt(javaList.size() + 1);
+            javaList.add(index, i);
+            list.add(index, i);
+        }
+        
+        for (int i = 0; i < 900; i++) {
+            int index = random.nextInt(javaList.size());
+            javaList.remove(index);
+            list.remove(index);
+        }
+        
+        list.compact();
+        assertTrue("Seed = " + seed, equals(javaList, list));
+        
+        list.add(50, -1);
+        javaList.add(50, -1);
+        assertTrue("Seed = " + seed, equals(javaList, list));
+    }
+    
+    @Test
+    public void mergeUnderfilledBlocks() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        List<Integer> javaList = new ArrayList<>();
+        list.setMinimumFillFactor(0.5f);
+        
+        for (int i = 0; i < 1000; i++) {
+            int index = random.nextInt(javaList.size() + 1);
+            javaList.add(index, i);
+            list.add(index, i);
+        }
+        
+        while (!javaList.isEmpty()) {
+            int index = random.nextInt(javaList.size());
+            assertEquals("Seed = " + seed, 
+                         javaList.get(index), 
+                         list.get(index));
+            javaList.remove(index);
+            list.remove(index);
+        }
+        
+        assertEquals(0, list.size());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooLargeMinimumFillFactor() {
+        list.setMinimumFillFactor(0.75f);
+    }
+    
+    @Test
+    public void statistics() {
+        assertEquals(0, list.getNumberOfBlocks());
+        assertEquals(0.0f, list.getDensityFactor(), 0.0f);
+        
+        for (int i = 0; i < 16; i++) {
+            list.addLast(i);
+        }
+        
+        assertEquals(4, list.getNumberOfBlocks());
+        assertEquals(1.0f, list.getDensityFactor(), 0.0f);
+        assertEquals(4.0f, list.getMeanBlockFill(), 0.0f);
+        assertEquals(4, list.getMinimumBlockFill());
+        assertEquals(0L, list.getWastedSlots());
+        
+        // Splits the second block:
+        list.add(6, 100);
+        assertEquals(1L, list.getNumberOfSplits());
+        assertEquals(5, list.getNumberOfBlocks());
+        assertEquals(2, list.getMinimumBlockFill());
+        assertEquals(3L, list.getWastedSlots());
+        
+        list.removeFirst();
+        list.removeFirst();
+        list.removeFirst();
+        assertEquals(1, list.getMinimumBlockFill());
+        
+        list.resetCounters();
+        assertEquals(0L, list.getNumberOfSplits());
+        assertEquals(0.0, list.getAverageBlocksTraversedPerLookup(), 0.0);
+        
+        // The finger points at the head block, which now holds only one 
+        // element, so the second lookup steps to the next block:
+        list.get(0);
+        list.get(1);
+        assertEquals(0.5, list.getAverageBlocksTraversedPerLookup(), 0.0);
+    }
+    
+    @Test
+    public void iterator() {
+        for (int i = 0; i < 100; i++) {
+            list.add(i, i);
+        }
+        
+        int expected = 0;
+        
+        for (Integer integer : list) {
+            assertEquals(expected++, (int) integer);
+        }
+        
+        assertEquals(100, expected);
+    }
+    
+    @Test
+    public void listIteratorModifiesAtCursor() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        List<Integer> javaList = new ArrayList<>();
+        
+        for (int i = 0; i < 100; i++) {
+            javaList.add(i);
+            list.add(i, i);
+        }
+        
+        ListIterator<Integer> javaIterator = javaList.listIterator(50);
+        ListIterator<Integer> iterator = list.listIterator(50);
+        
+        for (int operationNumber = 0; 
+                 operationNumber < 10_000; 
+                 operationNumber++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    if (javaIterator.hasNext()) {
+                        assertEquals(javaIterator.next(), iterator.next());
+                        
+                        if (random.nextBoolean()) {
+                            javaIterator.remove();
+                            iterator.remove();
+                        } else {
+                            javaIterator.set(-operationNumber);
+                            iterator.set(-operationNumber);
+                        }
+                    }
+                    
+                    break;
+                    
+                case 1:
+                    if (javaIterator.hasPrevious()) {
+                        assertEquals(javaIterator.previous(), 
+                                     iterator.previous());
+                    }
+                    
+                    break;
+                    
+                default:
+                    javaIterator.add(operationNumber);
+                    iterator.add(operationNumber);
+                    break;
+            }
+            
+            assertEquals(javaIterator.nextIndex(), iterator.nextIndex());
+        }
+        
+        assertTrue("Seed = " + seed, equals(javaList, list));
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void iteratorFailsFast() {
+        list.add(0, 1);
+        list.add(1, 2);
+        
+        Iterator<Integer> iterator = list.iterator();
+        iterator.next();
+        list.add(0, 0);
+        iterator.next();
+    }
+    
+    @Test
+    public void listContract() {
+        List<Integer> javaList = new ArrayList<>();
+        
+        for (int i = 0; i < 100; i++) {
+            javaList.add(i % 10);
+            list.add(i % 10);
+        }
+        
+        assertEquals(javaList, list);
+        assertEquals(list, javaList);
+        assertEquals(javaList.hashCode(), list.hashCode());
+        assertEquals(javaList.toString(), list.toString());
+        
+        assertEquals(javaList.indexOf(7), list.indexOf(7));
+        assertEquals(javaList.lastIndexOf(7), list.lastIndexOf(7));
+        assertEquals(-1, list.indexOf(100));
+        assertTrue(list.contains(9));
+        assertFalse(list.contains(null));
+        
+        assertEquals(javaList.set(42, -42), list.set(42, -42));
+        assertEquals(javaList.remove(17), list.remove(17));
+        assertEquals(javaList.remove((Integer) 5), 
+                     list.remove((Integer) 5));
+        
+        javaList.removeIf(i -> i % 3 == 0);
+        list.removeIf(i -> i % 3 == 0);
+        assertEquals(javaList, list);
+        
+        javaList.subList(10, 30).clear();
+        list.subList(10, 30).clear();
+        assertEquals(javaList, list);
+        assertArrayEquals(javaList.toArray(), list.toArray());
+        assertArrayEquals(javaList.toArray(new Integer[0]), 
+                          list.toArray(new Integer[0]));
+        
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.getNumberOfBlocks());
+    }
+    
+    @Test
+    public void dequeContract() {
+        Deque<Integer> deque = list;
+        
+        assertNull(deque.peekFirst());
+        assertNull(deque.pollLast());
+        
+        deque.push(2);
+        deque.push(1);
+        deque.offer(3);
+        deque.offerLast(4);
+        // [1, 2, 3, 4]
+        assertEquals(1, (int) deque.peek());
+        assertEquals(4, (int) deque.getLast());
+        
+        Iterator<Integer> iterator = deque.descendingIterator();
+        
+        for (int i = 4; i > 0; i--) {
+            assertEquals(i, (int) iterator.next());
+        }
+        
+        assertFalse(iterator.hasNext());
+        assertEquals(1, (int) deque.pop());
+        assertEquals(4, (int) deque.pollLast());
+        assertEquals(2, (int) deque.remove());
+        assertTrue(deque.removeLastOccurrence(3));
+        assertTrue(deque.isEmpty());
+    }
+    
+    @Test
+    public void bulkAddAllAndRemoveRange() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        List<Integer> javaList = new ArrayList<>();
+        
+        for (int operationNumber = 0; 
+                 operationNumber < 1000; 
+                 operationNumber++) {
+            if (random.nextBoolean() || javaList.isEmpty()) {
+                List<Integer> chunk = new ArrayList<>();
+                int chunkSize = random.nextInt(20);
+                
+                for (int i = 0; i < chunkSize; i++) {
+                    chunk.add(random.nextInt(1000));
+                }
+                
+                int index = random.nextInt(javaList.size() + 1);
+                javaList.addAll(index, chunk);
+                list.addAll(index, chunk);
+            } else {
+                int fromIndex = random.nextInt(javaList.size() + 1);
+                int toIndex = fromIndex + 
+                        random.nextInt(javaList.size() - fromIndex + 1);
+                javaList.subList(fromIndex, toIndex).clear();
+                list.removeRange(fromIndex, toIndex);
+            }
+            
+            assertTrue("Seed = " + seed, equals(javaList, list));
+        }
+    }
+    
+    @Test
+    public void removeRangeRebalancesBoundaryBlocks() {
+        LinkedBlockList<Integer> list = new LinkedBlockList<>(16);
+        List<Integer> javaList = new ArrayList<>();
+        Random random = new Random(1L);
+
+        for (int i = 0; i < 20_000; i++) {
+            list.add(i);
+            javaList.add(i);
+        }
+
+        while (list.size() > 2_000) {
+            int fromIndex = random.nextInt(list.size() - 40);
+            int toIndex = fromIndex + 15 + random.nextInt(20);
+            list.removeRange(fromIndex, toIndex);
+            javaList.subList(fromIndex, toIndex).clear();
+        }
+
+        assertEquals(javaList, list);
+        // Without rebalancing, the blocks hold fewer than 7 elements on 
+        // average:
+        assertTrue(list.getMeanBlockFill() > 8.0f);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void removeRangeRejectsReversedRange() {
+        list.add(0);
+        list.add(1);
+        list.removeRange(2, 1);
+    }
+    
+    @Test
+    public void parallelStream() {
+        List<Integer> javaList = new ArrayList<>();
+        
+        for (int i = 0; i < 10_000; i++) {
+            javaList.add(i);
+            list.add(i);
+        }
+        
+        assertEquals(javaList, 
+                     list.parallelStream().collect(Collectors.toList()));
+        
+        list.setBlockIndexEnabled(true);
+        assertEquals(javaList.stream().mapToLong(i -> i).sum(),
+                     list.parallelStream().mapToLong(i -> i).sum());
+    }
+    
+    @Test
+    public void spliteratorSplitsOnBlockBoundaries() {
+        for (int i = 0; i < 16; i++) {
+            list.add(i);
+        }
+        
+        Spliterator<Integer> suffix = list.spliterator();
+        assertTrue(suffix.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(suffix.hasCharacteristics(Spliterator.SUBSIZED));
+        assertTrue(suffix.hasCharacteristics(Spliterator.ORDERED));
+        
+        Spliterator<Integer> prefix = suffix.trySplit();
+        assertEquals(8, prefix.estimateSize());
+        assertEquals(8, suffix.estimateSize());
+        
+        suffix.tryAdvance(i -> assertEquals(8, (int) i));
+        prefix.tryAdvance(i -> assertEquals(0, (int) i));
+    }
+    
+    @Test
+    public void blockPoolServesSplitsAfterWarmUp() {
+        list.setBlockPoolCapacity(8);
+        Random random = new Random(1L);
+        
+        for (int i = 0; i < 64; i++) {
+            list.add(i);
+        }
+        
+        // Warm up: let the churn fill the pool.
+        for (int i = 0; i < 1000; i++) {
+            list.add(random.nextInt(list.size() + 1), i);
+            list.remove(random.nextInt(list.size()));
+        }
+        
+        list.resetCounters();
+        
+        for (int i = 0; i < 1000; i++) {
+            list.add(random.nextInt(list.size() + 1), i);
+            list.remove(random.nextInt(list.size()));
+        }
+        
+        // The block count only rarely reaches a new maximum:
+        assertTrue(list.getBlockPoolHits() > 0L);
+        assertTrue(list.getBlockPoolMisses() < list.getBlockPoolHits() / 10);
+        assertEquals(64, list.size());
+        
+        list.setBlockPoolCapacity(0);
+        assertEquals(0, list.getNumberOfPooledBlocks());
+    }
+    
+    @Test
+    public void adaptiveBlockCapacityGrowsWithList() {
+        LinkedBlockList<Integer> list = new LinkedBlockList<>(64);
+        list.setAdaptiveBlockCapacityEnabled(true);
+        
+        for (int i = 0; i < 8; i++) {
+            list.add(i);
+        }
+        
+        // Two blocks of the minimum capacity:
+        assertEquals(2, list.getNumberOfBlocks());
+        assertEquals(0, list.getWastedSlots());
+        
+        for (int i = 8; i < 10_000; i++) {
+            list.add(i);
+        }
+        
+        // Far fewer blocks than with 4-slot blocks, little waste at the end:
+        assertTrue(list.getNumberOfBlocks() < 10_000 / 32);
+        assertTrue(list.getWastedSlots() < 64);
+        
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, (int) list.get(i));
+        }
+    }
+    
+    @Test
+    public void splitShrinkingHalvesNewBlocks() {
+        LinkedBlockList<Integer> list = new LinkedBlockList<>(16);
+        list.setSplitShrinkingEnabled(true);
+        
+        for (int i = 0; i < 16; i++) {
+            list.add(i);
+        }
+        
+        // The 3-element prefix and the new element go to an 8-slot block:
+        list.add(3, -1);
+        assertEquals(2, list.getNumberOfBlocks());
+        assertEquals((16 - 13) + (8 - 4), list.getWastedSlots());
+        
+        list.setSplitShrinkingEnabled(false);
+        list.add(0, -2);
+        list.add(0, -3);
+        list.add(0, -4);
+        list.add(0, -5);
+        list.add(2, -6); // Splits the full 8-slot block into a 16-slot one.
+        assertEquals(3, list.getNumberOfBlocks());
+        assertEquals((16 - 13) + (8 - 6) + (16 - 3), list.getWastedSlots());
+    }
+
+    @Test
+    public void snapshotsKeepTheirContents() {
+        Random random = new Random(1L);
+        list.setBlockIndexEnabled(true);
+        list.setBlockPoolCapacity(4);
+        List<Integer> javaList = new ArrayList<>();
+        List<List<Integer>> snapshots = new ArrayList<>();
+        List<List<Integer>> copies = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            if (i % 100 == 0) {
+                snapshots.add(list.snapshot());
+                copies.add(new ArrayList<>(javaList));
+            }
+
+            int index = random.nextInt(javaList.size() + 1);
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    if (index < javaList.size()) {
+                        assertEquals(javaList.remove(index),
+                                     list.remove(index));
+                    }
+
+                    break;
+
+                case 1:
+                    if (index < javaList.size()) {
+                        assertEquals(javaList.set(index, i),
+                                     list.set(index, i));
+                    }
+
+                    break;
+
+                default:
+                    javaList.add(index, i);
+                    list.add(index, i);
+                    break;
+            }
+        }
+
+        assertEquals(javaList, list);
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            List<Integer> snapshot = snapshots.get(i);
+            List<Integer> copy = copies.get(i);
+            assertEquals(copy, snapshot);
+
+            for (int j = 0; j < copy.size(); j++) {
+                assertEquals(copy.get(j), snapshot.get(j));
+            }
+        }
+    }
+
+    @Test
+    public void snapshotIsImmutable() {
+        list.add(1);
+        List<Integer> snapshot = list.snapshot();
+        assertSame(snapshot, list.snapshot());
+
+        try {
+            snapshot.add(2);
+            fail("The snapshot should be immutable.");
+        } catch (UnsupportedOperationException ex) {
+
+        }
+
+        ListIterator<Integer> iterator = list.listIterator();
+        iterator.next();
+        iterator.set(3);
+        assertEquals(Integer.valueOf(1), snapshot.get(0));
+        assertEquals(Integer.valueOf(3), list.get(0));
+        assertNotSame(snapshot, list.snapshot());
+    }
+
+    @Test
+    public void iteratorSetAfterSnapshotKeepsOtherIteratorsValid() {
+        for (int i = 0; i < 20; i++) {
+            list.add(i);
+        }
+
+        List<Integer> snapshot = list.snapshot();
+        ListIterator<Integer> iterator = list.listIterator();
+        ListIterator<Integer> otherIterator = list.listIterator(10);
+        iterator.next();
+        iterator.set(-1);
+        assertEquals(Integer.valueOf(10), otherIterator.next());
+        otherIterator.set(-2);
+        List<Integer> secondSnapshot = list.snapshot();
+        assertEquals(Integer.valueOf(1), iterator.next());
+        iterator.set(-3);
+        assertEquals(Integer.valueOf(11), otherIterator.next());
+
+        assertEquals(
+                IntStream.range(0, 20).boxed().collect(Collectors.toList()),
+                snapshot);
+        assertEquals(Integer.valueOf(1), secondSnapshot.get(1));
+        assertEquals(Integer.valueOf(-2), secondSnapshot.get(10));
+        assertEquals(Arrays.asList(-1, -3, 2), list.subList(0, 3));
+    }
+
+    @Test
+    public void subListSetAfterSnapshotKeepsViewsValid() {
+        for (int i = 0; i < 20; i++) {
+            list.add(i);
+        }
+
+        List<Integer> subList = list.subList(5, 15);
+        Iterator<Integer> iterator = list.iterator();
+        List<Integer> snapshot = list.snapshot();
+        subList.set(0, -1);
+        list.snapshot();
+        subList.set(9, -2);
+        assertEquals(Integer.valueOf(0), iterator.next());
+        assertEquals(Integer.valueOf(-1), subList.get(0));
+        assertEquals(Integer.valueOf(-2), list.get(14));
+        assertEquals(
+                IntStream.range(0, 20).boxed().collect(Collectors.toList()),
+                snapshot);
+    }
+
+    @Test
+    public void droppedSnapshotsLeaveNoBlockVersions() 
+            throws InterruptedException {
+        for (int i = 0; i < 10_000; i++) {
+            list.add(i);
+        }
+
+        List<Integer> snapshot = list.snapshot();
+
+        for (int i = 0; i < list.size(); i += 2) {
+            list.set(i, -1);
+        }
+
+        List<Integer> secondSnapshot = list.snapshot();
+
+        for (int i = 0; i < list.size(); i += 2) {
+            list.set(i, -2);
+        }
+
+        int blocks = list.getNumberOfBlocks();
+        assertEquals(2 * blocks, list.getNumberOfBlockVersions());
+
+        // Only the versions read by the second snapshot are left:
+        snapshot = null;
+        awaitBlockVersions(blocks);
+
+        for (int i = 0; i < secondSnapshot.size(); i++) {
+            Integer expected = i % 2 == 0 ? -1 : i;
+            assertEquals(expected, secondSnapshot.get(i));
+        }
+
+        secondSnapshot = null;
+        awaitBlockVersions(0);
+    }
+
+    /**
+     * Collects the dropped snapshots and writes to the head block only, so 
+     * that the versions of the other blocks are left to the sweep, until 
+     * {@code expected} versions are left.
+     */
+    private void awaitBlockVersions(int expected) 
+            throws InterruptedException {
+        for (int round = 0; 
+                round < 100 && list.getNumberOfBlockVersions() != expected; 
+                round++) {
+            System.gc();
+            Thread.sleep(10L);
+
+            for (int i = 0; i < list.getNumberOfBlocks(); i++) {
+                list.set(0, round);
+            }
+        }
+
+        assertEquals(expected, list.getNumberOfBlockVersions());
+    }
+
+    @Test
+    public void snapshotsSurviveBulkOperations() {
+        Random random = new Random(2L);
+        list.setBlockPoolCapacity(8);
+        List<Integer> javaList = new ArrayList<>();
+        List<List<Integer>> snapshots = new ArrayList<>();
+        List<List<Integer>> copies = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            if (random.nextInt(5) == 0) {
+                snapshots.add(list.snapshot());
+                copies.add(new ArrayList<>(javaList));
+            }
+
+            int index = random.nextInt(javaList.size() + 1);
+            int toIndex = index + random.nextInt(javaList.size() - index + 1);
+
+            switch (random.nextInt(8)) {
+                case 0:
+                    javaList.subList(index, toIndex).clear();
+                    list.subList(index, toIndex).clear();
+                    break;
+
+                case 1:
+                    List<Integer> elements = Collections.nCopies(
+                            random.nextInt(20), i);
+                    javaList.addAll(index, elements);
+                    list.addAll(index, elements);
+                    break;
+
+                case 2:
+                    int remainder = i % 7;
+                    javaList.removeIf(element -> element % 7 == remainder);
+                    list.removeIf(element -> element % 7 == remainder);
+                    break;
+
+                case 3:
+                    LinkedBlockList<Integer> suffix = list.splitAt(index);
+                    snapshots.add(suffix.snapshot());
+                    copies.add(new ArrayList<>(
+                            javaList.subList(index, javaList.size())));
+
+                    if (!suffix.isEmpty()) {
+                        suffix.set(0, i);
+                        javaList.set(index, i);
+                    }
+
+                    list.append(suffix);
+                    break;
+
+                case 4:
+                    list.compact();
+                    break;
+
+                case 5:
+                    list.applyBatch(Arrays.asList(
+                            LinkedBlockList.Edit.insert(index, -i),
+                            LinkedBlockList.Edit.set(0, i)));
+                    javaList.add(index, -i);
+                    javaList.set(0, i);
+                    break;
+
+                case 6:
+                    if (random.nextInt(10) == 0) {
+                        javaList.clear();
+                        list.clear();
+                    }
+
+                    break;
+
+                default:
+                    javaList.add(index, i);
+                    list.add(index, i);
+                    break;
+            }
+        }
+
+        assertEquals(javaList, list);
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            List<Integer> snapshot = snapshots.get(i);
+            List<Integer> copy = copies.get(i);
+            assertEquals(copy, snapshot);
+            assertEquals(copy, Arrays.asList(snapshot.toArray()));
+
+            for (int j = 0; j < copy.size(); j++) {
+                assertEquals(copy.get(j), snapshot.get(j));
+            }
+        }
+    }
+
+    @Test
+    public void serializationKeepsElementsAndSettings() 
+            throws IOException, ClassNotFoundException {
+        list.setBlockIndexEnabled(true);
+        list.setSplitShrinkingEnabled(true);
+        list.setMinimumFillFactor(0.5f);
+        
+        for (int i = 0; i < 100; i++) {
+            list.add(i / 2, i);
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        
+        try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+            stream.writeObject(list);
+        }
+        
+        LinkedBlockList<Integer> copy;
+        
+        try (ObjectInputStream stream = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (LinkedBlockList<Integer>) stream.readObject();
+        }
+        
+        assertEquals(list, copy);
+        assertEquals(100 / 4, copy.getNumberOfBlocks());
+        assertTrue(copy.isBlockIndexEnabled());
+        assertTrue(copy.isSplitShrinkingEnabled());
+        assertEquals(0.5f, copy.getMinimumFillFactor(), 0.0f);
+        assertEquals(list.get(49), copy.get(49));
+    }
+    
+    @Test
+    public void fromIteratorFillsBlocks() {
+        List<Integer> javaList = new ArrayList<>();
+        
+        for (int i = 0; i < 1000; i++) {
+            javaList.add(i);
+        }
+        
+        LinkedBlockList<Integer> list = 
+                LinkedBlockList.from(javaList.iterator());
+        
+        assertEquals(javaList, list);
+        assertEquals((1000 + 63) / 64, list.getNumberOfBlocks());
+        list.add(500, -1);
+        javaList.add(500, -1);
+        assertEquals(javaList, list);
+    }
+    
+    @Test
+    public void splitAtAndAppendRelinkBlocks() {
+        list = new LinkedBlockList<>(8);
+        list.setBlockIndexEnabled(true);
+        List<Integer> javaList = new ArrayList<>();
+        
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+            javaList.add(i);
+        }
+        
+        LinkedBlockList<Integer> suffix = list.splitAt(43);
+        
+        assertEquals(javaList.subList(0, 43), list);
+        assertEquals(javaList.subList(43, 100), suffix);
+        assertTrue(suffix.isBlockIndexEnabled());
+        assertEquals(list.size() + suffix.size(), 100);
+        assertEquals(Integer.valueOf(50), suffix.get(7));
+        
+        list.append(suffix);
+        
+        assertEquals(javaList, list);
+        assertTrue(suffix.isEmpty());
+        assertEquals(0, suffix.getNumberOfBlocks());
+        assertEquals(javaList, list.splitAt(0));
+        assertTrue(list.isEmpty());
+        assertTrue(list.splitAt(0).isEmpty());
+    }
+    
+    @Test
+    public void appendCopiesLargerBlocks() {
+        LinkedBlockList<Integer> other = new LinkedBlockList<>(64);
+        list = new LinkedBlockList<>(4);
+        list.add(-1);
+        
+        for (int i = 0; i < 100; i++) {
+            other.add(i);
+        }
+        
+        list.append(other);
+        
+        assertEquals(101, list.size());
+        assertEquals(Integer.valueOf(99), list.get(100));
+        assertTrue(other.isEmpty());
+    }
+    
+    @Test
+    public void instrumentationIsOffByDefault() {
+        assertFalse(LinkedBlockList.isInstrumented());
+        
+        for (int i = 0; i < 100; i++) {
+            list.add(i / 2, i);
+        }
+        
+        list.remove(50);
+        
+        assertEquals(0L, list.getNumberOfShiftedElements());
+        assertEquals(0L, list.getNumberOfUnlinks());
+        assertEquals(0L, Arrays.stream(list.getBlocksTraversedHistogram())
+                               .sum());
+        assertEquals(33, list.getElementsShiftedHistogram().length);
+    }
+    
+    @Test
+    public void parallelCollectorKeepsEncounterOrder() {
+        List<Integer> javaList = IntStream.range(0, 100_000)
+                                          .boxed()
+                                          .collect(Collectors.toList());
+        LinkedBlockList<Integer> list = 
+                javaList.parallelStream()
+                        .collect(LinkedBlockList.collector(16));
+        
+        assertEquals(javaList, list);
+        assertEquals(javaList, LinkedBlockList.from(javaList.stream()));
+        list.remove(40_000);
+        javaList.remove(40_000);
+        assertEquals(javaList, list);
+    }
+
+    @Test
+    public void subListMatchesArrayList() {
+        Random random = new Random(11L);
+        List<Integer> javaList = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            list.add(i);
+            javaList.add(i);
+        }
+
+        for (int round = 0; round < 200; round++) {
+            int fromIndex = random.nextInt(javaList.size() / 2);
+            int toIndex = fromIndex + random.nextInt(javaList.size() / 2);
+            List<Integer> javaView = javaList.subList(fromIndex, toIndex);
+            List<Integer> view = list.subList(fromIndex, toIndex);
+
+            if (random.nextBoolean() && view.size() > 2) {
+                // Work on a nested view:
+                int innerFromIndex = random.nextInt(view.size() / 2);
+                int innerToIndex = view.size() - 1;
+                javaView = javaView.subList(innerFromIndex, innerToIndex);
+                view = view.subList(innerFromIndex, innerToIndex);
+            }
+
+            int index = random.nextInt(javaView.size() + 1);
+            Integer value = random.nextInt(100);
+
+            switch (random.nextInt(6)) {
+                case 0:
+                    javaView.add(index, value);
+                    view.add(index, value);
+                    break;
+
+                case 1:
+                    if (index < javaView.size()) {
+                        assertEquals(javaView.remove(index),
+                                     view.remove(index));
+                    }
+
+                    break;
+
+                case 2:
+                    List<Integer> values = Arrays.asList(value, value + 1);
+                    javaView.addAll(index, values);
+                    view.addAll(index, values);
+                    break;
+
+                case 3:
+                    javaView.subList(index, javaView.size()).clear();
+                    view.subList(index, view.size()).clear();
+                    break;
+
+                case 4:
+                    assertEquals(javaView.indexOf(value), view.indexOf(value));
+                    assertEquals(javaView.lastIndexOf(value),
+                                 view.lastIndexOf(value));
+                    break;
+
+                case 5:
+                    ListIterator<Integer> javaIterator =
+                            javaView.listIterator(index);
+                    ListIterator<Integer> iterator = view.listIterator(index);
+
+                    while (javaIterator.hasNext()) {
+                        assertEquals(javaIterator.next(), iterator.next());
+
+                        if (random.nextInt(4) == 0) {
+                            javaIterator.remove();
+                            iterator.remove();
+                        } else if (random.nextInt(4) == 0) {
+                            javaIterator.add(value);
+                            iterator.add(value);
+                        }
+                    }
+
+                    assertFalse(iterator.hasNext());
+                    break;
+            }
+
+            assertEquals(javaView, view);
+            assertEquals(javaList, list);
+
+            if (javaList.size() < 20) {
+                javaList.addAll(Collections.nCopies(100, 1));
+                list.addAll(Collections.nCopies(100, 1));
+            }
+        }
+    }
+
+    @Test
+    public void reversedViewMatchesReversedArrayList() {
+        Random random = new Random(21L);
+        List<Integer> javaList = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            list.add(i);
+            javaList.add(i);
+        }
+
+        LinkedBlockList<Integer>.ReversedList view = list.reversed();
+        assertSame(list, view.reversed());
+
+        for (int round = 0; round < 300; round++) {
+            int index = random.nextInt(javaList.size() + 1);
+            int mirroredIndex = javaList.size() - index;
+            Integer value = random.nextInt(100);
+
+            switch (random.nextInt(7)) {
+                case 0:
+                    javaList.add(mirroredIndex, value);
+                    view.add(index, value);
+                    break;
+
+                case 1:
+                    if (index < javaList.size()) {
+                        assertEquals(javaList.remove(mirroredIndex - 1),
+                                     view.remove(index));
+                    }
+
+                    break;
+
+                case 2:
+                    javaList.add(value);
+                    view.push(value);
+                    assertEquals(value, view.peekFirst());
+                    break;
+
+                case 3:
+                    assertEquals(javaList.remove(0), view.pollLast());
+                    break;
+
+                case 4:
+                    javaList.subList(0, mirroredIndex).clear();
+                    view.subList(index, view.size()).clear();
+                    break;
+
+                case 5:
+                    int javaIndex = javaList.lastIndexOf(value);
+                    int expectedIndex = javaIndex < 0 ? 
+                                        -1 : 
+                                        javaList.size() - 1 - javaIndex;
+                    assertEquals(expectedIndex, view.indexOf(value));
+                    break;
+
+                case 6:
+                    ListIterator<Integer> javaIterator =
+                            javaList.listIterator(mirroredIndex);
+                    ListIterator<Integer> iterator = view.listIterator(index);
+
+                    while (javaIterator.hasPrevious()) {
+                        assertEquals(index++, iterator.nextIndex());
+                        assertEquals(javaIterator.previous(), iterator.next());
+
+                        if (random.nextInt(4) == 0) {
+                            javaIterator.remove();
+                            iterator.remove();
+                            index--;
+                        } else if (random.nextInt(4) == 0) {
+                            javaIterator.add(value);
+                            javaIterator.previous();
+                            iterator.add(value);
+                            index++;
+                        }
+                    }
+
+                    assertFalse(iterator.hasNext());
+                    break;
+            }
+
+            List<Integer> expected = new ArrayList<>(javaList);
+            Collections.reverse(expected);
+            assertEquals(expected, view);
+            assertEquals(javaList, list);
+
+            if (javaList.size() < 20) {
+                javaList.addAll(Collections.nCopies(100, 1));
+                list.addAll(Collections.nCopies(100, 1));
+            }
+        }
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void subListFailsFastAfterStructuralModification() {
+        list.addAll(Arrays.asList(1, 2, 3, 4, 5));
+        List<Integer> view = list.subList(1, 4);
+        list.add(0, 0);
+        view.get(0);
+    }
+
+    @Test
+    public void applyBatchMatchesSingleEdits() {
+        Random random = new Random(7L);
+
+        for (boolean blockIndexEnabled : new boolean[]{ false, true }) {
+            LinkedBlockList<Integer> list = new LinkedBlockList<>(8);
+            List<Integer> javaList = new ArrayList<>();
+            list.setBlockIndexEnabled(blockIndexEnabled);
+
+            for (int i = 0; i < 1000; i++) {
+                list.add(i);
+                javaList.add(i);
+            }
+
+            List<Integer> snapshot = list.snapshot();
+            List<Integer> snapshotCopy = new ArrayList<>(javaList);
+
+            for (int batch = 0; batch < 50; batch++) {
+                List<LinkedBlockList.Edit<Integer>> edits = new ArrayList<>();
+
+                for (int i = 0; i < 40; i++) {
+                    int index = random.nextInt(javaList.size());
+
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            edits.add(LinkedBlockList.Edit.insert(index, i));
+                            javaList.add(index, i);
+                            break;
+
+                        case 1:
+                            edits.add(LinkedBlockList.Edit.remove(index));
+                            javaList.remove(index);
+                            break;
+
+                        case 2:
+                            edits.add(LinkedBlockList.Edit.set(index, -i));
+                            javaList.set(index, -i);
+                            break;
+                    }
+                }
+
+                list.applyBatch(edits);
+                assertEquals(javaList, list);
+            }
+
+            assertEquals(snapshotCopy, snapshot);
+        }
+    }
+
+    @Test
+    public void applyBatchChecksIndicesFirst() {
+        LinkedBlockList<Integer> list = new LinkedBlockList<>(4);
+        list.addAll(Arrays.asList(0, 1, 2, 3, 4));
+
+        try {
+            list.applyBatch(Arrays.asList(LinkedBlockList.Edit.remove(0),
+                                          LinkedBlockList.Edit.insert(5, 9)));
+            fail("The insertion index is past the end of the list.");
+        } catch (IndexOutOfBoundsException ex) {
+
+        }
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), list);
+
+        list.applyBatch(Arrays.asList(LinkedBlockList.Edit.remove(0),
+                                      LinkedBlockList.Edit.insert(4, 9),
+                                      LinkedBlockList.Edit.set(0, 7)));
+        assertEquals(Arrays.asList(7, 2, 3, 4, 9), list);
+    }
+
+    @Test
+    public void autoTuningGrowsBlocksForRandomAccess() {
+        LinkedBlockList<Integer> list = new LinkedBlockList<>(8);
+        List<Integer> javaList = new ArrayList<>();
+        Random random = new Random(3L);
+
+        for (int i = 0; i < 10_000; i++) {
+            list.add(i);
+            javaList.add(i);
+        }
+
+        list.setAutoTuningEnabled(true);
+
+        for (int i = 0; i < 50_000; i++) {
+            int index = random.nextInt(javaList.size());
+
+            if (i % 16 == 0) {
+                assertEquals(javaList.remove(index), list.remove(index));
+                list.add(index, i);
+                javaList.add(index, i);
+            } else {
+                assertEquals(javaList.get(index), list.get(index));
+            }
+        }
+
+        assertTrue(list.getBlockCapacity() > 8);
+        assertEquals(javaList, list);
+
+        list.setAutoTuningEnabled(false);
+        int blockCapacity = list.getBlockCapacity();
+
+        for (int i = 0; i < 50_000; i++) {
+            list.get(random.nextInt(list.size()));
+        }
+
+        assertEquals(blockCapacity, list.getBlockCapacity());
+    }
+
+    @Test
+    public void autoTuningShrinksBlocksForInsertions() {
+        LinkedBlockList<Integer> list = new LinkedBlockList<>(4096);
+        List<Integer> javaList = new ArrayList<>();
+        Random random = new Random(5L);
+        list.setBlockIndexEnabled(true);
+        list.setAutoTuningEnabled(true);
+
+        for (int i = 0; i < 50_000; i++) {
+            int index = random.nextInt(javaList.size() + 1);
+            list.add(index, i);
+            javaList.add(index, i);
+        }
+
+        assertTrue(list.getBlockCapacity() < 4096);
+        assertEquals(javaList, list);
+    }
+
     private static boolean equals(List<Integer> javaList,
                                   LinkedBlockList<Integer> linkedBlockList) {
         if (javaList.size() != linkedBlockList.size()) {
@@ -0,0 +1,215 @@
+package net.coderodde.util.experimental;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OffHeapLongLinkedBlockListTest {
+    
+    private OffHeapLongLinkedBlockList list;
+    
+    @Before
+    public void before() {
+        list = new OffHeapLongLinkedBlockList(4);
+    }
+    
+    @After
+    public void after() {
+        list.close();
+    }
+    
+    @Test
+    public void bruteForceTest() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        
+        System.out.println("Seed = " + seed);
+        
+        List<Long> javaList = new ArrayList<>();
+        
+        for (int operationNumber = 0; 
+                 operationNumber < 10_000; 
+                 operationNumber++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    if (!javaList.isEmpty()) {
+                        int index = random.nextInt(javaList.size());
+                        assertEquals((long) javaList.remove(index), 
+                                     list.remove(index));
+                    }
+                    
+                    break;
+                
+                case 1:
+                    if (!javaList.isEmpty()) {
+                        assertEquals((long) javaList.remove(0), 
+                                     list.removeFirst());
+                    }
+                    
+                    break;
+                
+                default:
+                    long element = random.nextLong();
+                    int index = random.nextInt(javaList.size() + 1);
+                    javaList.add(index, element);
+                    list.add(index, element);
+                    break;
+            }
+            
+            assertEquals(javaList.size(), list.size());
+        }
+        
+        assertArrayEquals(
+                javaList.stream().mapToLong(Long::longValue).toArray(),
+                list.toArray());
+        assertArrayEquals(list.toArray(), list.parallelStream().toArray());
+    }
+    
+    @Test
+    public void clearFreesNativeMemory() {
+        for (long i = 0; i < 1000; i++) {
+            list.addLast(i);
+        }
+        
+        assertTrue(list.getReservedOffHeapBytes() >= 1000 * Long.BYTES);
+        assertEquals(LongStream.range(0, 1000).sum(), list.stream().sum());
+        
+        list.clear();
+        assertEquals(0L, list.getReservedOffHeapBytes());
+        
+        list.addFirst(1L);
+        assertEquals(1L, list.getFirst());
+    }
+    
+    @Test
+    public void removedBlocksAreReused() {
+        for (long i = 0; i < 100; i++) {
+            list.addLast(i);
+        }
+        
+        long reservedBytes = list.getReservedOffHeapBytes();
+        
+        for (int i = 0; i < 10_000; i++) {
+            list.addLast(list.removeFirst());
+        }
+        
+        assertEquals(reservedBytes, list.getReservedOffHeapBytes());
+    }
+    
+    @Test
+    public void closedListRejectsUpdates() {
+        list.addLast(1L);
+        PrimitiveIterator.OfLong iterator = list.iterator();
+        Spliterator.OfLong spliterator = list.spliterator();
+        list.close();
+        list.close();
+        
+        assertTrue(list.isEmpty());
+        assertEquals(0L, list.getReservedOffHeapBytes());
+        
+        try {
+            list.addLast(2L);
+            fail("Adding to a closed list should throw.");
+        } catch (IllegalStateException ex) {
+        }
+        
+        try {
+            iterator.nextLong();
+            fail("The iterator should fail fast after close.");
+        } catch (ConcurrentModificationException ex) {
+        }
+        
+        try {
+            spliterator.tryAdvance((long element) -> {});
+            fail("The spliterator should fail fast after close.");
+        } catch (ConcurrentModificationException ex) {
+        }
+    }
+    
+    @Test
+    public void forEachRemainingFailsFastWhenActionClearsList() {
+        try (OffHeapLongLinkedBlockList bigList =
+                new OffHeapLongLinkedBlockList(65536)) {
+            for (long i = 0; i < 200_000; i++) {
+                bigList.addLast(i);
+            }
+            
+            long[] sum = new long[1];
+            
+            try {
+                // Reading past the cleared element would touch freed memory:
+                bigList.spliterator().forEachRemaining((long element) -> {
+                    if (element == 5L) {
+                        bigList.clear();
+                    }
+                    
+                    sum[0] += element;
+                });
+                
+                fail("The spliterator should fail fast after clear.");
+            } catch (ConcurrentModificationException ex) {
+            }
+            
+            assertEquals(15L, sum[0]);
+            assertTrue(bigList.isEmpty());
+        }
+    }
+    
+    @Test
+    public void mapLoadsFileWithoutChangingIt() throws IOException {
+        Path path = Files.createTempFile("block-list", ".bin");
+        
+        try {
+            LongLinkedBlockList source = new LongLinkedBlockList(8);
+            
+            for (long i = 0; i < 1003; i++) {
+                source.addFirst(i);
+            }
+            
+            try (FileChannel channel = 
+                    FileChannel.open(path, StandardOpenOption.WRITE)) {
+                source.writeTo(channel);
+            }
+            
+            try (OffHeapLongLinkedBlockList mapped = 
+                    OffHeapLongLinkedBlockList.map(path)) {
+                assertArrayEquals(source.toArray(), mapped.toArray());
+                assertEquals(1003 / 8 + 1, mapped.getNumberOfBlocks());
+                
+                mapped.set(0, -1L);
+                mapped.add(500, -2L);
+                mapped.removeLast();
+                assertEquals(-1L, mapped.get(0));
+                assertEquals(-2L, mapped.get(500));
+            }
+            
+            // The mapping is private, so the file is intact:
+            try (FileChannel channel = FileChannel.open(path)) {
+                LongLinkedBlockList copy = 
+                        LongLinkedBlockList.readFrom(channel);
+                assertArrayEquals(source.toArray(), copy.toArray());
+            }
+            
+            try (FileChannel channel = FileChannel.open(path);
+                 OffHeapLongLinkedBlockList copy = 
+                         OffHeapLongLinkedBlockList.readFrom(channel)) {
+                assertArrayEquals(source.toArray(), copy.toArray());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package net.coderodde.util.experimental;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SortedLinkedBlockListTest {
+
+    private SortedLinkedBlockList<Integer> list;
+
+    @Before
+    public void before() {
+        list = new SortedLinkedBlockList<>(4, null);
+    }
+
+    @Test
+    public void bruteForceTest() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println("Seed = " + seed);
+
+        List<Integer> javaList = new ArrayList<>();
+
+        for (int operationNumber = 0;
+                 operationNumber < 10_000;
+                 operationNumber++) {
+            Integer element = random.nextInt(200);
+            int lowerBound = lowerBound(javaList, element);
+            int upperBound = lowerBound(javaList, element + 1);
+
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    javaList.add(upperBound, element);
+                    list.add(element);
+                    break;
+
+                case 2:
+                    assertEquals(javaList.remove(element),
+                                 list.remove(element));
+                    break;
+
+                case 3:
+                    assertEquals(lowerBound < upperBound ? lowerBound : -1,
+                                 list.indexOf(element));
+                    assertEquals(upperBound - lowerBound,
+                                 list.count(element));
+                    break;
+
+                case 4:
+                    assertEquals(elementAt(javaList, lowerBound - 1),
+                                 list.lower(element));
+                    assertEquals(elementAt(javaList, upperBound - 1),
+                                 list.floor(element));
+                    assertEquals(elementAt(javaList, lowerBound),
+                                 list.ceiling(element));
+                    assertEquals(elementAt(javaList, upperBound),
+                                 list.higher(element));
+                    break;
+
+                case 5:
+                    int toElement = element + random.nextInt(20);
+                    assertEquals(
+                            javaList.subList(
+                                    lowerBound,
+                                    lowerBound(javaList, toElement + 1)),
+                            list.range(element, true, toElement, true));
+                    break;
+            }
+
+            assertEquals(javaList.size(), list.size());
+        }
+
+        assertEquals(javaList, new ArrayList<>(list));
+    }
+
+    @Test
+    public void equalElementsKeepInsertionOrder() {
+        SortedLinkedBlockList<String> list =
+                new SortedLinkedBlockList<>(
+                        4, Comparator.comparing(String::length));
+
+        for (String s : Arrays.asList("bb", "a", "cc", "d", "eee", "ff")) {
+            list.add(s);
+        }
+
+        assertEquals(Arrays.asList("a", "d", "bb", "cc", "ff", "eee"),
+                     new ArrayList<>(list));
+        assertEquals("bb", list.ceiling("xx"));
+        assertEquals("ff", list.floor("xx"));
+        assertEquals(Arrays.asList("bb", "cc", "ff"),
+                     list.range("x", false, "xxx", false));
+    }
+
+    @Test
+    public void removeRangeRemovesHalfOpenRange() {
+        for (int i = 0; i < 100; i++) {
+            list.add(i / 2);
+        }
+
+        assertEquals(20, list.removeRange(10, 20));
+        assertEquals(Integer.valueOf(9), list.lower(20));
+        assertEquals(Integer.valueOf(20), list.get(20));
+        assertEquals(0, list.removeRange(30, 30));
+        assertTrue(list.range(0, true, 100, true).containsAll(list));
+        assertEquals(Collections.emptyList(),
+                     list.range(10, true, 19, true));
+    }
+
+    private static int lowerBound(List<Integer> list, int element) {
+        int index = Collections.binarySearch(list, element);
+
+        if (index < 0) {
+            return -index - 1;
+        }
+
+        while (index > 0 && list.get(index - 1) == element) {
+            index--;
+        }
+
+        return index;
+    }
+
+    private static Integer elementAt(List<Integer> list, int index) {
+        return index >= 0 && index < list.size() ? list.get(index) : null;
+    }
+}